@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.benchmark;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recorded responses in src/jmh/resources/fixtures. The fixtures keep the structure of the real
+ * responses including the parts which are skipped by the parsers, like ads, live streams, premieres
+ * and shelves, so the parsers do the same work as for live responses.
+ */
+@UtilityClass
+public class Fixtures {
+
+    public static final String YOUTUBE_RESULTS = "youtube/results.html";
+    public static final String YOUTUBE_CONTINUATION = "youtube/continuation.html";
+    public static final String YOUTUBE_WATCH = "youtube/watch.html";
+    public static final String SOUNDCLOUD_SEARCH = "soundcloud/search.json";
+    public static final String SOUNDCLOUD_TRACK = "soundcloud/track.json";
+
+    public String load(final String fixture) {
+        try (final InputStream inputStream = Fixtures.class.getResourceAsStream("/fixtures/" + fixture)) {
+            if (inputStream == null)
+                throw new IllegalArgumentException("Fixture not found: " + fixture);
+
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Builder;
+import lombok.experimental.UtilityClass;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates structurally valid search responses with any amount of items, to see how the parsers scale with the
+ * payload size. The same shape and seed always produce the same payload.
+ */
+@UtilityClass
+public class PayloadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final List<String> ARTISTS = List.of("Ben Böhmer", "Tale Of Us", "Bonobo", "Nils Frahm", "Röyksopp",
+            "Ólafur Arnalds", "Moderat", "Four Tet", "Jon Hopkins", "Kiasmos");
+    private static final List<String> WORDS = List.of("Original", "Mix", "Extended", "Remix", "Live", "Session", "Edit",
+            "Dub", "Version", "Rework", "Journey", "Horizon", "Light", "Night", "Dawn", "Echo", "River", "Breath");
+
+    /**
+     * Shape of a generated payload.
+     *
+     * @param items             the amount of tracks.
+     * @param adRate            the share of additional ads.
+     * @param premiereRate      the share of additional premieres, YouTube only.
+     * @param liveRate          the share of additional live streams, YouTube only.
+     * @param missingFieldRate  the share of tracks missing a random field.
+     * @param descriptionLength the length of the description of every track.
+     * @param seed              the seed of the random values.
+     */
+    @Builder(toBuilder = true)
+    public record Shape(int items, double adRate, double premiereRate, double liveRate, double missingFieldRate,
+                        int descriptionLength, long seed) {
+
+        /**
+         * Shape like the current responses: some ads, premieres and live streams and short descriptions.
+         *
+         * @param items the amount of tracks.
+         * @return the shape.
+         */
+        public static Shape of(final int items) {
+            return new Shape(items, 0.05, 0.05, 0.05, 0.0, 120, 42);
+        }
+
+    }
+
+    /**
+     * YouTube search results page holding the tracks in {@code ytInitialData} and a continuation token.
+     */
+    public String youTubeResults(final Shape shape) {
+        final ObjectNode root = MAPPER.createObjectNode();
+        root.put("estimatedResults", "48211");
+        final ArrayNode sections = root.putObject("contents").putObject("twoColumnSearchResultsRenderer")
+                .putObject("primaryContents").putObject("sectionListRenderer").putArray("contents");
+
+        final Random random = new Random(shape.seed());
+        sections.addObject().putObject("itemSectionRenderer").set("contents", youTubeItems(shape, random));
+        sections.add(youTubeContinuationItem(random));
+        return youTubePage(root);
+    }
+
+    /**
+     * YouTube continuation page as answered when requesting the next page with a token.
+     */
+    public String youTubeContinuation(final Shape shape) {
+        final ObjectNode root = MAPPER.createObjectNode();
+        final ObjectNode action = root.putArray("onResponseReceivedCommands").addObject()
+                .putObject("appendContinuationItemsAction");
+        action.put("targetId", "search-feed");
+        final ArrayNode continuationItems = action.putArray("continuationItems");
+
+        final Random random = new Random(shape.seed());
+        continuationItems.addObject().putObject("itemSectionRenderer").set("contents", youTubeItems(shape, random));
+        continuationItems.add(youTubeContinuationItem(random));
+        return youTubePage(root);
+    }
+
+    /**
+     * SoundCloud api-v2 search response holding the tracks in {@code collection}.
+     */
+    public String soundCloudSearch(final Shape shape) {
+        final Random random = new Random(shape.seed());
+        final ObjectNode root = MAPPER.createObjectNode();
+        final ArrayNode collection = root.putArray("collection");
+
+        for (int item = 0; item < shape.items(); item++) {
+            if (random.nextDouble() < shape.adRate()) {
+                final ObjectNode promoted = collection.addObject();
+                promoted.put("kind", "promoted");
+                promoted.put("urn", "soundcloud:promoted:" + random.nextInt(1_000_000));
+            }
+            collection.add(soundCloudTrack(shape, random));
+        }
+
+        root.put("total_results", shape.items() * 10);
+        root.put("next_href", "https://api-v2.soundcloud.com/search/tracks?offset=" + shape.items() + "&limit=" + shape.items());
+        return root.toString();
+    }
+
+    private static ArrayNode youTubeItems(final Shape shape, final Random random) {
+        final ArrayNode items = MAPPER.createArrayNode();
+        for (int item = 0; item < shape.items(); item++) {
+            if (random.nextDouble() < shape.adRate())
+                items.addObject().putObject("promotedSparklesWebRenderer").putObject("title").put("simpleText", "Sponsored");
+
+            if (random.nextDouble() < shape.liveRate()) {
+                final ObjectNode live = youTubeVideo(shape, random);
+                ((ObjectNode) live.get("videoRenderer")).remove("lengthText");
+                items.add(live);
+            }
+
+            if (random.nextDouble() < shape.premiereRate()) {
+                final ObjectNode premiere = youTubeVideo(shape, random);
+                ((ObjectNode) premiere.get("videoRenderer")).putObject("upcomingEventData").put("startTime", "1735689600");
+                items.add(premiere);
+            }
+
+            items.add(youTubeVideo(shape, random));
+        }
+        return items;
+    }
+
+    private static ObjectNode youTubeVideo(final Shape shape, final Random random) {
+        final String videoId = id(random, 11);
+        final String artist = pick(random, ARTISTS);
+        final int seconds = 120 + random.nextInt(1800);
+
+        final ObjectNode video = MAPPER.createObjectNode();
+        final ObjectNode renderer = video.putObject("videoRenderer");
+        renderer.put("videoId", videoId);
+        renderer.putObject("thumbnail").putArray("thumbnails").addObject()
+                .put("url", "https://i.ytimg.com/vi/" + videoId + "/hqdefault.jpg").put("width", 480).put("height", 360);
+        renderer.putObject("title").putArray("runs").addObject().put("text", title(random, artist));
+
+        final ObjectNode owner = renderer.putObject("ownerText").putArray("runs").addObject();
+        owner.put("text", artist);
+        owner.putObject("navigationEndpoint").putObject("commandMetadata").putObject("webCommandMetadata")
+                .put("url", "/@" + artist.replace(" ", "")).put("webPageType", "WEB_PAGE_TYPE_CHANNEL");
+
+        renderer.putObject("lengthText").put("simpleText", String.format("%d:%02d", seconds / 60, seconds % 60));
+        renderer.putObject("viewCountText").put("simpleText", String.format("%,d views", random.nextInt(90_000_000)));
+        renderer.putObject("publishedTimeText").put("simpleText", (1 + random.nextInt(9)) + " years ago");
+        renderer.putArray("detailedMetadataSnippets").addObject().putObject("snippetText").putArray("runs").addObject()
+                .put("text", description(random, shape.descriptionLength()));
+
+        if (random.nextDouble() < shape.missingFieldRate())
+            renderer.remove(pick(random, List.of("title", "lengthText", "ownerText", "viewCountText", "thumbnail")));
+
+        return video;
+    }
+
+    private static ObjectNode youTubeContinuationItem(final Random random) {
+        final ObjectNode item = MAPPER.createObjectNode();
+        final ObjectNode renderer = item.putObject("continuationItemRenderer");
+        renderer.put("trigger", "CONTINUATION_TRIGGER_ON_ITEM_SHOWN");
+        renderer.putObject("continuationEndpoint").putObject("continuationCommand")
+                .put("token", "Eq" + id(random, 120)).put("request", "CONTINUATION_REQUEST_TYPE_SEARCH");
+        return item;
+    }
+
+    private static String youTubePage(final ObjectNode initialData) {
+        return "<!DOCTYPE html><html lang=\"en\"><head><title>YouTube</title>" +
+                "<script nonce=\"a1\">var ytcfg={\"INNERTUBE_CONTEXT_CLIENT_VERSION\":\"2.20240620.05.00\"};</script>" +
+                "</head><body><ytd-app></ytd-app>" +
+                "<script nonce=\"a2\">var ytInitialData = " + initialData + ";</script>" +
+                "</body></html>";
+    }
+
+    private static ObjectNode soundCloudTrack(final Shape shape, final Random random) {
+        final long id = 100_000_000L + random.nextInt(1_000_000_000);
+        final String artist = pick(random, ARTISTS);
+        final String user = artist.toLowerCase().replace(" ", "");
+        final String title = title(random, artist);
+        final String permalink = title.toLowerCase().replace(' ', '-');
+
+        final ObjectNode track = MAPPER.createObjectNode();
+        track.put("id", id);
+        track.put("kind", "track");
+        track.put("title", title);
+        track.put("duration", 120_000 + random.nextInt(900_000));
+        track.put("permalink", permalink);
+        track.put("permalink_url", "https://soundcloud.com/" + user + "/" + permalink);
+        track.put("artwork_url", "https://i1.sndcdn.com/artworks-" + id(random, 16) + "-large.jpg");
+        track.put("description", description(random, shape.descriptionLength()));
+        track.put("genre", "Electronic");
+        track.put("playback_count", random.nextInt(10_000_000));
+        track.put("uri", "https://api.soundcloud.com/tracks/" + id);
+
+        final ObjectNode owner = track.putObject("user");
+        owner.put("id", random.nextInt(1_000_000_000));
+        owner.put("kind", "user");
+        owner.put("username", artist);
+        owner.put("permalink", user);
+        owner.put("permalink_url", "https://soundcloud.com/" + user);
+        owner.put("avatar_url", "https://i1.sndcdn.com/avatars-" + id(random, 16) + "-large.jpg");
+
+        if (random.nextDouble() < shape.missingFieldRate())
+            track.remove(pick(random, List.of("title", "duration", "permalink_url", "artwork_url", "playback_count", "user")));
+
+        return track;
+    }
+
+    private static String title(final Random random, final String artist) {
+        return artist + " - " + pick(random, WORDS) + " " + pick(random, WORDS);
+    }
+
+    private static String description(final Random random, final int length) {
+        final StringBuilder description = new StringBuilder(length + 16);
+        while (description.length() < length) {
+            description.append(pick(random, WORDS)).append(' ');
+        }
+        description.setLength(length);
+        return description.toString();
+    }
+
+    private static String id(final Random random, final int length) {
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        final StringBuilder id = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            id.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return id.toString();
+    }
+
+    private static <T> T pick(final Random random, final List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+}
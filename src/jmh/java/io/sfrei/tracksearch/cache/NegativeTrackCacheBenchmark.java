@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up tracks recorded unavailable with their reason kept, tracks only left in the filter and available tracks
+ * rejected by the filter, with more failures recorded than the map keeps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSettings.QUIET_LOGGING)
+public class NegativeTrackCacheBenchmark {
+
+    private static final int FAILURES = 100_000;
+    private static final int KEPT_FAILURES = 10_000;
+
+    private NegativeTrackCache cache;
+    private int next;
+
+    @Setup
+    public void setup() {
+        cache = new NegativeTrackCache(Duration.ofHours(6), KEPT_FAILURES);
+        for (int i = 0; i < FAILURES; i++)
+            cache.recordUnavailable("youtube:dead" + i, "Video unavailable");
+        System.out.printf("%n%s%n", cache.getSnapshot());
+    }
+
+    @Benchmark
+    public String keptFailure() {
+        next = (next + 1) % KEPT_FAILURES;
+        return cache.unavailableReason("youtube:dead" + (FAILURES - KEPT_FAILURES + next));
+    }
+
+    @Benchmark
+    public String filteredFailure() {
+        next = (next + 1) % KEPT_FAILURES;
+        return cache.unavailableReason("youtube:dead" + next);
+    }
+
+    @Benchmark
+    public String available() {
+        next = (next + 1) % KEPT_FAILURES;
+        return cache.unavailableReason("youtube:alive" + next);
+    }
+
+}
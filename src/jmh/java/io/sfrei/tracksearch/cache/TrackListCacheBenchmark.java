@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import io.sfrei.tracksearch.clients.soundcloud.SoundCloudFixtureTracks;
+import io.sfrei.tracksearch.clients.youtube.YouTubeFixtureTracks;
+import io.sfrei.tracksearch.config.CacheConfig;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Gets fixture pages from the heap tier and, rotating through more keys than the heap holds, from the disk tier.
+ * The disk tier decodes straight from the mapped segment and promotes the page to the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSettings.QUIET_LOGGING)
+public class TrackListCacheBenchmark {
+
+    private static final int KEYS = 2000;
+
+    private Path directory;
+    private TrackListCache cache;
+    private int next;
+
+    @Setup
+    public void setup() throws TrackSearchException, IOException {
+        final GenericTrackList<YouTubeTrack> youTubeTracks = YouTubeFixtureTracks.load("bonobo");
+        final GenericTrackList<SoundCloudTrack> soundCloudTracks = SoundCloudFixtureTracks.load("bonobo");
+
+        directory = Files.createTempDirectory("cache");
+        cache = new TrackListCache(new CacheConfig(16, directory, 16 * 1024 * 1024, 16, Duration.ofHours(1), null), Clock.systemUTC());
+        for (int i = 0; i < KEYS; i++) {
+            cache.put("youtube:" + i, youTubeTracks);
+            cache.put("soundcloud:" + i, soundCloudTracks);
+        }
+        System.out.printf("%n%s%n", cache.getSnapshot());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        cache.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public GenericTrackList<Track> heapHit() {
+        return cache.get("youtube:0", null);
+    }
+
+    @Benchmark
+    public GenericTrackList<Track> diskHit() {
+        next = (next + 1) % KEYS;
+        return cache.get("youtube:" + next, null);
+    }
+
+    @Benchmark
+    public GenericTrackList<Track> miss() {
+        return cache.get("missing", null);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients;
+
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import io.sfrei.tracksearch.clients.soundcloud.SoundCloudClient;
+import io.sfrei.tracksearch.clients.youtube.YouTubeClient;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from a fresh JVM to the first search result, replaying synthesized responses shaped like the live ones with
+ * a latency like a nearby server. Every measurement runs in its own fork, so class loading and static
+ * initialization are included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 20, jvmArgsAppend = {
+        BenchmarkSettings.QUIET_LOGGING,
+        "-Dtracksearch.replay=replay",
+        "-Dtracksearch.replay.dir=src/test/resources/replay-synthetic",
+        "-Dtracksearch.replay.latency=30",
+        "-Dtracksearch.replay.jitter=20"
+})
+public class StartupBenchmark {
+
+    private static final String SEARCH_KEY = "Ben Böhmer";
+
+    /**
+     * Client created and warmed up before the measurement, like in the init phase of a serverless function.
+     */
+    @State(Scope.Benchmark)
+    public static class WarmedUpClient {
+
+        private MultiSearchClient client;
+
+        @Setup
+        public void setup() {
+            client = new MultiSearchClient();
+            client.warmUp().join();
+        }
+
+    }
+
+    @Benchmark
+    public TrackList<Track> firstMultiSearch() throws TrackSearchException {
+        return new MultiSearchClient().getTracksForSearch(SEARCH_KEY);
+    }
+
+    @Benchmark
+    public TrackList<Track> firstMultiSearchWarmedUp(final WarmedUpClient warmedUpClient) throws TrackSearchException {
+        return warmedUpClient.client.getTracksForSearch(SEARCH_KEY);
+    }
+
+    @Benchmark
+    public TrackList<YouTubeTrack> firstYouTubeSearch() throws TrackSearchException {
+        return new YouTubeClient().getTracksForSearch(SEARCH_KEY);
+    }
+
+    @Benchmark
+    public TrackList<SoundCloudTrack> firstSoundCloudSearch() throws TrackSearchException {
+        return new SoundCloudClient().getTracksForSearch(SEARCH_KEY);
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.soundcloud;
+
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import io.sfrei.tracksearch.benchmark.PayloadGenerator;
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.SoundCloudException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the extraction scales with the amount of items and the size of the descriptions, time per operation
+ * should grow linearly with the items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSettings.QUIET_LOGGING)
+public class SoundCloudScalingBenchmark {
+
+    @Param({"20", "200", "2000", "20000"})
+    private int items;
+
+    @Param({"120", "4000"})
+    private int descriptionLength;
+
+    private String searchJson;
+
+    @Setup
+    public void setup() {
+        searchJson = PayloadGenerator.soundCloudSearch(PayloadGenerator.Shape.of(items).toBuilder()
+                .missingFieldRate(0.02)
+                .descriptionLength(descriptionLength)
+                .build());
+    }
+
+    @Benchmark
+    public GenericTrackList<SoundCloudTrack> extractSoundCloudTracks() throws SoundCloudException {
+        return SoundCloudUtility.extractSoundCloudTracks(searchJson, QueryType.SEARCH, "bonobo", trackList -> null);
+    }
+
+}
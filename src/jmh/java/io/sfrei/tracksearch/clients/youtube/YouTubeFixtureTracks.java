@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.youtube;
+
+import io.sfrei.tracksearch.benchmark.Fixtures;
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.YouTubeException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Tracks extracted from the recorded fixtures for benchmarks outside of this package.
+ */
+@UtilityClass
+public class YouTubeFixtureTracks {
+
+    public GenericTrackList<YouTubeTrack> load(final String query) throws YouTubeException {
+        return YouTubeUtility.extractYouTubeTracks(Fixtures.load(Fixtures.YOUTUBE_RESULTS), QueryType.SEARCH, query, trackList -> null);
+    }
+
+}
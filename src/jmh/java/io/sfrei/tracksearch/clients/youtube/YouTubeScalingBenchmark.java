@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.youtube;
+
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import io.sfrei.tracksearch.benchmark.PayloadGenerator;
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.YouTubeException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.utils.json.JsonElement;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the extraction scales with the amount of items and the size of the descriptions, time per operation
+ * should grow linearly with the items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSettings.QUIET_LOGGING)
+public class YouTubeScalingBenchmark {
+
+    @Param({"20", "200", "2000", "20000"})
+    private int items;
+
+    @Param({"120", "4000"})
+    private int descriptionLength;
+
+    private String resultsHtml;
+    private String continuationHtml;
+    private JsonElement resultsJson;
+    private String cToken;
+
+    @Setup
+    public void setup() throws YouTubeException {
+        final PayloadGenerator.Shape shape = PayloadGenerator.Shape.of(items).toBuilder()
+                .missingFieldRate(0.02)
+                .descriptionLength(descriptionLength)
+                .build();
+
+        resultsHtml = PayloadGenerator.youTubeResults(shape);
+        continuationHtml = PayloadGenerator.youTubeContinuation(shape);
+        resultsJson = YouTubeUtility.readYouTubeTracksJson(resultsHtml);
+        cToken = YouTubeUtility.extractCToken(resultsJson);
+    }
+
+    @Benchmark
+    public GenericTrackList<YouTubeTrack> extractYouTubeTracks() throws YouTubeException {
+        return YouTubeUtility.extractYouTubeTracks(resultsHtml, QueryType.SEARCH, "bonobo", trackList -> null);
+    }
+
+    @Benchmark
+    public GenericTrackList<YouTubeTrack> extractYouTubeTracksContinuation() throws YouTubeException {
+        return YouTubeUtility.extractYouTubeTracks(continuationHtml, QueryType.PAGING, "bonobo", trackList -> null);
+    }
+
+    @Benchmark
+    public JsonElement readYouTubeTracksJson() throws YouTubeException {
+        return YouTubeUtility.readYouTubeTracksJson(resultsHtml);
+    }
+
+    @Benchmark
+    public GenericTrackList<YouTubeTrack> deserializeYouTubeTracks() {
+        return YouTubeUtility.extractYouTubeTracks(resultsJson, cToken, QueryType.SEARCH, "bonobo", trackList -> null);
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.load;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Latency the stand-in server adds to a response, parsed from a spec like {@code lognormal:80:0.6}.
+ * All values are milliseconds.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    LatencyDistribution NONE = random -> 0L;
+
+    long sampleNanos(RandomGenerator random);
+
+    /**
+     * Parse a latency distribution from one of the specs:
+     * <ul>
+     *     <li>{@code none}</li>
+     *     <li>{@code fixed:<millis>}</li>
+     *     <li>{@code uniform:<min>:<max>}</li>
+     *     <li>{@code lognormal:<median>:<sigma>} - long tail like most real services</li>
+     *     <li>{@code pareto:<min>:<alpha>} - heavy tail, lower alpha means more outliers</li>
+     * </ul>
+     *
+     * @param spec the spec to parse.
+     * @return the latency distribution.
+     */
+    static LatencyDistribution parse(final String spec) {
+        final String[] parts = spec.toLowerCase(Locale.ROOT).split(":");
+        final LatencyDistribution distribution = switch (parts[0]) {
+            case "none" -> NONE;
+            case "fixed" -> {
+                final long nanos = millisToNanos(Double.parseDouble(parts[1]));
+                yield random -> nanos;
+            }
+            case "uniform" -> {
+                final long min = millisToNanos(Double.parseDouble(parts[1]));
+                final long max = millisToNanos(Double.parseDouble(parts[2]));
+                yield random -> min + random.nextLong(max - min + 1);
+            }
+            case "lognormal" -> {
+                final double mu = Math.log(Double.parseDouble(parts[1]));
+                final double sigma = Double.parseDouble(parts[2]);
+                yield random -> millisToNanos(Math.exp(mu + sigma * random.nextGaussian()));
+            }
+            case "pareto" -> {
+                final double min = Double.parseDouble(parts[1]);
+                final double alpha = Double.parseDouble(parts[2]);
+                yield random -> millisToNanos(min / Math.pow(1.0 - random.nextDouble(), 1.0 / alpha));
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        };
+        return new Described(spec, distribution);
+    }
+
+    record Described(String spec, LatencyDistribution distribution) implements LatencyDistribution {
+
+        @Override
+        public long sampleNanos(final RandomGenerator random) {
+            return distribution.sampleNanos(random);
+        }
+
+        @Override
+        public String toString() {
+            return spec;
+        }
+
+    }
+
+    private static long millisToNanos(final double millis) {
+        return (long) (millis * Duration.ofMillis(1).toNanos());
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.load;
+
+import io.sfrei.tracksearch.clients.MultiSearchClient;
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.config.ReplayConfig;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the {@link MultiSearchClient} under concurrent callers against the {@link StandInServer} and reports
+ * throughput, latency percentiles, allocation rate and thread counts. Meant to compare changes to the executors,
+ * the connection pool or caching on one machine:
+ * <pre>
+ * ./mvnw verify -P benchmark,load-test -Dload.args="callers=32 duration=60 latency=lognormal:80:0.6 errors=0.01"
+ * </pre>
+ * Options are given as {@code key=value}, see {@link Options#parse(String...)}.
+ */
+@Slf4j
+public final class LoadHarness {
+
+    private static final List<String> SEARCH_KEYS = List.of("Ben Böhmer", "Chris Luno", "Tale Of Us", "Hans Zimmer",
+            "Paul Kalkbrenner", "Einmusik", "Mind Against", "Adriatique", "Fideles", "Marek Hemmann", "Christian Löffler");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Options of a load test run.
+     *
+     * @param callers  the amount of concurrent callers.
+     * @param warmup   the time the results are not recorded in.
+     * @param duration the time the results are recorded in.
+     * @param pages    the amount of pages every caller gets for a search, the first page and the next ones.
+     * @param sources  the sources searched.
+     * @param server   the behavior of the stand-in server.
+     */
+    public record Options(int callers, Duration warmup, Duration duration, int pages, Set<TrackSource> sources,
+                          StandInServer.Settings server) {
+
+        /**
+         * Parse the options, the defaults in brackets:
+         * <ul>
+         *     <li>{@code callers} - concurrent callers [16]</li>
+         *     <li>{@code warmup} - seconds [10]</li>
+         *     <li>{@code duration} - seconds [30]</li>
+         *     <li>{@code pages} - pages per search [1]</li>
+         *     <li>{@code sources} - comma separated sources [all]</li>
+         *     <li>{@code latency} - see {@link LatencyDistribution#parse(String)} [lognormal:50:0.5]</li>
+         *     <li>{@code errors} - share of responses failing with 503 [0]</li>
+         *     <li>{@code padding} - bytes the search responses are padded with [0]</li>
+         *     <li>{@code items} - tracks per generated search response, the recorded fixtures are used when 0 [0]</li>
+         * </ul>
+         *
+         * @param args the {@code key=value} arguments.
+         * @return the options.
+         */
+        public static Options parse(final String... args) {
+            final Map<String, String> values = new HashMap<>();
+            for (final String arg : args) {
+                final String[] keyValue = arg.split("=", 2);
+                if (keyValue.length != 2)
+                    throw new IllegalArgumentException("Expected key=value but got: " + arg);
+                values.put(keyValue[0], keyValue[1]);
+            }
+
+            final Set<TrackSource> sources = values.containsKey("sources") ?
+                    Arrays.stream(values.get("sources").split(",")).map(TrackSource::valueOf).collect(Collectors.toSet()) :
+                    EnumSet.allOf(TrackSource.class);
+
+            return new Options(
+                    Integer.parseInt(values.getOrDefault("callers", "16")),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "30"))),
+                    Integer.parseInt(values.getOrDefault("pages", "1")),
+                    sources,
+                    new StandInServer.Settings(
+                            LatencyDistribution.parse(values.getOrDefault("latency", "lognormal:50:0.5")),
+                            Double.parseDouble(values.getOrDefault("errors", "0")),
+                            Integer.parseInt(values.getOrDefault("padding", "0")),
+                            Integer.parseInt(values.getOrDefault("items", "0"))
+                    )
+            );
+        }
+
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Options options = Options.parse(args);
+
+        try (final StandInServer server = StandInServer.start(options.server())) {
+            TrackSearchConfig.replay = ReplayConfig.off();
+            TrackSearchConfig.endpointOverride = server.url();
+            final MultiSearchClient client = new MultiSearchClient();
+
+            log.info("Warming up for {}s with {} callers", options.warmup().toSeconds(), options.callers());
+            run(client, options, options.warmup());
+
+            log.info("Measuring for {}s with {} callers", options.duration().toSeconds(), options.callers());
+            final long serverRequests = server.requests();
+            final long serverErrors = server.errors();
+            THREADS.resetPeakThreadCount();
+            final long allocatedBefore = allocatedBytes();
+
+            final Result result = run(client, options, options.duration());
+
+            final long allocated = allocatedBytes() - allocatedBefore;
+            report(options, result, allocated, server.requests() - serverRequests, server.errors() - serverErrors);
+        }
+
+        // Pooled threads of the clients keep the JVM alive
+        System.exit(0);
+    }
+
+    private record Result(long[] latencies, long failures, long elapsedNanos) {
+    }
+
+    private static Result run(final MultiSearchClient client, final Options options, final Duration duration)
+            throws InterruptedException {
+
+        final long end = System.nanoTime() + duration.toNanos();
+        final List<long[]> latenciesPerCaller = Collections.synchronizedList(new ArrayList<>());
+        final LongAdder failures = new LongAdder();
+        final CountDownLatch done = new CountDownLatch(options.callers());
+
+        final long start = System.nanoTime();
+        for (int caller = 0; caller < options.callers(); caller++) {
+            final int offset = caller;
+            final Thread thread = new Thread(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                for (int call = offset; System.nanoTime() < end; call++) {
+                    final String key = SEARCH_KEYS.get(call % SEARCH_KEYS.size());
+                    final long callStart = System.nanoTime();
+                    try {
+                        TrackList<Track> trackList = client.getTracksForSearch(key, options.sources());
+                        for (int page = 1; page < options.pages(); page++) {
+                            trackList = trackList.next();
+                        }
+                    } catch (TrackSearchException | RuntimeException e) {
+                        failures.increment();
+                        log.debug("Call failed for: {}", key, e);
+                        continue;
+                    }
+                    if (count == latencies.length)
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = System.nanoTime() - callStart;
+                }
+                latenciesPerCaller.add(Arrays.copyOf(latencies, count));
+                done.countDown();
+            }, "load-caller-" + caller);
+            thread.start();
+        }
+        done.await();
+        final long elapsed = System.nanoTime() - start;
+
+        final long[] latencies = latenciesPerCaller.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(latencies, failures.sum(), elapsed);
+    }
+
+    /**
+     * Bytes allocated by the live threads of the clients, the stand-in server is left out.
+     * Allocations of threads which ended in between are not included.
+     */
+    private static long allocatedBytes() {
+        final long[] threadIds = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> !thread.getName().startsWith(StandInServer.THREAD_PREFIX))
+                .filter(thread -> !thread.getName().startsWith("HTTP-Dispatcher"))
+                .mapToLong(Thread::getId)
+                .toArray();
+
+        return Arrays.stream(THREADS.getThreadAllocatedBytes(threadIds))
+                .filter(bytes -> bytes > 0)
+                .sum();
+    }
+
+    private static void report(final Options options, final Result result, final long allocatedBytes,
+                               final long serverRequests, final long serverErrors) {
+
+        final long[] latencies = result.latencies();
+        final double seconds = result.elapsedNanos() / 1e9;
+        final long calls = latencies.length;
+
+        System.out.println();
+        System.out.printf("Load test: %d callers, %d page(s), sources %s, server %s%n",
+                options.callers(), options.pages(), options.sources(), options.server());
+        System.out.printf("  calls          %,d ok, %,d failed in %.1fs%n", calls, result.failures(), seconds);
+        System.out.printf("  throughput     %,.1f calls/s%n", calls / seconds);
+        System.out.printf("  latency        p50 %s  p99 %s  p999 %s  max %s%n",
+                millis(percentile(latencies, 0.5)), millis(percentile(latencies, 0.99)),
+                millis(percentile(latencies, 0.999)), millis(calls == 0 ? 0 : latencies[latencies.length - 1]));
+        System.out.printf("  allocation     %,.1f MB/s, %,d bytes/call%n",
+                allocatedBytes / seconds / (1024 * 1024), calls == 0 ? 0 : allocatedBytes / calls);
+        System.out.printf("  threads        %d live, %d peak (including %d callers)%n",
+                THREADS.getThreadCount(), THREADS.getPeakThreadCount(), options.callers());
+        System.out.printf("  server         %,d requests, %,d injected errors%n", serverRequests, serverErrors);
+        System.out.println();
+    }
+
+    private static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0)
+            return 0;
+
+        final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(final long nanos) {
+        return String.format("%.1fms", nanos / 1e6);
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.sfrei.tracksearch.benchmark.Fixtures;
+import io.sfrei.tracksearch.benchmark.PayloadGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP server standing in for YouTube and SoundCloud, answering the requests of the clients with the
+ * recorded fixtures or generated payloads. The clients are pointed to it with {@link io.sfrei.tracksearch.config.TrackSearchConfig#endpointOverride}.
+ * <p>
+ * Serves the YouTube search and continuation pages on {@code /results}, the SoundCloud start page and the script
+ * containing the client_id for {@code /} and {@code /assets/}, and the SoundCloud api-v2 search on {@code /search/tracks}.
+ */
+@Slf4j
+public final class StandInServer implements AutoCloseable {
+
+    public static final String THREAD_PREFIX = "stand-in-";
+
+    private static final String HTML = "text/html; charset=utf-8";
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String JAVASCRIPT = "application/javascript";
+
+    private static final String SOUNDCLOUD_HOST = "soundcloud.com";
+    private static final String SCRIPT_URL = "https://a-v2.sndcdn.com/assets/app.js";
+
+    /**
+     * Behavior of the stand-in server.
+     *
+     * @param latency      the latency added to every response.
+     * @param errorRate    the share of requests answered with 503.
+     * @param paddingBytes the amount of bytes the search responses are padded with.
+     * @param items        the amount of tracks in generated search responses, the fixtures are used when 0.
+     */
+    public record Settings(LatencyDistribution latency, double errorRate, int paddingBytes, int items) {
+
+        public Settings {
+            if (errorRate < 0 || errorRate > 1)
+                throw new IllegalArgumentException("Error rate has to be between 0 and 1");
+            if (paddingBytes < 0)
+                throw new IllegalArgumentException("Padding must not be negative");
+            if (items < 0)
+                throw new IllegalArgumentException("Items must not be negative");
+        }
+
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Settings settings;
+
+    private final byte[] youTubeResults;
+    private final byte[] youTubeContinuation;
+    private final byte[] soundCloudSearch;
+    private final byte[] soundCloudStartPage;
+    private final byte[] soundCloudScript;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private StandInServer(final Settings settings) throws IOException {
+        this.settings = settings;
+
+        final String padding = "x".repeat(settings.paddingBytes());
+        final PayloadGenerator.Shape shape = PayloadGenerator.Shape.of(settings.items());
+        final boolean generated = settings.items() > 0;
+        youTubeResults = padHtml(generated ?
+                PayloadGenerator.youTubeResults(shape) : Fixtures.load(Fixtures.YOUTUBE_RESULTS), padding);
+        youTubeContinuation = padHtml(generated ?
+                PayloadGenerator.youTubeContinuation(shape) : Fixtures.load(Fixtures.YOUTUBE_CONTINUATION), padding);
+        soundCloudSearch = padJson(generated ?
+                PayloadGenerator.soundCloudSearch(shape) : Fixtures.load(Fixtures.SOUNDCLOUD_SEARCH), padding);
+        soundCloudStartPage = bytes("<!DOCTYPE html><html><head><title>SoundCloud</title></head><body>" +
+                "<script crossorigin src=\"" + SCRIPT_URL + "\"></script></body></html>");
+        soundCloudScript = bytes("var r={env:\"production\",client_id:\"standInClientId\"};");
+
+        final AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, THREAD_PREFIX + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public static StandInServer start(final Settings settings) throws IOException {
+        final StandInServer standInServer = new StandInServer(settings);
+        standInServer.server.start();
+        log.info("Stand-in server listening on: {}", standInServer.url());
+        return standInServer;
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long latency = settings.latency().sampleNanos(random);
+            if (latency > 0)
+                TimeUnit.NANOSECONDS.sleep(latency);
+
+            if (random.nextDouble() < settings.errorRate()) {
+                errors.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            final String path = exchange.getRequestURI().getPath();
+            final String query = exchange.getRequestURI().getRawQuery();
+            final String host = exchange.getRequestHeaders().getFirst("X-Forwarded-Host");
+
+            if (path.equals("/results")) {
+                final boolean continuation = query != null && query.contains("ctoken=");
+                respond(exchange, HTML, continuation ? youTubeContinuation : youTubeResults);
+            } else if (path.equals("/search/tracks")) {
+                respond(exchange, JSON, soundCloudSearch);
+            } else if (path.startsWith("/assets/")) {
+                respond(exchange, JAVASCRIPT, soundCloudScript);
+            } else if (path.equals("/") && SOUNDCLOUD_HOST.equals(host)) {
+                respond(exchange, HTML, soundCloudStartPage);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final String contentType, final byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static byte[] padHtml(final String html, final String padding) {
+        if (padding.isEmpty())
+            return bytes(html);
+
+        final int bodyEnd = html.lastIndexOf("</body>");
+        return bytes(html.substring(0, bodyEnd) + "<!-- " + padding + " -->" + html.substring(bodyEnd));
+    }
+
+    private static byte[] padJson(final String json, final String padding) {
+        if (padding.isEmpty())
+            return bytes(json);
+
+        return bytes("{\"padding\":\"" + padding + "\"," + json.substring(json.indexOf('{') + 1));
+    }
+
+    private static byte[] bytes(final String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
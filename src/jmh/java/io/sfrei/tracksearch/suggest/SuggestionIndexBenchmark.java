@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.suggest;
+
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggests completions from a full index of synthetic titles and queries, for short prefixes matching many entries
+ * and longer ones matching few, and reloads the index from a file. The file size is printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSettings.QUIET_LOGGING)
+public class SuggestionIndexBenchmark {
+
+    private static final int ENTRIES = 100_000;
+    private static final int VOCABULARY = 5_000;
+
+    private SuggestionIndex index;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(42);
+        index = new SuggestionIndex(ENTRIES);
+        for (int i = 0; i < ENTRIES * 2; i++) {
+            final String title = word(random) + " " + word(random) + " - " + word(random);
+            if (random.nextInt(10) == 0)
+                index.recordQuery(title);
+            else
+                index.recordTitle(title);
+        }
+
+        file = Files.createTempFile("suggestions", null);
+        index.writeTo(file);
+        System.out.printf("%n%s entries - file: %s bytes%n", index.size(), Files.size(file));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // Syllables make words share prefixes like real ones do, skewed towards the first words
+    private static String word(final Random random) {
+        final int word = (int) (Math.pow(random.nextDouble(), 3) * VOCABULARY);
+        return "ka" + Integer.toString(word, 7).replace('0', 'l').replace('1', 'm').replace('2', 'n')
+                .replace('3', 'o').replace('4', 'r').replace('5', 's').replace('6', 't');
+    }
+
+    @Benchmark
+    public List<String> suggestShortPrefix() {
+        return index.suggest("k", 10);
+    }
+
+    @Benchmark
+    public List<String> suggestTokenPrefix() {
+        return index.suggest("kal ", 10);
+    }
+
+    @Benchmark
+    public List<String> suggestLongPrefix() {
+        return index.suggest("kal kam", 10);
+    }
+
+    @Benchmark
+    public SuggestionIndex reload() throws IOException {
+        return SuggestionIndex.readFrom(file, ENTRIES);
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.clients.soundcloud.SoundCloudFixtureTracks;
+import io.sfrei.tracksearch.clients.youtube.YouTubeFixtureTracks;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.metadata.SoundCloudTrackMetadata;
+import io.sfrei.tracksearch.tracks.metadata.TrackMetadata;
+import io.sfrei.tracksearch.tracks.metadata.YouTubeTrackMetadata;
+import io.sfrei.tracksearch.tracks.paging.MultiCursor;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
+import io.sfrei.tracksearch.tracks.paging.SoundCloudCursor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary codec with Jackson serializing the same snapshot of a merged YouTube and SoundCloud page.
+ * Jackson uses plain records, as a cache would to avoid serializing the track classes directly.
+ * The encoded sizes are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSettings.QUIET_LOGGING)
+public class TrackListCodecBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private GenericTrackList<Track> trackList;
+    private byte[] encoded;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws TrackSearchException, IOException {
+        final GenericTrackList<YouTubeTrack> youTubeTracks = YouTubeFixtureTracks.load("bonobo");
+        final GenericTrackList<SoundCloudTrack> soundCloudTracks = SoundCloudFixtureTracks.load("bonobo");
+        final PagingCursor soundCloudCursor = new SoundCloudCursor("bonobo", 0, soundCloudTracks.size(), 20);
+
+        trackList = GenericTrackList.using(QueryType.SEARCH, new HashMap<>(Map.of(TrackList.QUERY_KEY, "bonobo")), null);
+        trackList.addAll(youTubeTracks);
+        trackList.addAll(soundCloudTracks);
+        trackList.withCursor(MultiCursor.combining("bonobo", List.of(youTubeTracks.getCursor(), soundCloudCursor)));
+
+        encoded = TrackListCodec.encode(trackList);
+        json = MAPPER.writeValueAsBytes(TrackListSnapshot.of(trackList));
+        System.out.printf("%n%s tracks - codec: %s bytes, Jackson: %s bytes%n", trackList.size(), encoded.length, json.length);
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return TrackListCodec.encode(trackList);
+    }
+
+    @Benchmark
+    public GenericTrackList<Track> codecDecode() {
+        return TrackListCodec.decodeTrackList(ByteBuffer.wrap(encoded));
+    }
+
+    @Benchmark
+    public byte[] jacksonEncode() throws IOException {
+        return MAPPER.writeValueAsBytes(TrackListSnapshot.of(trackList));
+    }
+
+    @Benchmark
+    public GenericTrackList<Track> jacksonDecode() throws IOException {
+        return MAPPER.readValue(json, TrackListSnapshot.class).toTrackList();
+    }
+
+    public record TrackListSnapshot(QueryType queryType, Map<String, String> queryInformation, String pagingToken,
+                                    List<TrackSnapshot> tracks) {
+
+        static TrackListSnapshot of(final TrackList<Track> trackList) {
+            final List<TrackSnapshot> tracks = new ArrayList<>(trackList.size());
+            for (final Track track : trackList)
+                tracks.add(TrackSnapshot.of(track));
+
+            return new TrackListSnapshot(trackList.getQueryType(), trackList.getQueryInformation(), trackList.getPagingToken(), tracks);
+        }
+
+        GenericTrackList<Track> toTrackList() {
+            final List<Track> trackList = new ArrayList<>(tracks.size());
+            for (final TrackSnapshot track : tracks)
+                trackList.add(track.toTrack());
+
+            return GenericTrackList.<Track>using(queryType, new HashMap<>(queryInformation), null)
+                    .withTracks(trackList)
+                    .withCursor(pagingToken == null ? null : PagingCursor.fromToken(pagingToken));
+        }
+
+    }
+
+    public record TrackSnapshot(TrackSource source, String title, Long durationMillis, String url,
+                                String channelName, String channelUrl, Long streamAmount, String thumbNailUrl) {
+
+        static TrackSnapshot of(final Track track) {
+            final TrackMetadata metadata = track.getTrackMetadata();
+            return new TrackSnapshot(track.getSource(), track.getTitle(), track.getDuration().toMillis(), track.getUrl(),
+                    metadata.channelName(), metadata.channelUrl(), metadata.streamAmount(), metadata.thumbNailUrl());
+        }
+
+        Track toTrack() {
+            final Duration duration = Duration.ofMillis(durationMillis);
+            return switch (source) {
+                case Youtube -> new YouTubeTrack(title, duration, url,
+                        new YouTubeTrackMetadata(channelName, channelUrl, streamAmount, thumbNailUrl));
+                case Soundcloud -> new SoundCloudTrack(title, duration, url,
+                        new SoundCloudTrackMetadata(channelName, channelUrl, streamAmount, thumbNailUrl));
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.index;
+
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.metadata.YouTubeTrackMetadata;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches a local index of synthetic tracks. Titles are drawn from a vocabulary with a skewed distribution,
+ * so the common terms match a large share of the tracks like "remix" or "official" do. The index size is printed
+ * on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkSettings.QUIET_LOGGING, "-Xmx3g"})
+public class TrackIndexBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+    private static final int CHANNELS = 50_000;
+
+    @Param({"100000", "1000000"})
+    public int tracks;
+
+    private TrackIndex index;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        index = new TrackIndex(tracks * 2);
+
+        final List<Track> batch = new ArrayList<>(20);
+        for (int i = 0; i < tracks; i++) {
+            final String channel = "channel" + random.nextInt(CHANNELS);
+            final String title = word(random) + " " + word(random) + " - " + word(random) + " " + word(random);
+            batch.add(YouTubeTrack.builder()
+                    .title(title)
+                    .url("https://www.youtube.com/watch?v=" + Integer.toString(i, 36))
+                    .duration(Duration.ofSeconds(60 + random.nextInt(600)))
+                    .trackMetadata(new YouTubeTrackMetadata(channel, "https://www.youtube.com/@" + channel,
+                            (long) random.nextInt(1_000_000), null))
+                    .build());
+
+            if (batch.size() == 20) {
+                index.addAll(batch);
+                batch.clear();
+            }
+        }
+        index.addAll(batch);
+
+        System.out.printf("%n%s tracks - postings: %s bytes%n", index.size(), index.postingBytes());
+    }
+
+    // Skewed towards the low words, word0 is in about a tenth of the titles
+    private static String word(final Random random) {
+        final double skewed = Math.pow(random.nextDouble(), 4);
+        return "word" + (int) (skewed * VOCABULARY);
+    }
+
+    @Benchmark
+    public List<Track> searchRareTerms() {
+        return index.search("word9000 word12000", 50);
+    }
+
+    @Benchmark
+    public List<Track> searchCommonAndRareTerm() {
+        return index.search("word0 word5000", 50);
+    }
+
+    @Benchmark
+    public List<Track> searchCommonTerms() {
+        return index.search("word0 word1", 50);
+    }
+
+    @Benchmark
+    public List<Track> searchChannel() {
+        return index.search("channel4711", 50);
+    }
+
+}
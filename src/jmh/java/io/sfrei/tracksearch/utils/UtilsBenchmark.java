@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sfrei.tracksearch.benchmark.BenchmarkSettings;
+import io.sfrei.tracksearch.benchmark.Fixtures;
+import io.sfrei.tracksearch.utils.json.JsonElement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkSettings.QUIET_LOGGING)
+public class UtilsBenchmark {
+
+    private static final String TITLE = "Bonobo - Kerala @ Live_Session (Official Music Video) HD [2017] ★";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String searchJson;
+    private JsonElement searchElement;
+
+    @Setup
+    public void setup() {
+        searchJson = Fixtures.load(Fixtures.SOUNDCLOUD_SEARCH);
+        searchElement = JsonElement.readTreeCatching(MAPPER, searchJson).orElseThrow();
+    }
+
+    @Benchmark
+    public String cleanTitle() {
+        return StringReplacer.cleanTitle(TITLE);
+    }
+
+    @Benchmark
+    public Duration durationForTimeString(final TimeString timeString) {
+        return DurationParser.getDurationForTimeString(timeString.value);
+    }
+
+    @Benchmark
+    public JsonElement readTree() {
+        return JsonElement.readTreeCatching(MAPPER, searchJson).orElseThrow();
+    }
+
+    /**
+     * Navigation like the deserializers do it on every track of a search response.
+     */
+    @Benchmark
+    public void jsonElementNavigation(final Blackhole blackhole) {
+        searchElement.paths("collection").elements().forEach(track -> {
+            blackhole.consume(track.asString("title"));
+            blackhole.consume(track.asLong("duration"));
+            blackhole.consume(track.paths("user").asString("username"));
+            blackhole.consume(track.paths("artwork_url")
+                    .orElse(track)
+                    .paths("user", "avatar_url")
+                    .asString());
+        });
+    }
+
+    @State(Scope.Benchmark)
+    public static class TimeString {
+
+        @Param({"4:13", "1:02:33"})
+        public String value;
+
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import io.sfrei.tracksearch.tracks.dedup.CanonicalTrackId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers tracks confirmed to be unavailable, e.g. deleted or private ones, by their {@link CanonicalTrackId} to
+ * fail getting them again without requesting the source.
+ * <p>
+ * A {@link ScalableBloomFilter} answers most lookups of available tracks without locking, only tracks matching the
+ * filter look up the map of the recent failures, which holds their reasons and exact expiry. A track is reported
+ * unavailable only by an unexpired failure in the map: expired failures, failures evicted from the map and false
+ * positives of the filter are requested again. The filter decays: every TTL a new generation is started and the one
+ * before the current one is dropped, so it keeps every failure for at least its TTL.
+ */
+public class NegativeTrackCache {
+
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    private static final int INITIAL_FILTER_CAPACITY = 1024;
+
+    private final Clock clock;
+
+    private final long ttlMillis;
+
+    private final double falsePositiveRate;
+
+    private final Map<String, Failure> failures;
+
+    private volatile Generations generations;
+
+    private final LongAdder fastFailures = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+
+    /**
+     * Create a negative cache with the default false positive rate.
+     *
+     * @param ttl         the time failures are remembered for at least.
+     * @param maxFailures the amount of recent failures kept, the least recently used ones are requested again.
+     */
+    public NegativeTrackCache(final Duration ttl, final int maxFailures) {
+        this(ttl, maxFailures, DEFAULT_FALSE_POSITIVE_RATE, Clock.systemUTC());
+    }
+
+    NegativeTrackCache(final Duration ttl, final int maxFailures, final double falsePositiveRate, final Clock clock) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero() || maxFailures < 1)
+            throw new IllegalArgumentException("TTL and failures have to be positive");
+
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+        this.falsePositiveRate = falsePositiveRate;
+        this.failures = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Failure> eldest) {
+                return size() > maxFailures;
+            }
+        };
+        this.generations = new Generations(newFilter(), null, clock.millis() + ttlMillis);
+    }
+
+    /**
+     * Get why a track is known to be unavailable.
+     *
+     * @param trackId the canonical track ID.
+     * @return the reason or null when the track is not known to be unavailable.
+     */
+    public String unavailableReason(final String trackId) {
+        final long now = clock.millis();
+        if (!generations(now).mightContain(hash(trackId)))
+            return null;
+
+        synchronized (failures) {
+            final Failure failure = failures.get(trackId);
+            if (failure == null)
+                return null;
+
+            if (failure.expiresAt() <= now) {
+                failures.remove(trackId);
+                return null;
+            }
+            fastFailures.increment();
+            return failure.reason();
+        }
+    }
+
+    /**
+     * Remember a track confirmed to be unavailable.
+     *
+     * @param trackId the canonical track ID.
+     * @param reason  why the track is unavailable.
+     */
+    public void recordUnavailable(final String trackId, final String reason) {
+        final long now = clock.millis();
+        generations(now).current().put(hash(trackId));
+        synchronized (failures) {
+            failures.put(trackId, new Failure(reason, now + ttlMillis));
+        }
+        recorded.increment();
+    }
+
+    private Generations generations(final long now) {
+        Generations current = generations;
+        if (now < current.rotatesAt())
+            return current;
+
+        synchronized (this) {
+            current = generations;
+            if (now >= current.rotatesAt()) {
+                // The current generation is kept for another TTL unless it has not been rotated for that long already
+                final ScalableBloomFilter previous = now - current.rotatesAt() < ttlMillis ? current.current() : null;
+                current = new Generations(newFilter(), previous, now + ttlMillis);
+                generations = current;
+            }
+            return current;
+        }
+    }
+
+    private ScalableBloomFilter newFilter() {
+        return new ScalableBloomFilter(INITIAL_FILTER_CAPACITY, falsePositiveRate);
+    }
+
+    private static long hash(final String trackId) {
+        return OffHeapIndex.hash(trackId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the failure counts and sizes.
+     *
+     * @return the negative cache snapshot.
+     */
+    public Snapshot getSnapshot() {
+        final int failureEntries;
+        synchronized (failures) {
+            failureEntries = failures.size();
+        }
+        final Generations current = generations;
+        final long filterEntries = current.current().count() + (current.previous() == null ? 0 : current.previous().count());
+        final long filterBytes = current.current().bytes() + (current.previous() == null ? 0 : current.previous().bytes());
+        return new Snapshot(fastFailures.sum(), recorded.sum(), failureEntries, filterEntries, filterBytes);
+    }
+
+    private record Failure(String reason, long expiresAt) {
+    }
+
+    private record Generations(ScalableBloomFilter current, ScalableBloomFilter previous, long rotatesAt) {
+
+        private boolean mightContain(final long hash) {
+            return current.mightContain(hash) || previous != null && previous.mightContain(hash);
+        }
+
+    }
+
+    /**
+     * Snapshot of the negative cache.
+     *
+     * @param fastFailures   the amount of lookups reporting a track unavailable.
+     * @param recorded       the amount of failures recorded.
+     * @param failureEntries the amount of recent failures kept with their reasons.
+     * @param filterEntries  the amount of failures in the filter generations.
+     * @param filterBytes    the size of the filter generations.
+     */
+    public record Snapshot(long fastFailures, long recorded, int failureEntries, long filterEntries, long filterBytes) {
+    }
+
+}
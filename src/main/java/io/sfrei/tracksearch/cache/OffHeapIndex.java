@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hash table outside the Java heap mapping the 64-bit hash of a key to the location of its record, packed as segment
+ * and offset. Slots of 16 bytes are probed linearly, removed slots keep their hash to not break the probe sequence.
+ * Two keys with the same hash share a slot, the record holds the key to detect it.
+ */
+final class OffHeapIndex {
+
+    static final long ABSENT = -1;
+
+    private static final int SLOT_BYTES = 16;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    private static final double MAX_LOAD = 0.7;
+
+    private ByteBuffer table;
+    private int capacity;
+    private int size;
+    private int used; // Slots holding a hash, including removed ones
+
+    OffHeapIndex(final int expectedEntries) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, (int) (expectedEntries / MAX_LOAD))) << 1));
+    }
+
+    private void allocate(final int slots) {
+        capacity = slots;
+        table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+        size = 0;
+        used = 0;
+    }
+
+    static long location(final int segment, final int offset) {
+        return (long) segment << 32 | offset & 0xFFFFFFFFL;
+    }
+
+    static int segment(final long location) {
+        return (int) (location >>> 32);
+    }
+
+    static int offset(final long location) {
+        return (int) location;
+    }
+
+    /**
+     * Hash a key, never 0 which marks empty slots.
+     */
+    static long hash(final byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : key) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    long get(final long hash) {
+        final int slot = find(hash);
+        return slot < 0 ? ABSENT : location(slot);
+    }
+
+    /**
+     * Set the location of a hash.
+     *
+     * @return the previous location or {@link #ABSENT}.
+     */
+    long put(final long hash, final long location) {
+        int slot = find(hash);
+        if (slot >= 0) {
+            final long previous = location(slot);
+            table.putLong(slot * SLOT_BYTES + 8, location);
+            return previous;
+        }
+
+        if (used + 1 > capacity * MAX_LOAD)
+            rehash(size + 1 > capacity * MAX_LOAD / 2 ? capacity << 1 : capacity);
+
+        slot = probeStart(hash);
+        while (true) {
+            final long current = table.getLong(slot * SLOT_BYTES);
+            if (current == EMPTY) {
+                used++;
+                break;
+            }
+            if (current == hash && location(slot) == REMOVED)
+                break;
+            slot = slot + 1 & capacity - 1;
+        }
+
+        table.putLong(slot * SLOT_BYTES, hash);
+        table.putLong(slot * SLOT_BYTES + 8, location);
+        size++;
+        return ABSENT;
+    }
+
+    /**
+     * Remove a hash.
+     *
+     * @return the removed location or {@link #ABSENT}.
+     */
+    long remove(final long hash) {
+        final int slot = find(hash);
+        if (slot < 0)
+            return ABSENT;
+
+        final long previous = location(slot);
+        table.putLong(slot * SLOT_BYTES + 8, REMOVED);
+        size--;
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the amount of bytes allocated outside the heap.
+     */
+    long bytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    private long location(final int slot) {
+        return table.getLong(slot * SLOT_BYTES + 8);
+    }
+
+    private int probeStart(final long hash) {
+        return (int) (hash ^ hash >>> 32) & capacity - 1;
+    }
+
+    // Slot holding the hash with a location, or -1
+    private int find(final long hash) {
+        int slot = probeStart(hash);
+        while (true) {
+            final long current = table.getLong(slot * SLOT_BYTES);
+            if (current == EMPTY)
+                return -1;
+            if (current == hash && location(slot) != REMOVED)
+                return slot;
+            slot = slot + 1 & capacity - 1;
+        }
+    }
+
+    private void rehash(final int slots) {
+        final ByteBuffer previous = table;
+        final int previousCapacity = capacity;
+        allocate(slots);
+        for (int slot = 0; slot < previousCapacity; slot++) {
+            final long hash = previous.getLong(slot * SLOT_BYTES);
+            final long location = previous.getLong(slot * SLOT_BYTES + 8);
+            if (hash != EMPTY && location != REMOVED)
+                put(hash, location);
+        }
+    }
+
+}
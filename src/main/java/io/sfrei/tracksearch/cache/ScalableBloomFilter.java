@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of 64-bit hashes growing in stages, each with twice the capacity and half the false positive rate of
+ * the previous one, so the overall rate stays below the configured one however many hashes are added.
+ * The bit positions are derived from the two halves of the hash by double hashing. Lookups do not lock.
+ */
+final class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+    private static final int MAX_WORDS = 1 << 26; // 2^32 bits, the range of a hash half
+
+    private final double falsePositiveRate;
+
+    private volatile Stage[] stages;
+
+    ScalableBloomFilter(final int initialCapacity, final double falsePositiveRate) {
+        if (initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("Capacity has to be positive and the false positive rate within (0, 1)");
+
+        this.falsePositiveRate = falsePositiveRate;
+        // The rates of the stages sum up to the configured rate at most
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING))};
+    }
+
+    boolean mightContain(final long hash) {
+        for (final Stage stage : stages) {
+            if (stage.mightContain(hash))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add a hash, a new stage is started when the current one is full.
+     */
+    void put(final long hash) {
+        if (mightContain(hash))
+            return;
+
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.count.get() >= last.capacity) {
+            synchronized (this) {
+                current = stages;
+                last = current[current.length - 1];
+                if (last.count.get() >= last.capacity) {
+                    final int capacity = (int) Math.min((long) last.capacity * GROWTH, Integer.MAX_VALUE);
+                    final Stage next = new Stage(capacity, last.falsePositiveRate * TIGHTENING);
+                    current = Arrays.copyOf(current, current.length + 1);
+                    current[current.length - 1] = next;
+                    stages = current;
+                    last = next;
+                }
+            }
+        }
+        last.put(hash);
+    }
+
+    double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    int stageCount() {
+        return stages.length;
+    }
+
+    long count() {
+        long count = 0;
+        for (final Stage stage : stages)
+            count += stage.count.get();
+        return count;
+    }
+
+    long bytes() {
+        long bytes = 0;
+        for (final Stage stage : stages)
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        return bytes;
+    }
+
+    private static final class Stage {
+
+        private final int capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashes;
+        private final AtomicLongArray bits;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Stage(final int capacity, final double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            final double ln2 = Math.log(2);
+            final long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            final int words = (int) Math.min(MAX_WORDS, Math.max(1, (optimalBits + 63) >>> 6));
+            this.bitCount = (long) words << 6;
+            this.hashes = Math.max(1, (int) Math.round(-Math.log(falsePositiveRate) / ln2));
+            this.bits = new AtomicLongArray(words);
+        }
+
+        private boolean mightContain(final long hash) {
+            final int h1 = (int) hash;
+            final int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                final long bit = index(h1 + i * h2);
+                if ((bits.get((int) (bit >>> 6)) & 1L << bit) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        private void put(final long hash) {
+            final int h1 = (int) hash;
+            final int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                final long bit = index(h1 + i * h2);
+                final long mask = 1L << bit;
+                bits.getAndAccumulate((int) (bit >>> 6), mask, (word, set) -> word | set);
+            }
+            count.incrementAndGet();
+        }
+
+        private long index(final int combined) {
+            // Maps the 32-bit value onto the bits without a modulo
+            return ((combined & 0xFFFFFFFFL) * bitCount) >>> 32;
+        }
+
+    }
+
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Stores values in memory mapped segment files of a fixed size, records are only appended. A record is
+ * <pre>
+ * int(length) int(crc32c of the rest) long(expires at epoch millis, 0 for a removal) int(key length) key value
+ * </pre>
+ * and a length of 0 ends a segment. The locations of the latest records are kept by an {@link OffHeapIndex},
+ * which is rebuilt from the segments on opening. Records failing the checksum, e.g. torn by a crash, end the segment
+ * and are cleared, so writing resumes behind the last intact record.
+ * <p>
+ * Overwritten, removed and expired records are garbage. Whenever a segment is filled up, the segments with less live
+ * bytes than half a segment are compacted in the background: their live records are copied in order into a new file,
+ * which replaces the newest of them, and the others are dropped. Only the latest records of keys are live, so moving
+ * them behind the segments in between keeps the order of the records of each key. When there are more than the
+ * maximum segments the oldest one is dropped with its records.
+ */
+@Slf4j
+final class SegmentStore implements Closeable {
+
+    static final String SEGMENT_SUFFIX = ".segment";
+
+    static final String COMPACTION_SUFFIX = ".compaction";
+
+    static final Executor COMPACTOR = Executors.newSingleThreadExecutor(SharedExecutor.daemonThreadFactory("tracksearch-compactor"));
+
+    static final int HEADER_BYTES = 20;
+
+    private static final long REMOVAL = 0;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final OffHeapIndex index = new OffHeapIndex(1024);
+    private final Executor compactor;
+    private Segment active;
+    private boolean compactionScheduled;
+    private boolean closed;
+
+    private SegmentStore(final Path directory, final int segmentBytes, final int maxSegments, final Executor compactor) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.compactor = compactor;
+    }
+
+    /**
+     * Open the segments in a directory, creating it when missing, compactions run on the provided executor.
+     */
+    static SegmentStore open(final Path directory, final int segmentBytes, final int maxSegments, final long now,
+                             final Executor compactor) throws IOException {
+
+        Files.createDirectories(directory);
+        final SegmentStore store = new SegmentStore(directory, segmentBytes, maxSegments, compactor);
+
+        final List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPACTION_SUFFIX))
+                    .forEach(name -> {
+                        if (name.endsWith(COMPACTION_SUFFIX)) {
+                            // Interrupted before replacing its segment, which is still intact
+                            deleteQuietly(directory.resolve(name));
+                            return;
+                        }
+                        try {
+                            ids.add(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            log.warn("Ignoring unknown file in cache directory: {}", name);
+                        }
+                    });
+        }
+        ids.sort(null);
+
+        for (final int id : ids) {
+            final Segment segment = store.map(id);
+            store.segments.put(id, segment);
+            store.load(segment, now);
+        }
+
+        store.active = store.segments.isEmpty() ? store.roll() : store.segments.lastEntry().getValue();
+        log.debug("Opened {} cache segments with {} entries in {}", store.segments.size(), store.index.size(), directory);
+        return store;
+    }
+
+    /**
+     * Read the value of a key while holding the store, the buffer is only valid during the call.
+     *
+     * @return the result of the reader or null when the key is missing or expired.
+     */
+    synchronized <R> R get(final String key, final long now, final RecordReader<R> reader) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final long hash = OffHeapIndex.hash(keyBytes);
+        final long location = index.get(hash);
+        if (location == OffHeapIndex.ABSENT)
+            return null;
+
+        final Segment segment = segments.get(OffHeapIndex.segment(location));
+        final int offset = OffHeapIndex.offset(location);
+        final ByteBuffer buffer = segment.buffer;
+        if (!keyEquals(buffer, offset, keyBytes))
+            return null;
+
+        if (buffer.getLong(offset + 8) <= now) {
+            index.remove(hash);
+            segment.liveBytes -= buffer.getInt(offset);
+            return null;
+        }
+
+        final int length = buffer.getInt(offset);
+        return reader.read(buffer.slice(offset + HEADER_BYTES + keyBytes.length, length - HEADER_BYTES - keyBytes.length),
+                buffer.getLong(offset + 8));
+    }
+
+    /**
+     * Append the value of a key, values not fitting into a segment are not stored.
+     */
+    synchronized void put(final String key, final byte[] value, final long expiresAt, final long now) throws IOException {
+        append(key.getBytes(StandardCharsets.UTF_8), ByteBuffer.wrap(value), expiresAt, now);
+    }
+
+    /**
+     * Append the removal of a key, so it is not restored on opening.
+     */
+    synchronized void remove(final String key, final long now) throws IOException {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (index.get(OffHeapIndex.hash(keyBytes)) != OffHeapIndex.ABSENT)
+            append(keyBytes, ByteBuffer.allocate(0), REMOVAL, now);
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Get the amount of bytes of the segment files.
+     */
+    synchronized long diskBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    /**
+     * Get the amount of bytes allocated outside the heap by the index.
+     */
+    synchronized long indexBytes() {
+        return index.bytes();
+    }
+
+    /**
+     * Compact the segments but the active one with less live bytes than half a segment, dropping expired records. The
+     * segments are merged in order as long as their records fit into one segment. The records are copied without
+     * holding the store, which is only held to plan the compactions and to swap the segments.
+     */
+    void compact(final long now) throws IOException {
+        try {
+            for (final Compaction compaction : planCompactions(now))
+                compact(compaction);
+        } finally {
+            synchronized (this) {
+                compactionScheduled = false;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        for (final Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+
+    private void append(final byte[] key, final ByteBuffer value, final long expiresAt, final long now) throws IOException {
+        final int length = HEADER_BYTES + key.length + value.remaining();
+        if (length > segmentBytes) {
+            log.debug("Not caching {} bytes exceeding the segment size", length);
+            return;
+        }
+
+        if (active.position + length > segmentBytes) {
+            active = roll();
+            scheduleCompaction(now);
+        }
+
+        final int offset = active.position;
+        final ByteBuffer buffer = active.buffer;
+        buffer.putLong(offset + 8, expiresAt);
+        buffer.putInt(offset + 16, key.length);
+        buffer.put(offset + HEADER_BYTES, key);
+        buffer.put(offset + HEADER_BYTES + key.length, value, value.position(), value.remaining());
+        buffer.putInt(offset + 4, checksum(buffer, offset, length));
+        buffer.putInt(offset, length); // Written last, a record is complete once it has a length
+        active.position += length;
+
+        apply(active, offset, length, OffHeapIndex.hash(key), expiresAt);
+    }
+
+    // Point the index to a record read or written, accounting the live bytes of the segments
+    private void apply(final Segment segment, final int offset, final int length, final long hash, final long expiresAt) {
+        final long previous = expiresAt == REMOVAL ?
+                index.remove(hash) : index.put(hash, OffHeapIndex.location(segment.id, offset));
+
+        if (previous != OffHeapIndex.ABSENT) {
+            final Segment previousSegment = segments.get(OffHeapIndex.segment(previous));
+            if (previousSegment != null)
+                previousSegment.liveBytes -= previousSegment.buffer.getInt(OffHeapIndex.offset(previous));
+        }
+        if (expiresAt != REMOVAL)
+            segment.liveBytes += length;
+    }
+
+    private void load(final Segment segment, final long now) {
+        final ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentBytes) {
+            final int length = buffer.getInt(offset);
+            if (length == 0)
+                break;
+
+            if (length < HEADER_BYTES || offset + length > segmentBytes
+                    || buffer.getInt(offset + 4) != checksum(buffer, offset, length)
+                    || buffer.getInt(offset + 16) < 0 || buffer.getInt(offset + 16) > length - HEADER_BYTES) {
+                log.warn("Clearing torn cache record at {} of segment {}", offset, segment.id);
+                clear(buffer, offset);
+                break;
+            }
+
+            final byte[] key = new byte[buffer.getInt(offset + 16)];
+            buffer.get(offset + HEADER_BYTES, key);
+            final long expiresAt = buffer.getLong(offset + 8);
+            // Expired records still replace older ones
+            apply(segment, offset, length, OffHeapIndex.hash(key), expiresAt > now ? expiresAt : REMOVAL);
+
+            offset += length;
+        }
+        segment.position = offset;
+    }
+
+    private void scheduleCompaction(final long now) {
+        if (compactionScheduled)
+            return;
+
+        compactionScheduled = true;
+        compactor.execute(() -> {
+            try {
+                compact(now);
+            } catch (IOException e) {
+                log.warn("Failed compacting cache segments in {}", directory, e);
+            }
+        });
+    }
+
+    private synchronized List<Compaction> planCompactions(final long now) {
+        final List<Compaction> compactions = new ArrayList<>();
+        if (closed)
+            return compactions;
+
+        List<Segment> batch = new ArrayList<>();
+        List<KeptRecord> records = new ArrayList<>();
+        int batchBytes = 0;
+        for (final Segment segment : segments.values()) {
+            if (segment == active || segment.liveBytes >= segmentBytes / 2)
+                continue;
+
+            final List<KeptRecord> kept = keptRecords(segment, now);
+            final int keptBytes = kept.stream().mapToInt(KeptRecord::length).sum();
+            if (!batch.isEmpty() && batchBytes + keptBytes > segmentBytes) {
+                addCompaction(compactions, batch, records);
+                batch = new ArrayList<>();
+                records = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(segment);
+            records.addAll(kept);
+            batchBytes += keptBytes;
+        }
+        addCompaction(compactions, batch, records);
+        return compactions;
+    }
+
+    private static void addCompaction(final List<Compaction> compactions, final List<Segment> batch, final List<KeptRecord> records) {
+        // Rewriting a single segment only pays off with enough garbage
+        if (batch.isEmpty() || batch.size() == 1 && batch.get(0).liveBytes >= batch.get(0).position / 2)
+            return;
+
+        compactions.add(new Compaction(batch, records));
+    }
+
+    // The live records of a segment and the removals to keep, expired records are removed from the index
+    private List<KeptRecord> keptRecords(final Segment segment, final long now) {
+        final List<KeptRecord> kept = new ArrayList<>();
+        final ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset < segment.position) {
+            final int length = buffer.getInt(offset);
+            final long hash = hash(buffer, offset);
+            final long expiresAt = buffer.getLong(offset + 8);
+
+            if (index.get(hash) == OffHeapIndex.location(segment.id, offset)) {
+                if (expiresAt > now)
+                    kept.add(new KeptRecord(segment, offset, length, hash, true));
+                else
+                    index.remove(hash);
+            } else if (expiresAt == REMOVAL && index.get(hash) == OffHeapIndex.ABSENT && segments.firstKey() < segment.id) {
+                // Keep removals while older segments may hold the removed record
+                kept.add(new KeptRecord(segment, offset, length, hash, false));
+            }
+            offset += length;
+        }
+        return kept;
+    }
+
+    // Copy the kept records of segments into a new file replacing the newest of them, the others are dropped
+    private void compact(final Compaction compaction) throws IOException {
+        final Segment newest = compaction.segments().get(compaction.segments().size() - 1);
+        final Path target = directory.resolve(String.format("%08d%s", newest.id, COMPACTION_SUFFIX));
+
+        // Segments but the active one are not written anymore, their mappings stay readable when dropped meanwhile
+        final Segment compacted = map(newest.id, target);
+        final int[] offsets = new int[compaction.records().size()];
+        try {
+            for (int i = 0; i < offsets.length; i++) {
+                final KeptRecord record = compaction.records().get(i);
+                offsets[i] = compacted.position;
+                copy(record.segment().buffer, record.offset(), record.length(), compacted);
+            }
+            compacted.buffer.force();
+        } catch (RuntimeException e) {
+            compacted.channel.close();
+            deleteQuietly(target);
+            throw e;
+        }
+
+        synchronized (this) {
+            if (closed || compaction.segments().stream().anyMatch(segment -> segments.get(segment.id) != segment)) {
+                log.debug("Discarding compaction of cache segment {} changed meanwhile", newest.id);
+                compacted.channel.close();
+                deleteQuietly(target);
+                return;
+            }
+            swap(compaction, newest, target, compacted, offsets);
+        }
+    }
+
+    private void swap(final Compaction compaction, final Segment newest, final Path target, final Segment compacted,
+                      final int[] offsets) throws IOException {
+
+        int moved = 0;
+        if (compacted.position == 0) {
+            compacted.channel.close();
+            deleteQuietly(target);
+        } else {
+            newest.channel.close();
+            Files.move(target, newest.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            final Segment replacement = new Segment(newest.id, newest.path, compacted.channel, compacted.buffer);
+            replacement.position = compacted.position;
+            // Records overwritten, removed or expired while copying stay garbage in the replacement
+            for (int i = 0; i < offsets.length; i++) {
+                final KeptRecord record = compaction.records().get(i);
+                if (record.live() && index.get(record.hash()) == OffHeapIndex.location(record.segment().id, record.offset())) {
+                    index.put(record.hash(), OffHeapIndex.location(newest.id, offsets[i]));
+                    replacement.liveBytes += record.length();
+                    moved++;
+                }
+            }
+            segments.put(newest.id, replacement);
+        }
+
+        for (final Segment segment : compaction.segments()) {
+            if (segment != newest || compacted.position == 0)
+                drop(segment);
+        }
+        log.debug("Compacted {} cache segments into segment {} moving {} records", compaction.segments().size(), newest.id, moved);
+    }
+
+    private static void copy(final ByteBuffer buffer, final int offset, final int length, final Segment target) {
+        target.buffer.put(target.position, buffer, offset, length);
+        target.position += length;
+    }
+
+    private Segment roll() throws IOException {
+        final int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        final Segment segment = map(id);
+        segments.put(id, segment);
+
+        if (active != null)
+            active.buffer.force();
+
+        while (segments.size() > maxSegments) {
+            final Segment oldest = segments.firstEntry().getValue();
+            evict(oldest);
+            drop(oldest);
+        }
+        return segment;
+    }
+
+    // Remove the records of a segment from the index
+    private void evict(final Segment segment) {
+        final ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset < segment.position) {
+            final int length = buffer.getInt(offset);
+            final byte[] key = new byte[buffer.getInt(offset + 16)];
+            buffer.get(offset + HEADER_BYTES, key);
+            final long hash = OffHeapIndex.hash(key);
+            if (index.get(hash) == OffHeapIndex.location(segment.id, offset))
+                index.remove(hash);
+            offset += length;
+        }
+    }
+
+    private void drop(final Segment segment) throws IOException {
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    private Segment map(final int id) throws IOException {
+        return map(id, directory.resolve(String.format("%08d%s", id, SEGMENT_SUFFIX)));
+    }
+
+    private Segment map(final int id, final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new Segment(id, path, channel, buffer);
+    }
+
+    private static void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed deleting cache file: {}", path, e);
+        }
+    }
+
+    private static int checksum(final ByteBuffer buffer, final int offset, final int length) {
+        final CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + 8, length - 8));
+        return (int) crc.getValue();
+    }
+
+    private static long hash(final ByteBuffer buffer, final int offset) {
+        final byte[] key = new byte[buffer.getInt(offset + 16)];
+        buffer.get(offset + HEADER_BYTES, key);
+        return OffHeapIndex.hash(key);
+    }
+
+    private static boolean keyEquals(final ByteBuffer buffer, final int offset, final byte[] key) {
+        if (buffer.getInt(offset + 16) != key.length)
+            return false;
+        return buffer.slice(offset + HEADER_BYTES, key.length).equals(ByteBuffer.wrap(key));
+    }
+
+    private static void clear(final ByteBuffer buffer, final int offset) {
+        final byte[] zeros = new byte[8192];
+        for (int position = offset; position < buffer.capacity(); position += zeros.length)
+            buffer.put(position, zeros, 0, Math.min(zeros.length, buffer.capacity() - position));
+    }
+
+    @FunctionalInterface
+    interface RecordReader<R> {
+        R read(ByteBuffer value, long expiresAt);
+    }
+
+    private record KeptRecord(Segment segment, int offset, int length, long hash, boolean live) {
+    }
+
+    private record Compaction(List<Segment> segments, List<KeptRecord> records) {
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long liveBytes;
+
+        Segment(final int id, final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+    }
+
+}
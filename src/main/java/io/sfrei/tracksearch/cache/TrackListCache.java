@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.config.CacheConfig;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.metrics.jfr.TrackSearchCallable;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.TrackListProvider;
+import io.sfrei.tracksearch.tracks.codec.TrackListCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches track lists in two tiers. The heap tier keeps the most recently used lists as objects, the optional disk
+ * tier keeps all lists encoded with {@link TrackListCodec} in memory mapped segment files indexed outside the heap,
+ * see {@link SegmentStore}. Lists are written to both tiers, a list found on disk only is promoted to the heap.
+ * Entries expire after the configured TTL in both tiers.
+ * <p>
+ * With a soft TTL configured, entries older than it are stale: {@link #get(String, TrackListProvider, TrackSearchCallable)}
+ * still returns them without waiting and refreshes them in the background, once per key at a time. Refreshes have
+ * their own bounded threads and queue, when both are full a refresh is skipped and the next stale hit tries again.
+ * <p>
+ * The returned lists are copies, so callers can change them.
+ */
+@Slf4j
+public class TrackListCache implements Closeable {
+
+    static final int MAX_REFRESHES = 4;
+
+    static final int MAX_QUEUED_REFRESHES = 64;
+
+    private static final Executor REFRESHER = refresher();
+
+    private final Clock clock;
+
+    private final long ttlMillis;
+
+    private final long staleAfterMillis;
+
+    private final Executor refreshExecutor;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, HeapEntry> heap;
+
+    private final SegmentStore disk;
+
+    private final LongAdder heapHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    TrackListCache(final CacheConfig config, final Clock clock) throws IOException {
+        this(config, clock, REFRESHER);
+    }
+
+    TrackListCache(final CacheConfig config, final Clock clock, final Executor refreshExecutor) throws IOException {
+        this(config, clock, refreshExecutor, SegmentStore.COMPACTOR);
+    }
+
+    TrackListCache(final CacheConfig config, final Clock clock, final Executor refreshExecutor, final Executor compactor)
+            throws IOException {
+
+        this.clock = clock;
+        this.ttlMillis = config.ttl().toMillis();
+        // Without soft TTL entries become stale when they expire, so they are never served stale
+        this.staleAfterMillis = config.staleAfter() == null ? ttlMillis : config.staleAfter().toMillis();
+        this.refreshExecutor = refreshExecutor;
+
+        final int heapEntries = config.heapEntries();
+        this.heap = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HeapEntry> eldest) {
+                return size() > heapEntries;
+            }
+        };
+
+        this.disk = config.directory() == null ? null :
+                SegmentStore.open(config.directory(), config.segmentBytes(), config.maxSegments(), clock.millis(), compactor);
+    }
+
+    /**
+     * Open a cache, restoring the entries of the disk tier when configured.
+     *
+     * @param config the cache config.
+     * @return the cache.
+     * @throws IOException when the segment files cannot be opened.
+     */
+    public static TrackListCache open(final CacheConfig config) throws IOException {
+        return new TrackListCache(config, Clock.systemUTC());
+    }
+
+    /**
+     * Get a cached track list.
+     *
+     * @param key                   the key.
+     * @param nextTrackListFunction the function the returned list gets its next tracks with.
+     * @param <T>                   the track type, the cached list has to be of.
+     * @return a copy of the cached list or null when missing or expired.
+     */
+    public <T extends Track> GenericTrackList<T> get(final String key, final TrackListProvider<T> nextTrackListFunction) {
+        final HeapEntry entry = lookup(key, clock.millis());
+        return entry == null ? null : copy(entry.trackList(), nextTrackListFunction);
+    }
+
+    /**
+     * Get a cached track list or load and cache it when missing or expired. A stale list is returned as well, while
+     * the loader refreshes it in the background unless a refresh for the key is running already.
+     *
+     * @param key                   the key.
+     * @param nextTrackListFunction the function the returned list gets its next tracks with.
+     * @param loader                the call loading the list.
+     * @param <T>                   the track type, the cached list has to be of.
+     * @return a copy of the cached list or the loaded list.
+     * @throws TrackSearchException when the list is not cached and loading fails.
+     */
+    public <T extends Track> GenericTrackList<T> get(final String key, final TrackListProvider<T> nextTrackListFunction,
+                                                     final TrackSearchCallable<GenericTrackList<T>> loader)
+            throws TrackSearchException {
+
+        final long now = clock.millis();
+        final HeapEntry entry = lookup(key, now);
+        if (entry == null) {
+            final GenericTrackList<T> trackList = loader.call();
+            put(key, trackList);
+            return trackList;
+        }
+
+        if (now >= entry.expiresAt() - ttlMillis + staleAfterMillis) {
+            staleHits.increment();
+            refresh(key, loader);
+        }
+        return copy(entry.trackList(), nextTrackListFunction);
+    }
+
+    private HeapEntry lookup(final String key, final long now) {
+        synchronized (heap) {
+            final HeapEntry entry = heap.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                heapHits.increment();
+                return entry;
+            }
+            if (entry != null)
+                heap.remove(key);
+        }
+
+        final HeapEntry promoted = disk == null ? null : readDisk(key, now);
+        if (promoted == null) {
+            misses.increment();
+            return null;
+        }
+
+        synchronized (heap) {
+            heap.put(key, promoted);
+        }
+        diskHits.increment();
+        return promoted;
+    }
+
+    private void refresh(final String key, final TrackSearchCallable<? extends TrackList<? extends Track>> loader) {
+        if (!refreshing.add(key))
+            return;
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, loader.call());
+                    refreshes.increment();
+                } catch (Exception e) {
+                    // Keep serving the stale list until it expires, the next stale hit tries again
+                    refreshFailures.increment();
+                    log.warn("Failed refreshing cached track list for: {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug("Skipped refreshing cached track list, too many refreshes pending: {}", key);
+        }
+    }
+
+    private static Executor refresher() {
+        final ThreadPoolExecutor refresher = new ThreadPoolExecutor(MAX_REFRESHES, MAX_REFRESHES, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_REFRESHES), SharedExecutor.daemonThreadFactory("tracksearch-refresh"),
+                new ThreadPoolExecutor.AbortPolicy());
+        refresher.allowCoreThreadTimeOut(true);
+        return refresher;
+    }
+
+    private HeapEntry readDisk(final String key, final long now) {
+        try {
+            return disk.get(key, now, (value, expiresAt) -> new HeapEntry(TrackListCodec.decodeTrackList(value), expiresAt));
+        } catch (IllegalArgumentException e) {
+            log.warn("Dropping cached track list not readable for: {}", key, e);
+            remove(key, now);
+            return null;
+        }
+    }
+
+    /**
+     * Cache a track list, replacing the list cached for the key.
+     *
+     * @param key       the key.
+     * @param trackList the track list.
+     */
+    public void put(final String key, final TrackList<? extends Track> trackList) {
+        final long now = clock.millis();
+        final long expiresAt = now + ttlMillis;
+        synchronized (heap) {
+            heap.put(key, new HeapEntry(copy(trackList, null), expiresAt));
+        }
+
+        if (disk != null) {
+            try {
+                disk.put(key, TrackListCodec.encode(trackList), expiresAt, now);
+            } catch (IOException e) {
+                log.warn("Failed writing track list to the disk cache for: {}", key, e);
+            }
+        }
+    }
+
+    /**
+     * Remove the track list cached for a key from both tiers.
+     *
+     * @param key the key.
+     */
+    public void invalidate(final String key) {
+        synchronized (heap) {
+            heap.remove(key);
+        }
+        remove(key, clock.millis());
+    }
+
+    private void remove(final String key, final long now) {
+        if (disk == null)
+            return;
+
+        try {
+            disk.remove(key, now);
+        } catch (IOException e) {
+            log.warn("Failed removing track list from the disk cache for: {}", key, e);
+        }
+    }
+
+    /**
+     * Get the hit counts and sizes.
+     *
+     * @return the cache snapshot.
+     */
+    public Snapshot getSnapshot() {
+        final int heapEntries;
+        synchronized (heap) {
+            heapEntries = heap.size();
+        }
+        return new Snapshot(heapHits.sum(), diskHits.sum(), misses.sum(), staleHits.sum(), refreshes.sum(),
+                refreshFailures.sum(), heapEntries, disk == null ? 0 : disk.size(), disk == null ? 0 : disk.diskBytes(), disk == null ? 0 : disk.indexBytes());
+    }
+
+    /**
+     * Flush and close the segment files of the disk tier.
+     *
+     * @throws IOException when the segment files cannot be flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (disk != null)
+            disk.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Track> GenericTrackList<T> copy(final TrackList<? extends Track> trackList,
+                                                             final TrackListProvider<T> nextTrackListFunction) {
+
+        return GenericTrackList.<T>using(trackList.getQueryType(), new HashMap<>(trackList.getQueryInformation()), nextTrackListFunction)
+                .withTracks((TrackList<T>) trackList)
+                .withCursor(trackList.getCursor());
+    }
+
+    private record HeapEntry(GenericTrackList<Track> trackList, long expiresAt) {
+    }
+
+    /**
+     * Snapshot of the cache.
+     *
+     * @param heapHits        the amount of lists found on the heap.
+     * @param diskHits        the amount of lists found on disk and promoted to the heap.
+     * @param misses          the amount of lists not found.
+     * @param staleHits       the amount of stale lists returned while refreshing them.
+     * @param refreshes       the amount of stale lists refreshed.
+     * @param refreshFailures the amount of failed refreshes.
+     * @param heapEntries     the amount of lists on the heap.
+     * @param diskEntries     the amount of lists on disk.
+     * @param diskBytes       the size of the segment files.
+     * @param indexBytes      the size of the disk index outside the heap.
+     */
+    public record Snapshot(long heapHits, long diskHits, long misses, long staleHits, long refreshes,
+                           long refreshFailures, int heapEntries, int diskEntries, long diskBytes, long indexBytes) {
+    }
+
+}
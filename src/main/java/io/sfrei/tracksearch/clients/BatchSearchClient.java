@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients;
+
+import io.sfrei.tracksearch.clients.common.CallGroup;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Search many queries on multiple sources at once. Requests are scheduled with a cap of requests in flight
+ * over all sources and a cap of requests in flight per source, so no source gets overloaded while the
+ * network stays busy. Results are handed over as soon as they complete.
+ */
+@Slf4j
+public class BatchSearchClient {
+
+    private final Map<TrackSource, TrackSearchClient<Track>> clientsBySource;
+
+    private final int maxInFlight;
+    private final int maxInFlightPerSource;
+
+    /**
+     * Create a batch client using {@link TrackSearchConfig#batchMaxInFlight} and
+     * {@link TrackSearchConfig#batchMaxInFlightPerSource}.
+     */
+    public BatchSearchClient() {
+        this(TrackSearchConfig.batchMaxInFlight, TrackSearchConfig.batchMaxInFlightPerSource);
+    }
+
+    /**
+     * Create a batch client.
+     *
+     * @param maxInFlight          the maximum amount of requests in flight over all sources.
+     * @param maxInFlightPerSource the maximum amount of requests in flight per source.
+     */
+    public BatchSearchClient(final int maxInFlight, final int maxInFlightPerSource) {
+        this(Arrays.stream(TrackSource.values())
+                .collect(Collectors.toMap(source -> source, TrackSource::createClient, (a, b) -> a, () -> new EnumMap<>(TrackSource.class))),
+                maxInFlight, maxInFlightPerSource);
+    }
+
+    BatchSearchClient(final Map<TrackSource, TrackSearchClient<Track>> clientsBySource, final int maxInFlight,
+                      final int maxInFlightPerSource) {
+        if (maxInFlight < 1 || maxInFlightPerSource < 1)
+            throw new IllegalArgumentException("Requests in flight have to be at least 1");
+
+        this.clientsBySource = clientsBySource;
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerSource = maxInFlightPerSource;
+    }
+
+    /**
+     * Search all queries on all sources.
+     *
+     * @param queries        the keywords to search for.
+     * @param resultConsumer receives every result as soon as it completes, called concurrently.
+     * @return the statistics of the whole batch.
+     * @throws TrackSearchException when the batch got interrupted.
+     * @see #search(Collection, Set, Consumer)
+     */
+    public Statistics search(@NonNull final Collection<String> queries, @NonNull final Consumer<Result> resultConsumer)
+            throws TrackSearchException {
+        return search(queries, clientsBySource.keySet(), resultConsumer);
+    }
+
+    /**
+     * Search all queries on the given sources. Failing searches do not abort the batch,
+     * they are handed over as result containing the exception.
+     *
+     * @param queries        the keywords to search for.
+     * @param sources        to search on.
+     * @param resultConsumer receives every result as soon as it completes, called concurrently.
+     * @return the statistics of the whole batch.
+     * @throws TrackSearchException when the batch got interrupted.
+     */
+    public Statistics search(@NonNull final Collection<String> queries, @NonNull final Set<TrackSource> sources,
+                             @NonNull final Consumer<Result> resultConsumer) throws TrackSearchException {
+
+        if (sources.isEmpty())
+            throw new TrackSearchException("Provide at least one source");
+
+        final long start = System.nanoTime();
+        final Map<TrackSource, SourceCounter> counters = new EnumMap<>(TrackSource.class);
+        final List<SourceQueue> sourceQueues = new ArrayList<>();
+        for (final TrackSource source : sources) {
+            final SourceCounter counter = new SourceCounter();
+            counters.put(source, counter);
+            if (!queries.isEmpty())
+                sourceQueues.add(new SourceQueue(source, clientsBySource.get(source), queries.iterator(),
+                        new Semaphore(maxInFlightPerSource), counter));
+        }
+
+        // Tasks are handed to the workers one by one once permits are free, so a batch of any size keeps at most
+        // the allowed requests in flight and no tasks queued. Completions signal the producer to look for free permits.
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final Semaphore completions = new Semaphore(0);
+        final CallGroup calls = new CallGroup();
+        try {
+            int next = 0;
+            while (!sourceQueues.isEmpty()) {
+                inFlight.acquire();
+                completions.drainPermits();
+
+                SourceQueue sourceQueue = null;
+                for (int i = 0; i < sourceQueues.size() && sourceQueue == null; i++) {
+                    final SourceQueue candidate = sourceQueues.get((next + i) % sourceQueues.size());
+                    if (candidate.inFlight().tryAcquire())
+                        sourceQueue = candidate;
+                }
+
+                if (sourceQueue == null) {
+                    inFlight.release();
+                    completions.acquire();
+                    continue;
+                }
+
+                final String query = sourceQueue.queries().next();
+                if (!sourceQueue.queries().hasNext())
+                    sourceQueues.remove(sourceQueue);
+                next++;
+
+                final SourceQueue submitted = sourceQueue;
+                SharedExecutor.WORKER.execute(() -> {
+                    try {
+                        resultConsumer.accept(calls.run(() -> search(submitted, query)));
+                    } catch (Exception e) {
+                        log.error("Error occurred consuming result of {} for: {}", submitted.source(), query, e);
+                    } finally {
+                        submitted.inFlight().release();
+                        inFlight.release();
+                        completions.release();
+                    }
+                });
+            }
+
+            // All permits are back once the last searches completed
+            inFlight.acquire(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            calls.cancel();
+            throw new TrackSearchException(e);
+        }
+
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        final Map<TrackSource, SourceStatistics> sourceStatistics = new EnumMap<>(TrackSource.class);
+        counters.forEach((source, counter) -> sourceStatistics.put(source, counter.toStatistics()));
+
+        final Statistics statistics = new Statistics(queries.size(), elapsed, Collections.unmodifiableMap(sourceStatistics));
+        log.debug("Batch search finished: {}", statistics);
+        return statistics;
+    }
+
+    private Result search(final SourceQueue sourceQueue, final String query) {
+        final TrackSource source = sourceQueue.source();
+        final long start = System.nanoTime();
+        try {
+            final TrackList<Track> trackList = sourceQueue.client().getTracksForSearch(query);
+            final Duration latency = sourceQueue.counter().succeeded(start);
+            return new Result(query, source, trackList, null, latency);
+        } catch (TrackSearchException e) {
+            final Duration latency = sourceQueue.counter().failed(start);
+            log.debug("Batch search failed on {} for: {}", source, query, e);
+            return new Result(query, source, null, e, latency);
+        }
+    }
+
+    private record SourceQueue(TrackSource source, TrackSearchClient<Track> client, Iterator<String> queries,
+                               Semaphore inFlight, SourceCounter counter) {
+    }
+
+    private static final class SourceCounter {
+
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+
+        private Duration succeeded(final long start) {
+            succeeded.increment();
+            return took(start);
+        }
+
+        private Duration failed(final long start) {
+            failed.increment();
+            return took(start);
+        }
+
+        private Duration took(final long start) {
+            final long took = System.nanoTime() - start;
+            latencyNanos.add(took);
+            return Duration.ofNanos(took);
+        }
+
+        private SourceStatistics toStatistics() {
+            final long requests = succeeded.sum() + failed.sum();
+            final Duration averageLatency = requests == 0 ? Duration.ZERO : Duration.ofNanos(latencyNanos.sum() / requests);
+            return new SourceStatistics(succeeded.sum(), failed.sum(), averageLatency);
+        }
+
+    }
+
+    /**
+     * The result of a single search within a batch.
+     *
+     * @param query     the keywords searched for.
+     * @param source    the source searched on.
+     * @param trackList the found tracks, null when the search failed.
+     * @param exception the exception when the search failed, else null.
+     * @param latency   the time the search took.
+     */
+    public record Result(String query, TrackSource source, TrackList<Track> trackList,
+                         TrackSearchException exception, Duration latency) {
+
+        public boolean isSuccessful() {
+            return exception == null;
+        }
+
+    }
+
+    /**
+     * The statistics of a single source within a batch.
+     *
+     * @param succeeded      the amount of successful searches.
+     * @param failed         the amount of failed searches.
+     * @param averageLatency the average time a search took.
+     */
+    public record SourceStatistics(long succeeded, long failed, Duration averageLatency) {
+
+        public long requests() {
+            return succeeded + failed;
+        }
+
+    }
+
+    /**
+     * The statistics of a whole batch.
+     *
+     * @param queries  the amount of queries searched for.
+     * @param elapsed  the time the whole batch took.
+     * @param bySource the statistics per source.
+     */
+    public record Statistics(int queries, Duration elapsed, Map<TrackSource, SourceStatistics> bySource) {
+
+        public long requests() {
+            return bySource.values().stream().mapToLong(SourceStatistics::requests).sum();
+        }
+
+        public long failed() {
+            return bySource.values().stream().mapToLong(SourceStatistics::failed).sum();
+        }
+
+        /**
+         * Get the completed searches per second.
+         *
+         * @return the throughput of the batch.
+         */
+        public double throughput() {
+            final double seconds = elapsed.toNanos() / 1_000_000_000D;
+            return seconds == 0 ? 0 : requests() / seconds;
+        }
+
+    }
+
+}
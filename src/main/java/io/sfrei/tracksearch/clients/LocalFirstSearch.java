@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients;
+
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Result of {@link TrackSearchClient#searchLocalFirst(String)}.
+ *
+ * @param local  the tracks found in the local index, available right away.
+ * @param remote the result of the sources, completes exceptionally with the search failure.
+ * @param <T>    the track type.
+ */
+public record LocalFirstSearch<T extends Track>(TrackList<T> local, CompletableFuture<TrackList<T>> remote) {
+
+    /**
+     * Maximum amount of tracks of a local search.
+     */
+    public static final int LOCAL_LIMIT = 50;
+
+}
@@ -16,46 +16,100 @@
 
 package io.sfrei.tracksearch.clients;
 
+import io.sfrei.tracksearch.clients.common.CallGroup;
+import io.sfrei.tracksearch.clients.common.CircuitBreaker;
+import io.sfrei.tracksearch.clients.common.LatencyTracker;
 import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.clients.common.RetryBudget;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.config.HedgePolicy;
 import io.sfrei.tracksearch.config.TrackSearchConfig;
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.metrics.Metrics;
+import io.sfrei.tracksearch.metrics.jfr.JfrEvents;
 import io.sfrei.tracksearch.tracks.GenericTrackList;
 import io.sfrei.tracksearch.tracks.Track;
 import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.paging.MultiCursor;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
 @SuppressWarnings({"unchecked"})
 public class MultiSearchClient implements MultiTrackSearchClient, SearchClient<Track> {
 
-    public static final String POSITION_KEY = "multi" + TrackSearchConfig.POSITION_KEY_SUFFIX;
-    public static final String OFFSET_KEY = "multi" + TrackSearchConfig.OFFSET_KEY_SUFFIX;
+    private static final String MULTI_SOURCE = "Multi";
 
     private final Map<TrackSource, TrackSearchClient<Track>> clientsBySource;
+    private final Map<TrackSource, CircuitBreaker> circuitBreakers;
+    private final Map<TrackSource, LatencyTracker> latencyTrackers;
+    private final HedgePolicy hedgePolicy;
+    private final RetryBudget hedgeBudget; // Hedges are budgeted like retries
     private final Set<String> validURLPrefixes;
 
     public MultiSearchClient() {
         clientsBySource = Arrays.stream(TrackSource.values())
-                .collect(Collectors.toMap(source -> source, TrackSource::createClient));
+                .collect(Collectors.toMap(source -> source, TrackSource::createClient,
+                        (first, second) -> first, () -> new EnumMap<>(TrackSource.class)));
+
+        circuitBreakers = new EnumMap<>(TrackSource.class);
+        latencyTrackers = new EnumMap<>(TrackSource.class);
+        for (final TrackSource source : clientsBySource.keySet()) {
+            circuitBreakers.put(source, new CircuitBreaker(source.name(), TrackSearchConfig.circuitBreaker));
+            latencyTrackers.put(source, new LatencyTracker());
+        }
+
+        hedgePolicy = TrackSearchConfig.hedgePolicy;
+        // Without reserve, hedges never exceed the ratio of the calls made
+        hedgeBudget = hedgePolicy == null ? null : new RetryBudget(hedgePolicy.maxRatio(), 0);
 
         validURLPrefixes = clientsBySource.values()
                 .stream().map(TrackSearchClient::validURLPrefixes)
                 .flatMap(Set::stream)
                 .collect(Collectors.toSet());
 
-        log.info("TrackSearchClient created with {} clients", allClients().size());
+        log.info("TrackSearchClient created with {} clients", clientsBySource.size());
+    }
+
+    /**
+     * Get the circuit breaker guarding a source, e.g. to observe its state or register a listener.
+     *
+     * @param source the source.
+     * @return the circuit breaker of the source.
+     */
+    public CircuitBreaker getCircuitBreaker(@NonNull final TrackSource source) {
+        return circuitBreakers.get(source);
     }
 
-    private List<TrackSearchClient<? extends Track>> allClients() {
-        return new ArrayList<>(clientsBySource.values());
+    /**
+     * Get the snapshots of all circuit breakers.
+     *
+     * @return the circuit breaker snapshots by source.
+     */
+    public Map<TrackSource, CircuitBreaker.Snapshot> getCircuitBreakerSnapshots() {
+        final Map<TrackSource, CircuitBreaker.Snapshot> snapshots = new EnumMap<>(TrackSource.class);
+        circuitBreakers.forEach((source, circuitBreaker) -> snapshots.put(source, circuitBreaker.getSnapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Get the latency and error rate snapshots of all sources.
+     *
+     * @return the latency snapshots by source.
+     */
+    public Map<TrackSource, LatencyTracker.Snapshot> getLatencySnapshots() {
+        final Map<TrackSource, LatencyTracker.Snapshot> snapshots = new EnumMap<>(TrackSource.class);
+        latencyTrackers.forEach((source, latencyTracker) -> snapshots.put(source, latencyTracker.getSnapshot()));
+        return snapshots;
     }
 
     @Override
@@ -65,29 +119,40 @@ public class MultiSearchClient implements MultiTrackSearchClient, SearchClient<T
 
     @Override
     public Track getTrack(@NonNull String url) throws TrackSearchException {
-        final TrackSearchClient<Track> trackSearchClient = clientsBySource.values()
+        final Map.Entry<TrackSource, TrackSearchClient<Track>> sourceClient = clientsBySource.entrySet()
                 .stream()
-                .filter(client -> client.isApplicableForURL(url))
+                .filter(entry -> entry.getValue().isApplicableForURL(url))
                 .findFirst()
                 .orElseThrow(() -> new TrackSearchException(String.format("No client found to handle URL: %s", url)));
 
+        final TrackSearchClient<Track> trackSearchClient = sourceClient.getValue();
         log().debug("Using {} for URL: {}", trackSearchClient.getClass().getSimpleName(), url);
-        return trackSearchClient.getTrack(url);
+        return hedged(sourceClient.getKey(), () -> trackSearchClient.getTrack(url));
     }
 
     @Override
     public TrackList<Track> getTracksForSearch(@NonNull final String search) throws TrackSearchException {
-        return getTracksForSearch(search, allClients());
+        return getTracksForSearch(search, clientsBySource.keySet());
+    }
+
+    @Override
+    public TrackList<Track> getTracksForSearch(@NonNull final String search, final int pages) throws TrackSearchException {
+        log.debug("Performing search call for {} pages", pages);
+        return JfrEvents.search(MULTI_SOURCE, QueryType.SEARCH, search, pages, () -> getMergedTrackListFromCalls(clientsBySource.keySet(),
+                client -> () -> (GenericTrackList<Track>) client.getTracksForSearch(search, pages), QueryType.SEARCH, false));
     }
 
     @Override
     public TrackList<Track> getNext(@NonNull final TrackList<? extends Track> trackList) throws TrackSearchException {
 
-        final List<TrackSearchClient<? extends Track>> callClient = allClients().stream()
-                .filter(client -> client.hasPagingValues(trackList))
-                .collect(Collectors.toList());
+        final Set<TrackSource> callSources = clientsBySource.entrySet().stream()
+                .filter(entry -> entry.getValue().hasPagingValues(trackList))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
 
-        return getNext(trackList, callClient);
+        log.debug("Performing next call");
+        return JfrEvents.search(MULTI_SOURCE, QueryType.PAGING, trackList.getQueryValue(), 1, () -> getMergedTrackListFromCalls(callSources,
+                client -> () -> (GenericTrackList<Track>) client.getNext(trackList), trackList.getQueryType(), false));
     }
 
     @Override
@@ -97,66 +162,192 @@ public class MultiSearchClient implements MultiTrackSearchClient, SearchClient<T
         if (sources.isEmpty())
             throw new TrackSearchException("Provide at least one source");
 
-        final List<TrackSearchClient<? extends Track>> callClients = sources.stream()
-                .filter(clientsBySource::containsKey)
-                .map(clientsBySource::get)
-                .collect(Collectors.toList());
-
-        return getTracksForSearch(search, callClients);
+        log.debug("Performing search call");
+        return JfrEvents.search(MULTI_SOURCE, QueryType.SEARCH, search, 1, () -> getMergedTrackListFromCalls(sources,
+                client -> () -> (GenericTrackList<Track>) client.getTracksForSearch(search), QueryType.SEARCH, true));
     }
 
-    private GenericTrackList<Track> getTracksForSearch(final String search, final List<TrackSearchClient<? extends Track>> callClients)
+    /**
+     * Perform the calls for all sources permitted by their circuit breaker and merge the results.
+     * Sources which fail are left out of the result, an exception is thrown only when no source succeeded.
+     * The order of the merged tracks is decided by the configured merge strategy.
+     * When hedging is enabled, the calls are hedged if requested.
+     */
+    private GenericTrackList<Track> getMergedTrackListFromCalls(final Set<TrackSource> sources,
+                                                               final Function<TrackSearchClient<? extends Track>, Callable<GenericTrackList<Track>>> callProvider,
+                                                               final QueryType queryType,
+                                                               final boolean hedge)
             throws TrackSearchException {
-        final List<Callable<GenericTrackList<Track>>> searchCalls = new ArrayList<>();
 
-        for (final TrackSearchClient<? extends Track> client : callClients) {
-            searchCalls.add(() -> (GenericTrackList<Track>) client.getTracksForSearch(search));
-        }
-
-        log.debug("Performing search call for {} clients", callClients.size());
-        return getMergedTrackListFromCalls(searchCalls, QueryType.SEARCH);
-    }
+        final List<TrackSource> callSources = new ArrayList<>();
+        final List<Callable<GenericTrackList<Track>>> calls = new ArrayList<>();
 
-    private TrackList<Track> getNext(final TrackList<? extends Track> trackList, final List<TrackSearchClient<? extends Track>> callClients)
-            throws TrackSearchException {
+        for (final TrackSource source : sources) {
+            final TrackSearchClient<Track> client = clientsBySource.get(source);
+            if (client == null)
+                continue;
 
-        final List<Callable<GenericTrackList<Track>>> nextCalls = new ArrayList<>();
+            final CircuitBreaker circuitBreaker = circuitBreakers.get(source);
+            if (!circuitBreaker.tryAcquirePermission()) {
+                log.debug("Skipping {} - circuit breaker is {}", source, circuitBreaker.getState());
+                continue;
+            }
 
-        for (final TrackSearchClient<? extends Track> client : callClients) {
-            nextCalls.add(() -> (GenericTrackList<Track>) client.getNext(trackList));
+            callSources.add(source);
+            final Callable<GenericTrackList<Track>> call = callProvider.apply(client);
+            calls.add(guarded(circuitBreaker, hedge ? () -> hedged(source, call) : () -> tracked(source, call, null)));
         }
-        log.debug("Performing next call for {} clients", callClients.size());
-        return getMergedTrackListFromCalls(nextCalls, trackList.getQueryType());
-    }
 
-    private GenericTrackList<Track> getMergedTrackListFromCalls(final List<Callable<GenericTrackList<Track>>> calls, final QueryType queryType)
-            throws TrackSearchException {
+        if (calls.isEmpty())
+            throw new TrackSearchException("No source available - circuit breakers are open");
 
-        final ExecutorService executorService = Executors.newFixedThreadPool(calls.size());
+        log.debug("Performing calls for {}", callSources);
 
         final GenericTrackList<Track> list = GenericTrackList.builder()
                 .queryType(queryType)
                 .nextTrackListFunction(this::provideNext)
                 .build();
 
+        final List<Future<GenericTrackList<Track>>> results;
+        try {
+            results = SharedExecutor.WORKER.invokeAll(calls);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TrackSearchException(e);
+        }
+
+        final long mergeStart = System.nanoTime();
+        final List<GenericTrackList<Track>> succeeded = new ArrayList<>(results.size());
+        ExecutionException failure = null;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                succeeded.add(results.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TrackSearchException(e);
+            } catch (ExecutionException e) {
+                log.warn("Leaving out {} - an error occurred acquiring the track list", callSources.get(i), e.getCause());
+                failure = e;
+            }
+        }
+
+        if (succeeded.isEmpty())
+            throw new TrackSearchException("An error occurred acquiring a track list", failure);
+
+        list.mergeIn(succeeded, TrackSearchConfig.mergeStrategy);
+        list.withCursor(combinedCursor(list.getQueryValue(), succeeded));
+        Metrics.timeSince(Metrics.MERGE_TIME, null, mergeStart);
+
+        return list;
+    }
+
+    private static Callable<GenericTrackList<Track>> guarded(final CircuitBreaker circuitBreaker,
+                                                             final Callable<GenericTrackList<Track>> call) {
+        return () -> {
+            final long start = System.nanoTime();
+            try {
+                final GenericTrackList<Track> trackList = call.call();
+                circuitBreaker.onSuccess(Duration.ofNanos(System.nanoTime() - start));
+                return trackList;
+            } catch (Exception e) {
+                circuitBreaker.onFailure(Duration.ofNanos(System.nanoTime() - start));
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Perform a call hedged when enabled. If the call did not answer within the 95th percentile latency of the
+     * source and the hedge budget allows, a duplicate call is made. The first successful call wins, the HTTP
+     * calls of the other one are cancelled.
+     */
+    private <T> T hedged(final TrackSource source, final Callable<T> call) throws TrackSearchException {
+        final Duration p95 = hedgePolicy == null ? null : latencyTrackers.get(source).getPercentile(0.95);
+        if (p95 == null) {
+            try {
+                return tracked(source, call, null);
+            } catch (Exception e) {
+                throw trackSearchException(e);
+            }
+        }
+
+        hedgeBudget.onRequest();
+        final Duration hedgeDelay = p95.compareTo(hedgePolicy.minDelay()) < 0 ? hedgePolicy.minDelay() : p95;
+
+        final CompletionService<T> completionService = new ExecutorCompletionService<>(SharedExecutor.WORKER);
+        final CallGroup primaryGroup = new CallGroup();
+        final Future<T> primary = completionService.submit(() -> primaryGroup.run(() -> tracked(source, call, primaryGroup)));
+
+        CallGroup hedgeGroup = null;
+        Future<T> hedge = null;
         try {
-            for (final Future<GenericTrackList<Track>> trackList : executorService.invokeAll(calls)) {
-                list.mergeIn(trackList.get());
+            final Future<T> completed = completionService.poll(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+            if (completed != null || !hedgeBudget.tryRetry())
+                return unwrap(primary);
+
+            log.debug("Hedging call for {} after {}ms", source, hedgeDelay.toMillis());
+            final CallGroup group = new CallGroup();
+            hedgeGroup = group;
+            hedge = completionService.submit(() -> group.run(() -> tracked(source, call, group)));
+
+            try {
+                return unwrap(completionService.take());
+            } catch (TrackSearchException e) {
+                log.debug("First call for {} failed, waiting for the other one", source, e);
+                return unwrap(completionService.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TrackSearchException(e);
+        } finally {
+            primaryGroup.cancel();
+            primary.cancel(true);
+            if (hedge != null) {
+                hedgeGroup.cancel();
+                hedge.cancel(true);
             }
+        }
+    }
+
+    private <T> T tracked(final TrackSource source, final Callable<T> call, final CallGroup callGroup) throws Exception {
+        final LatencyTracker latencyTracker = latencyTrackers.get(source);
+        final long start = System.nanoTime();
+        try {
+            final T result = call.call();
+            latencyTracker.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            if (callGroup == null || !callGroup.isCancelled())
+                latencyTracker.onFailure();
+            throw e;
+        }
+    }
+
+    private static <T> T unwrap(final Future<T> future) throws TrackSearchException {
+        try {
+            return future.get();
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new TrackSearchException(e);
         } catch (ExecutionException e) {
-            throw new TrackSearchException("An error occurred acquiring a track list", e);
+            throw trackSearchException(e.getCause());
         }
+    }
 
-        mergePositionValues(list);
+    private static TrackSearchException trackSearchException(final Throwable cause) {
+        return cause instanceof TrackSearchException trackSearchException ? trackSearchException : new TrackSearchException(cause);
+    }
 
-        return list;
+    @Override
+    public CompletableFuture<Void> warmUp() {
+        return CompletableFuture.allOf(clientsBySource.values().stream()
+                .map(TrackSearchClient::warmUp)
+                .toArray(CompletableFuture[]::new));
     }
 
     @Override
     public boolean hasPagingValues(@NotNull final TrackList<? extends Track> trackList) {
-        return trackList.hasQueryInformation(POSITION_KEY, OFFSET_KEY);
+        return trackList.getCursor() instanceof MultiCursor;
     }
 
     @Override
@@ -164,18 +355,13 @@ public class MultiSearchClient implements MultiTrackSearchClient, SearchClient<T
         return log;
     }
 
-    private void mergePositionValues(final GenericTrackList<? extends Track> trackList) {
-        final AtomicInteger position = new AtomicInteger(0);
-        final AtomicInteger offset = new AtomicInteger(0);
-
-        for (final String key : trackList.getQueryInformation().keySet()) {
-            if (key.contains(TrackSearchConfig.POSITION_KEY_SUFFIX)) {
-                position.getAndUpdate(pos -> pos + trackList.queryInformationAsInt(key));
-            } else if (key.contains(TrackSearchConfig.OFFSET_KEY_SUFFIX)) {
-                offset.getAndUpdate(off -> off + trackList.queryInformationAsInt(key));
-            }
+    private static MultiCursor combinedCursor(final String query, final List<GenericTrackList<Track>> trackLists) {
+        final List<PagingCursor> cursors = new ArrayList<>(trackLists.size());
+        for (final GenericTrackList<Track> trackList : trackLists) {
+            if (trackList.getCursor() != null)
+                cursors.add(trackList.getCursor());
         }
-        trackList.setPagingValues(MultiSearchClient.POSITION_KEY, position.get(), MultiSearchClient.OFFSET_KEY, offset.get());
+        return MultiCursor.combining(query, cursors);
     }
 
 }
@@ -16,9 +16,13 @@
 
 package io.sfrei.tracksearch.clients;
 
+import io.sfrei.tracksearch.cache.TrackListCache;
 import io.sfrei.tracksearch.clients.common.ClientLogger;
 import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.metrics.jfr.TrackSearchCallable;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
 import io.sfrei.tracksearch.tracks.Track;
 import io.sfrei.tracksearch.tracks.TrackList;
 import org.jetbrains.annotations.Nullable;
@@ -39,6 +43,21 @@ public interface SearchClient<T extends Track> extends TrackSearchClient<T>, Cli
         return exceptionConstructor.apply(String.format("Query type %s not supported", queryType));
     }
 
+    /**
+     * Get a track list from {@link TrackSearchConfig#resultCache} or acquire and cache it, when the cache is enabled.
+     *
+     * @param key  the cache key, unique for the source and request.
+     * @param call acquiring the track list on a miss, or refreshing a stale one in the background.
+     * @return the cached or acquired track list.
+     * @throws TrackSearchException when acquiring the track list failed.
+     */
+    default GenericTrackList<T> cached(String key, TrackSearchCallable<GenericTrackList<T>> call) throws TrackSearchException {
+        final TrackListCache cache = TrackSearchConfig.resultCache;
+        if (cache == null)
+            return call.call();
+
+        return cache.get(key, this::provideNext, call);
+    }
 
     @Nullable
     default TrackList<T> provideNext(final TrackList<T> trackList) {
@@ -16,12 +16,29 @@
 
 package io.sfrei.tracksearch.clients;
 
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
 import io.sfrei.tracksearch.tracks.Track;
 import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.TrackListIterator;
+import io.sfrei.tracksearch.tracks.TrackListPrefetcher;
+import io.sfrei.tracksearch.tracks.index.TrackIndex;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
 import lombok.NonNull;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 /**
  * Main interface containing all functionality a client offers to the user.
@@ -66,6 +83,134 @@ public interface TrackSearchClient<T extends Track> {
      */
     TrackList<T> getTracksForSearch(@NonNull String search) throws TrackSearchException;
 
+    /**
+     * Search for tracks and get the first pages of the result at once. By default the pages are requested one
+     * after another with {@link #getNext(TrackList)}. The built-in sources with offset based paging
+     * request all pages concurrently, token based sources request the next page while the current
+     * one is parsed. Tracks contained in more than one page are only kept once and the returned track
+     * list continues paging after the last fetched page.
+     *
+     * @param search keywords to search for.
+     * @param pages  the amount of pages to fetch.
+     * @return a track list containing all found tracks of the fetched pages.
+     * @throws TrackSearchException when the client encountered a problem on searching.
+     */
+    default TrackList<T> getTracksForSearch(@NonNull String search, int pages) throws TrackSearchException {
+        if (pages < 1)
+            throw new TrackSearchException("Provide at least one page");
+
+        TrackList<T> page = getTracksForSearch(search);
+        final List<T> tracks = new ArrayList<>(page);
+        for (int fetched = 1; fetched < pages && !page.isEmpty() && hasPagingValues(page); fetched++) {
+            page = getNext(page);
+            tracks.addAll(page);
+        }
+
+        return GenericTrackList.<T>using(QueryType.SEARCH, new HashMap<>(page.getQueryInformation()), this::nextOrNull)
+                .withDistinctTracks(tracks)
+                .withCursor(page.getCursor());
+    }
+
+    private TrackList<T> nextOrNull(final TrackList<T> trackList) {
+        try {
+            return getNext(trackList);
+        } catch (TrackSearchException e) {
+            LoggerFactory.getLogger(getClass()).error("Error occurred acquiring next track list", e);
+            return null;
+        }
+    }
+
+    /**
+     * Search for tracks in the local index of the tracks seen in previous search results, see
+     * {@link TrackSearchConfig#localIndex}. Only tracks this client is applicable for are returned,
+     * the track list has no next tracks.
+     *
+     * @param search keywords to search for.
+     * @return a track list containing the best matching tracks, empty when the local index is disabled.
+     */
+    @SuppressWarnings("unchecked")
+    default TrackList<T> searchLocal(@NonNull String search) {
+        final List<T> tracks = new ArrayList<>();
+        final TrackIndex index = TrackSearchConfig.localIndex;
+        if (index != null) {
+            for (final Track track : index.search(search, LocalFirstSearch.LOCAL_LIMIT)) {
+                if (isApplicableForURL(track.getUrl()))
+                    tracks.add((T) track);
+            }
+        }
+
+        return GenericTrackList.<T>using(QueryType.SEARCH, new HashMap<>(Map.of(TrackList.QUERY_KEY, search)), null)
+                .withTracks(tracks);
+    }
+
+    /**
+     * Search locally first and request the sources in the background, to show the local tracks right away
+     * and fill up with the remote ones once they arrive. The remote result is added to the local index.
+     *
+     * @param search keywords to search for.
+     * @return the local tracks and the future remote result.
+     */
+    default LocalFirstSearch<T> searchLocalFirst(@NonNull String search) {
+        final TrackList<T> local = searchLocal(search);
+        final CompletableFuture<TrackList<T>> remote = CompletableFuture.supplyAsync(() -> {
+            try {
+                return getTracksForSearch(search);
+            } catch (TrackSearchException e) {
+                throw new CompletionException(e);
+            }
+        }, SharedExecutor.WORKER);
+        return new LocalFirstSearch<>(local, remote);
+    }
+
+    /**
+     * Search for tracks and lazily walk through all pages of the result. The first page is requested
+     * immediately, every further page only when all tracks of the previous page were consumed.
+     * Walking stops when no further page is available or acquiring it failed.
+     *
+     * @param search keywords to search for.
+     * @return an ordered stream of all tracks for the search.
+     * @throws TrackSearchException when the client encountered a problem on searching the first page.
+     */
+    default Stream<T> streamTracksForSearch(@NonNull String search) throws TrackSearchException {
+        return TrackListIterator.stream(getTracksForSearch(search), this::hasPagingValues);
+    }
+
+    /**
+     * Like {@link #streamTracksForSearch(String)} but the next pages are fetched ahead in the background
+     * using the provided prefetcher, so consuming the stream does not wait for every page.
+     *
+     * @param search     keywords to search for.
+     * @param prefetcher to fetch next pages ahead.
+     * @return an ordered stream of all tracks for the search.
+     * @throws TrackSearchException when the client encountered a problem on searching the first page.
+     */
+    default Stream<T> streamTracksForSearch(@NonNull String search, @NonNull TrackListPrefetcher prefetcher)
+            throws TrackSearchException {
+        return TrackListIterator.stream(prefetcher.prefetch(getTracksForSearch(search)), this::hasPagingValues);
+    }
+
+    /**
+     * Search for tracks and lazily iterate through all pages of the result.
+     *
+     * @param search keywords to search for.
+     * @return an iterator over all tracks for the search.
+     * @throws TrackSearchException when the client encountered a problem on searching the first page.
+     * @see #streamTracksForSearch(String)
+     */
+    default Iterator<T> iterateTracksForSearch(@NonNull String search) throws TrackSearchException {
+        return new TrackListIterator<>(getTracksForSearch(search), this::hasPagingValues);
+    }
+
+    /**
+     * Initialize what is otherwise initialized by the first request, like the parsers or credentials of a source,
+     * to take it off the first search, e.g. in the init phase of a serverless function.
+     *
+     * @return future completing when the client is initialized, it never completes exceptionally.
+     */
+    default CompletableFuture<Void> warmUp() {
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Search for the next tracks for last result.
      *
@@ -75,6 +220,34 @@ public interface TrackSearchClient<T extends Track> {
      */
     TrackList<T> getNext(@NonNull TrackList<? extends Track> trackList) throws TrackSearchException;
 
+    /**
+     * Search for the next tracks using the paging token of a previous result, see {@link TrackList#getPagingToken()}.
+     * The previous track list does not need to be kept, e.g. a stateless web service can hand out the token.
+     * Next pages of the returned track list are not checked for duplicates of tracks before the token.
+     *
+     * @param pagingToken the paging token of a previous search result for that client.
+     * @return a track list containing the next tracks available.
+     * @throws TrackSearchException when the token is invalid or the client encounters a problem on getting the next tracks.
+     */
+    default TrackList<T> resume(@NonNull String pagingToken) throws TrackSearchException {
+        final PagingCursor cursor;
+        try {
+            cursor = PagingCursor.fromToken(pagingToken);
+        } catch (IllegalArgumentException e) {
+            throw new TrackSearchException("Invalid paging token", e);
+        }
+
+        final Map<String, String> queryInformation = new HashMap<>();
+        if (cursor.query() != null)
+            queryInformation.put(TrackList.QUERY_KEY, cursor.query());
+
+        final TrackList<T> trackList = GenericTrackList.<T>using(QueryType.PAGING, queryInformation, null).withCursor(cursor);
+        if (!hasPagingValues(trackList))
+            throw new TrackSearchException(String.format("Paging token not applicable for %s", getClass().getSimpleName()));
+
+        return getNext(trackList);
+    }
+
     /**
      * Check the track list for this client if the paging values to get next are present.
      *
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Group of HTTP calls made by a task, allowing to cancel the calls in flight from another thread.
+ * Calls made through {@link SharedClient} on a thread running a task with {@link #run(Callable)}
+ * are registered with the group.
+ */
+public final class CallGroup {
+
+    private static final ThreadLocal<CallGroup> CURRENT = new ThreadLocal<>();
+
+    private final List<Runnable> cancellations = new ArrayList<>();
+
+    private boolean cancelled;
+
+    /**
+     * Run a task with this group bound to the current thread.
+     *
+     * @param task the task making calls.
+     * @return the result of the task.
+     * @throws Exception when the task fails.
+     */
+    public <T> T run(Callable<T> task) throws Exception {
+        final CallGroup previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Cancel all calls in flight and calls registered afterwards.
+     */
+    public void cancel() {
+        final List<Runnable> toCancel;
+        synchronized (this) {
+            if (cancelled)
+                return;
+
+            cancelled = true;
+            toCancel = new ArrayList<>(cancellations);
+            cancellations.clear();
+        }
+        toCancel.forEach(Runnable::run);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Register a call with the group bound to the current thread, if any.
+     *
+     * @param cancellation cancelling the call.
+     * @return the registration to close when the call completed.
+     */
+    static Registration register(Runnable cancellation) {
+        final CallGroup group = CURRENT.get();
+        if (group == null)
+            return () -> {
+            };
+
+        synchronized (group) {
+            if (!group.cancelled) {
+                group.cancellations.add(cancellation);
+                return () -> {
+                    synchronized (group) {
+                        group.cancellations.remove(cancellation);
+                    }
+                };
+            }
+        }
+
+        cancellation.run();
+        return () -> {
+        };
+    }
+
+    interface Registration {
+
+        void close();
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.metrics.CallTiming;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Records the network phases of a call and passes the {@link CallTiming} to
+ * {@link TrackSearchConfig#callTimingListener} when the call ended.
+ * Events of a call are delivered sequentially, so no synchronization is needed.
+ */
+@Slf4j
+final class CallTimingEventListener extends EventListener {
+
+    static final EventListener.Factory FACTORY = call -> {
+        final Consumer<CallTiming> listener = TrackSearchConfig.callTimingListener;
+        return listener == null ? EventListener.NONE : new CallTimingEventListener(listener);
+    };
+
+    private final Consumer<CallTiming> listener;
+
+    private long callStart;
+    private long dnsStart;
+    private long dns;
+    private long connectStart;
+    private long connect;
+    private long tlsStart;
+    private long tls;
+    private long requestStart;
+    private long timeToFirstByte;
+    private long bodyStart;
+    private long bodyRead;
+
+    private boolean connecting;
+    private boolean connectionReused = true;
+
+    private CallTimingEventListener(Consumer<CallTiming> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void callStart(@NotNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NotNull Call call, @NotNull String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NotNull Call call, @NotNull String domainName, @NotNull List<InetAddress> inetAddressList) {
+        dns += System.nanoTime() - dnsStart;
+    }
+
+    @Override
+    public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+        connectStart = System.nanoTime();
+        connecting = true;
+    }
+
+    @Override
+    public void secureConnectStart(@NotNull Call call) {
+        tlsStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(@NotNull Call call, @Nullable Handshake handshake) {
+        tls += System.nanoTime() - tlsStart;
+    }
+
+    @Override
+    public void connectEnd(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy,
+                           @Nullable Protocol protocol) {
+        connect += System.nanoTime() - connectStart;
+    }
+
+    @Override
+    public void connectFailed(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy,
+                              @Nullable Protocol protocol, @NotNull IOException ioe) {
+        connect += System.nanoTime() - connectStart;
+    }
+
+    @Override
+    public void connectionAcquired(@NotNull Call call, @NotNull Connection connection) {
+        if (connecting)
+            connectionReused = false;
+        connecting = false;
+    }
+
+    @Override
+    public void requestHeadersStart(@NotNull Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(@NotNull Call call) {
+        timeToFirstByte += System.nanoTime() - requestStart;
+    }
+
+    @Override
+    public void responseBodyStart(@NotNull Call call) {
+        bodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(@NotNull Call call, long byteCount) {
+        bodyRead += System.nanoTime() - bodyStart;
+    }
+
+    @Override
+    public void callEnd(@NotNull Call call) {
+        deliver(call, false);
+    }
+
+    @Override
+    public void callFailed(@NotNull Call call, @NotNull IOException ioe) {
+        deliver(call, true);
+    }
+
+    private void deliver(final Call call, final boolean failed) {
+        final CallTiming callTiming = new CallTiming(call.request().url().toString(),
+                Duration.ofNanos(dns), Duration.ofNanos(connect), Duration.ofNanos(tls), Duration.ofNanos(timeToFirstByte),
+                Duration.ofNanos(bodyRead), Duration.ofNanos(System.nanoTime() - callStart), connectionReused, failed);
+        try {
+            listener.accept(callTiming);
+        } catch (RuntimeException e) {
+            log.warn("Call timing listener failed", e);
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.config.CircuitBreakerConfig;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker calculating failure and slow call rates over a window of the last calls.
+ * When a rate exceeds its threshold the circuit opens and calls are rejected until the open
+ * duration passed. Then a limited amount of probe calls is permitted (half open), closing the
+ * circuit when they succeed or opening it again when one fails.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final CircuitBreakerConfig config;
+
+    private final LongSupplier nanoClock;
+
+    private final List<Consumer<State>> listeners = new CopyOnWriteArrayList<>();
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+
+    private State state = State.CLOSED;
+    private int bufferedCalls;
+    private int nextIndex;
+    private int failures;
+    private int slow;
+
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this(name, config, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, CircuitBreakerConfig config, LongSupplier nanoClock) {
+        this.name = name;
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.failedCalls = new boolean[config.windowSize()];
+        this.slowCalls = new boolean[config.windowSize()];
+    }
+
+    /**
+     * Register a listener notified on every state transition.
+     *
+     * @param listener receiving the new state.
+     */
+    public void addListener(@NonNull Consumer<State> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Check if a call is permitted. Every permitted call has to be reported by
+     * {@link #onSuccess(Duration)} or {@link #onFailure(Duration)}.
+     *
+     * @return true when the call is permitted.
+     */
+    public boolean tryAcquirePermission() {
+        final State transitioned;
+        final boolean permitted;
+        synchronized (this) {
+            if (state == State.CLOSED)
+                return true;
+
+            if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos < config.openDuration().toNanos())
+                return false;
+
+            transitioned = transitionTo(State.HALF_OPEN);
+            permitted = probesInFlight + probesSucceeded < config.probeCalls();
+            if (permitted)
+                probesInFlight++;
+        }
+        notifyListeners(transitioned);
+        return permitted;
+    }
+
+    public void onSuccess(@NonNull Duration duration) {
+        onResult(false, duration);
+    }
+
+    public void onFailure(@NonNull Duration duration) {
+        onResult(true, duration);
+    }
+
+    private void onResult(final boolean failed, final Duration duration) {
+        final boolean isSlow = duration.compareTo(config.slowCallDuration()) >= 0;
+        final State transitioned;
+
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (failed || isSlow)
+                    transitioned = transitionTo(State.OPEN);
+                else if (++probesSucceeded >= config.probeCalls())
+                    transitioned = transitionTo(State.CLOSED);
+                else
+                    transitioned = null;
+            } else if (state == State.CLOSED) {
+                record(failed, isSlow);
+                transitioned = thresholdExceeded() ? transitionTo(State.OPEN) : null;
+            } else {
+                transitioned = null; // Late result of a call permitted before opening
+            }
+        }
+        notifyListeners(transitioned);
+    }
+
+    private void record(final boolean failed, final boolean isSlow) {
+        if (bufferedCalls == failedCalls.length) {
+            if (failedCalls[nextIndex]) failures--;
+            if (slowCalls[nextIndex]) slow--;
+        } else {
+            bufferedCalls++;
+        }
+
+        failedCalls[nextIndex] = failed;
+        slowCalls[nextIndex] = isSlow;
+        if (failed) failures++;
+        if (isSlow) slow++;
+        nextIndex = (nextIndex + 1) % failedCalls.length;
+    }
+
+    private boolean thresholdExceeded() {
+        if (bufferedCalls < config.minimumCalls())
+            return false;
+
+        return rate(failures) >= config.failureRateThreshold() || rate(slow) >= config.slowCallRateThreshold();
+    }
+
+    private double rate(final int calls) {
+        return bufferedCalls == 0 ? 0 : (double) calls / bufferedCalls;
+    }
+
+    private State transitionTo(final State newState) {
+        if (state == newState)
+            return null;
+
+        state = newState;
+        switch (newState) {
+            case OPEN -> openedAtNanos = nanoClock.getAsLong();
+            case HALF_OPEN -> {
+                probesInFlight = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                bufferedCalls = 0;
+                nextIndex = 0;
+                failures = 0;
+                slow = 0;
+            }
+        }
+        return newState;
+    }
+
+    private void notifyListeners(final State transitioned) {
+        if (transitioned == null)
+            return;
+
+        log.debug("Circuit breaker '{}' transitioned to {}", name, transitioned);
+        for (final Consumer<State> listener : listeners) {
+            try {
+                listener.accept(transitioned);
+            } catch (RuntimeException e) {
+                log.error("Circuit breaker listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Get the current state and rates.
+     *
+     * @return the snapshot of this circuit breaker.
+     */
+    public synchronized Snapshot getSnapshot() {
+        return new Snapshot(state, rate(failures), rate(slow), bufferedCalls);
+    }
+
+    /**
+     * Get the current state.
+     *
+     * @return the current state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Snapshot of a circuit breaker.
+     *
+     * @param state         the state.
+     * @param failureRate   the ratio of failed calls within the window.
+     * @param slowCallRate  the ratio of slow calls within the window.
+     * @param bufferedCalls the amount of calls within the window.
+     */
+    public record Snapshot(State state, double failureRate, double slowCallRate, int bufferedCalls) {
+    }
+
+}
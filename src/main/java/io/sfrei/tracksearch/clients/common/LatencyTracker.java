@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Tracks the latency and error rate of calls as exponentially weighted moving averages
+ * and keeps the latencies of the last successful calls to calculate percentiles.
+ */
+public class LatencyTracker {
+
+    private static final double ALPHA = 0.2;
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+
+    private final long[] latencies = new long[WINDOW_SIZE];
+
+    private int samples;
+    private int nextIndex;
+
+    private double ewmaLatencyNanos = Double.NaN;
+    private double ewmaErrorRate;
+
+    public synchronized void onSuccess(long latencyNanos) {
+        ewmaLatencyNanos = Double.isNaN(ewmaLatencyNanos) ? latencyNanos : ewma(ewmaLatencyNanos, latencyNanos);
+        ewmaErrorRate = ewma(ewmaErrorRate, 0);
+
+        latencies[nextIndex] = latencyNanos;
+        nextIndex = (nextIndex + 1) % WINDOW_SIZE;
+        samples = Math.min(samples + 1, WINDOW_SIZE);
+    }
+
+    public synchronized void onFailure() {
+        ewmaErrorRate = ewma(ewmaErrorRate, 1);
+    }
+
+    private static double ewma(double average, double value) {
+        return average + ALPHA * (value - average);
+    }
+
+    /**
+     * Get a percentile of the latencies of the last successful calls.
+     *
+     * @param percentile the percentile between 0 and 1.
+     * @return the latency or null when there are not enough samples yet.
+     */
+    public Duration getPercentile(double percentile) {
+        final long[] sorted;
+        synchronized (this) {
+            if (samples < MIN_SAMPLES)
+                return null;
+
+            sorted = Arrays.copyOf(latencies, samples);
+        }
+        Arrays.sort(sorted);
+        final int index = Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1);
+        return Duration.ofNanos(sorted[index]);
+    }
+
+    public Snapshot getSnapshot() {
+        final Duration p95 = getPercentile(0.95);
+        synchronized (this) {
+            final Duration ewmaLatency = Double.isNaN(ewmaLatencyNanos) ? null : Duration.ofNanos((long) ewmaLatencyNanos);
+            return new Snapshot(ewmaLatency, ewmaErrorRate, p95, samples);
+        }
+    }
+
+    /**
+     * Snapshot of a latency tracker.
+     *
+     * @param ewmaLatency   the moving average latency or null without successful calls.
+     * @param ewmaErrorRate the moving average error rate.
+     * @param p95           the 95th percentile latency or null when there are not enough samples.
+     * @param samples       the amount of latencies kept.
+     */
+    public record Snapshot(Duration ewmaLatency, double ewmaErrorRate, Duration p95, int samples) {
+    }
+
+}
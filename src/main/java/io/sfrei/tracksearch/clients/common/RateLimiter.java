@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.config.RateLimit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter. When adaptive the rate is halved whenever the source throttles
+ * and raised additively again while requests succeed (AIMD), so it settles at the highest
+ * rate the source tolerates.
+ */
+@Slf4j
+public class RateLimiter {
+
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FRACTION = 0.05;
+    private static final double MIN_RATE_FRACTION = 0.05;
+    private static final long ADJUSTMENT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Getter
+    private final RateLimit rateLimit;
+
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastAdjustmentNanos;
+
+    public RateLimiter(RateLimit rateLimit) {
+        this(rateLimit, System::nanoTime);
+    }
+
+    RateLimiter(RateLimit rateLimit, LongSupplier nanoClock) {
+        this.rateLimit = rateLimit;
+        this.nanoClock = nanoClock;
+        this.rate = rateLimit.permitsPerSecond();
+        this.tokens = rateLimit.burst();
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.lastAdjustmentNanos = lastRefillNanos;
+    }
+
+    /**
+     * Take a permit, waiting until one is available.
+     *
+     * @throws InterruptedException when interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        tryAcquire(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Take a permit when available within the timeout, waiting until then. No permit is taken and nothing is
+     * waited for when the permit would be available only after the timeout.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit    the unit of the timeout.
+     * @return true when a permit was taken.
+     * @throws InterruptedException when interrupted while waiting.
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        final long waitNanos = reserve(unit.toNanos(timeout));
+        if (waitNanos < 0)
+            return false;
+
+        if (waitNanos > 0) {
+            log.trace("Rate limited, waiting {}ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * Take a permit, returning the time to wait until it can be used.
+     *
+     * @return the nanoseconds to wait.
+     */
+    synchronized long reserve() {
+        return reserve(Long.MAX_VALUE);
+    }
+
+    /**
+     * Take a permit when it can be used within the maximum wait.
+     *
+     * @param maxWaitNanos the maximum nanoseconds to wait.
+     * @return the nanoseconds to wait, or -1 when no permit was taken.
+     */
+    synchronized long reserve(final long maxWaitNanos) {
+        refill();
+        final double remaining = tokens - 1;
+        final long waitNanos = remaining >= 0 ? 0 : (long) (-remaining / rate * TimeUnit.SECONDS.toNanos(1));
+        if (waitNanos > maxWaitNanos)
+            return -1;
+
+        tokens = remaining;
+        return waitNanos;
+    }
+
+    /**
+     * Report the source throttled a request, lowering the rate when adaptive.
+     */
+    public synchronized void onThrottled() {
+        if (!rateLimit.adaptive())
+            return;
+
+        final long now = nanoClock.getAsLong();
+        if (now - lastAdjustmentNanos < ADJUSTMENT_INTERVAL_NANOS && rate < rateLimit.permitsPerSecond())
+            return; // Requests in flight during the last decrease would decrease again
+
+        refill();
+        rate = Math.max(rate * DECREASE_FACTOR, rateLimit.permitsPerSecond() * MIN_RATE_FRACTION);
+        tokens = Math.min(tokens, 0);
+        lastAdjustmentNanos = now;
+        log.debug("Throttled, lowered rate to {}/s", rate);
+    }
+
+    /**
+     * Report a request succeeded, slowly raising the rate again when adaptive.
+     */
+    public synchronized void onSuccess() {
+        if (!rateLimit.adaptive() || rate >= rateLimit.permitsPerSecond())
+            return;
+
+        final long now = nanoClock.getAsLong();
+        if (now - lastAdjustmentNanos < ADJUSTMENT_INTERVAL_NANOS)
+            return;
+
+        refill();
+        rate = Math.min(rate + rateLimit.permitsPerSecond() * INCREASE_FRACTION, rateLimit.permitsPerSecond());
+        lastAdjustmentNanos = now;
+    }
+
+    /**
+     * Get the current rate, which is lower than the configured one after being throttled when adaptive.
+     *
+     * @return the current permits per second.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill() {
+        final long now = nanoClock.getAsLong();
+        tokens = Math.min(tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1), rateLimit.burst());
+        lastRefillNanos = now;
+    }
+
+}
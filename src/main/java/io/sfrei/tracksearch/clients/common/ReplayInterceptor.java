@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.sfrei.tracksearch.config.ReplayConfig;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records HTTP exchanges to files and replays them as configured in {@link TrackSearchConfig#replay}.
+ * <p>
+ * A recording is found by the key of the request: method, URL without query and the sorted, decoded query
+ * parameters. Parameters with values changing between sessions, like the SoundCloud client_id, are left out.
+ * The recordings are stored per host as {@code <directory>/<host>/<sha1 of key>.json}.
+ */
+@Slf4j
+final class ReplayInterceptor implements Interceptor {
+
+    private static final Set<String> IGNORED_PARAMETERS = Set.of("client_id");
+
+    private static final MediaType FALLBACK_MEDIA_TYPE = MediaType.get("text/plain; charset=utf-8");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Recorded HTTP exchange.
+     *
+     * @param key     the key the recording is found by.
+     * @param method  the request method.
+     * @param url     the requested URL.
+     * @param code    the HTTP code of the response.
+     * @param headers the response headers.
+     * @param body    the response body.
+     */
+    record Recording(String key, String method, String url, int code, Map<String, List<String>> headers, String body) {
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        final ReplayConfig config = TrackSearchConfig.replay;
+        if (config == null || config.mode() == ReplayConfig.Mode.OFF)
+            return chain.proceed(chain.request());
+
+        final Request request = chain.request();
+        final String key = key(request.method(), request.url());
+        final Path file = file(config.directory(), request.url(), key);
+
+        if (config.mode() == ReplayConfig.Mode.REPLAY)
+            return replay(config, request, key, file);
+
+        return record(chain, request, key, file);
+    }
+
+    private static Response replay(final ReplayConfig config, final Request request, final String key, final Path file)
+            throws IOException {
+
+        if (!Files.isRegularFile(file))
+            throw new IOException(String.format("No recording for '%s' at: %s", key, file));
+
+        final Recording recording = MAPPER.readValue(file.toFile(), Recording.class);
+
+        delay(config);
+        log.trace("Replaying '{}' from: {}", key, file);
+
+        final Headers.Builder headers = new Headers.Builder();
+        recording.headers().forEach((name, values) -> values.forEach(value -> headers.add(name, value)));
+        final String contentType = headers.get("Content-Type");
+        final MediaType mediaType = contentType == null ? FALLBACK_MEDIA_TYPE : MediaType.parse(contentType);
+
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(recording.code())
+                .message("Replayed")
+                .headers(headers.build())
+                .body(ResponseBody.create(recording.body(), mediaType))
+                .build();
+    }
+
+    private static Response record(final Chain chain, final Request request, final String key, final Path file)
+            throws IOException {
+
+        final Response response = chain.proceed(request);
+        final ResponseBody body = response.body();
+        final String content = body == null ? "" : body.string();
+
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers().toMultimap());
+        headers.remove("Set-Cookie");
+
+        final Recording recording = new Recording(key, request.method(), request.url().toString(), response.code(), headers, content);
+        Files.createDirectories(file.getParent());
+        final Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        MAPPER.writeValue(temporary.toFile(), recording);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.trace("Recorded '{}' to: {}", key, file);
+
+        final MediaType mediaType = body == null ? null : body.contentType();
+        return response.newBuilder()
+                .body(ResponseBody.create(content, mediaType == null ? FALLBACK_MEDIA_TYPE : mediaType))
+                .build();
+    }
+
+    private static void delay(final ReplayConfig config) throws InterruptedIOException {
+        long delayNanos = config.latency().toNanos();
+        if (!config.jitter().isZero())
+            delayNanos += ThreadLocalRandom.current().nextLong(config.jitter().toNanos() + 1);
+
+        if (delayNanos <= 0)
+            return;
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted delaying replay");
+        }
+    }
+
+    static String key(final String method, final HttpUrl url) {
+        final StringBuilder key = new StringBuilder(method)
+                .append(' ').append(url.scheme()).append("://").append(url.host()).append(url.encodedPath());
+
+        final List<String> names = new ArrayList<>(url.queryParameterNames());
+        names.removeAll(IGNORED_PARAMETERS);
+        Collections.sort(names);
+
+        char separator = '?';
+        for (final String name : names) {
+            for (final String value : url.queryParameterValues(name)) {
+                key.append(separator).append(name).append('=').append(value == null ? "" : value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    static Path file(final Path directory, final HttpUrl url, final String key) {
+        return directory.resolve(url.host()).resolve(sha1(key).substring(0, 16) + ".json");
+    }
+
+    private static String sha1(final String value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ package io.sfrei.tracksearch.clients.common;
 
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
 import okhttp3.ResponseBody;
 import org.jetbrains.annotations.NotNull;
 import retrofit2.Converter;
@@ -36,15 +37,19 @@ public class ResponseProviderFactory extends Converter.Factory {
     }
 
     public static ResponseWrapper wrapResponse(ResponseBody responseBody) {
+        return wrapResponse(SharedClient.OK, Headers.of(), responseBody);
+    }
+
+    public static ResponseWrapper wrapResponse(int code, Headers headers, ResponseBody responseBody) {
         if (responseBody != null) {
             try {
                 String body = new String(responseBody.string().getBytes(StandardCharsets.UTF_8));
-                return ResponseWrapper.content(SharedClient.OK, body);
+                return ResponseWrapper.content(code, headers, body);
             } catch (IOException e) {
-                return ResponseWrapper.empty(new TrackSearchException("Cannot process response", e));
+                return ResponseWrapper.empty(code, headers, new TrackSearchException("Cannot process response", e));
             }
         }
-        return ResponseWrapper.empty(new TrackSearchException("No response body"));
+        return ResponseWrapper.empty(code, headers, new TrackSearchException("No response body"));
     }
 
     @Override
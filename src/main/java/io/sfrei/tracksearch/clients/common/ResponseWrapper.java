@@ -21,23 +21,39 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
+import okhttp3.Headers;
 
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class ResponseWrapper {
 
+    /**
+     * The HTTP status code, null when no response was received.
+     */
+    @Getter
     private final Integer code;
 
+    @Getter
+    private final Headers headers;
+
     @Getter
     private final String content;
 
     private TrackSearchException exception;
 
     public static ResponseWrapper content(Integer code, @NonNull String content) {
-        return new ResponseWrapper(code, content, null);
+        return content(code, Headers.of(), content);
+    }
+
+    public static ResponseWrapper content(Integer code, @NonNull Headers headers, @NonNull String content) {
+        return new ResponseWrapper(code, headers, content, null);
     }
 
     public static ResponseWrapper empty(TrackSearchException exception) {
-        return new ResponseWrapper(null, null, exception);
+        return new ResponseWrapper(null, Headers.of(), null, exception);
+    }
+
+    public static ResponseWrapper empty(int code, @NonNull Headers headers, TrackSearchException exception) {
+        return new ResponseWrapper(code, headers, null, exception);
     }
 
     public boolean contentPresent() {
@@ -45,7 +61,7 @@ public class ResponseWrapper {
     }
 
     public boolean isHttpCode(int code) {
-        return this.code == code;
+        return this.code != null && this.code == code;
     }
 
     public String contentOrThrow() throws TrackSearchException {
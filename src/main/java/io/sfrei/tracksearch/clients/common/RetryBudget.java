@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+/**
+ * Limits retries to a ratio of the requests made, so retries cannot multiply the load on a source
+ * that is already failing. Every request deposits the ratio, every retry withdraws one. A small
+ * reserve allows retries before enough requests were made, by default {@value #DEFAULT_RESERVE}.
+ */
+public class RetryBudget {
+
+    public static final double DEFAULT_RESERVE = 10;
+
+    private static final double ROUNDING_TOLERANCE = 1e-9;
+
+    private final double ratio;
+    private final double maxBalance;
+
+    private double balance;
+
+    public RetryBudget(double ratio) {
+        this(ratio, DEFAULT_RESERVE);
+    }
+
+    public RetryBudget(double ratio, double reserve) {
+        this.ratio = ratio;
+        this.maxBalance = reserve + ratio * 1000;
+        this.balance = reserve;
+    }
+
+    public synchronized void onRequest() {
+        balance = Math.min(balance + ratio, maxBalance);
+    }
+
+    public synchronized boolean tryRetry() {
+        // Tolerates the rounding of summed up ratios, ten requests with a ratio of 0.1 allow one retry
+        if (balance < 1 - ROUNDING_TOLERANCE)
+            return false;
+
+        balance -= 1;
+        return true;
+    }
+
+}
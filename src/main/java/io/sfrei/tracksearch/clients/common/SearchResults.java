@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.suggest.SuggestionIndex;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.index.TrackIndex;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Hands the search results of the sources to the configured local index and suggestions.
+ */
+@UtilityClass
+public class SearchResults {
+
+    /**
+     * Add the tracks of a search result to {@link TrackSearchConfig#localIndex} and record the query of a first page
+     * and the clean titles with {@link TrackSearchConfig#suggestions}, each when enabled.
+     *
+     * @param trackList the search result.
+     * @param <L>       the track list type.
+     * @return the search result.
+     */
+    public <L extends TrackList<? extends Track>> L offer(final L trackList) {
+        if (trackList == null)
+            return null;
+
+        final TrackIndex index = TrackSearchConfig.localIndex;
+        if (index != null)
+            index.addAll(trackList);
+
+        final SuggestionIndex suggestions = TrackSearchConfig.suggestions;
+        if (suggestions != null) {
+            if (trackList.getQueryType() == QueryType.SEARCH && trackList.getQueryValue() != null)
+                suggestions.recordQuery(trackList.getQueryValue());
+            for (final Track track : trackList)
+                suggestions.recordTitle(track.getCleanTitle());
+        }
+        return trackList;
+    }
+
+}
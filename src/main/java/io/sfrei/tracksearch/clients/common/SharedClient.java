@@ -16,7 +16,11 @@
 
 package io.sfrei.tracksearch.clients.common;
 
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.metrics.jfr.JfrEvents;
+import io.sfrei.tracksearch.metrics.jfr.RequestEvent;
 import io.sfrei.tracksearch.utils.UserAgent;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -27,7 +31,9 @@ import retrofit2.Response;
 import java.io.IOException;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 public class SharedClient {
@@ -35,20 +41,67 @@ public class SharedClient {
     public static final int OK = 200;
     public static final String HEADER_LANGUAGE_ENGLISH = "Accept-Language: en";
     public static final int UNAUTHORIZED = 401;
+    public static final int TOO_MANY_REQUESTS = 429;
+    public static final int SERVICE_UNAVAILABLE = 503;
     public static final OkHttpClient OK_HTTP_CLIENT;
+    private static final Map<TrackSource, OkHttpClient> OK_HTTP_CLIENTS_BY_SOURCE = new EnumMap<>(TrackSource.class);
+    private static final Map<TrackSource, SourceInterceptor> SOURCE_INTERCEPTORS = new EnumMap<>(TrackSource.class);
     private static final CookieManager COOKIE_MANAGER = new CookieManager(null, CookiePolicy.ACCEPT_NONE);
 
     static {
 
         COOKIE_MANAGER.setCookiePolicy(CookiePolicy.ACCEPT_ALL);
 
-        OK_HTTP_CLIENT = new OkHttpClient.Builder()
-                .connectionSpecs(List.of(ConnectionSpec.RESTRICTED_TLS))
+        final HttpUrl endpointOverride = TrackSearchConfig.endpointOverride == null ?
+                null : HttpUrl.get(TrackSearchConfig.endpointOverride);
+
+        final OkHttpClient baseClient = new OkHttpClient.Builder()
+                .callTimeout(TrackSearchConfig.callTimeout)
+                .connectionSpecs(endpointOverride == null ?
+                        List.of(ConnectionSpec.RESTRICTED_TLS) : List.of(ConnectionSpec.RESTRICTED_TLS, ConnectionSpec.CLEARTEXT))
                 .addInterceptor(new LoggingAndHeaderInterceptor())
+                .eventListenerFactory(CallTimingEventListener.FACTORY)
                 .cookieJar(new JavaNetCookieJar(COOKIE_MANAGER))
                 .retryOnConnectionFailure(true)
                 .followRedirects(true)
                 .build();
+
+        // Replay and endpoint override have to be the innermost interceptors to substitute the network only
+        final ReplayInterceptor replayInterceptor = new ReplayInterceptor();
+        final List<Interceptor> networkInterceptors = endpointOverride == null ?
+                List.of(replayInterceptor) : List.of(replayInterceptor, new EndpointOverrideInterceptor(endpointOverride));
+
+        final OkHttpClient.Builder clientBuilder = baseClient.newBuilder();
+        networkInterceptors.forEach(clientBuilder::addInterceptor);
+        OK_HTTP_CLIENT = clientBuilder.build();
+
+        for (final TrackSource source : TrackSource.values()) {
+            final SourceInterceptor sourceInterceptor = new SourceInterceptor(source);
+            SOURCE_INTERCEPTORS.put(source, sourceInterceptor);
+            final OkHttpClient.Builder sourceClientBuilder = baseClient.newBuilder().addInterceptor(sourceInterceptor);
+            networkInterceptors.forEach(sourceClientBuilder::addInterceptor);
+            OK_HTTP_CLIENTS_BY_SOURCE.put(source, sourceClientBuilder.build());
+        }
+    }
+
+    /**
+     * Get the client for requests to a source, sharing connections and threads with {@link #OK_HTTP_CLIENT}.
+     *
+     * @param source the source requests are made for.
+     * @return the client for the source.
+     */
+    public static OkHttpClient okHttpClient(TrackSource source) {
+        return OK_HTTP_CLIENTS_BY_SOURCE.get(source);
+    }
+
+    /**
+     * Get the rate limiter for a source as configured in {@link TrackSearchConfig#rateLimits}.
+     *
+     * @param source the source to get the rate limiter for.
+     * @return the rate limiter or null when the source is not rate limited.
+     */
+    public static RateLimiter rateLimiter(TrackSource source) {
+        return SOURCE_INTERCEPTORS.get(source).rateLimiter();
     }
 
     private static void logResponseCode(String url, int code) {
@@ -64,32 +117,73 @@ public class SharedClient {
         log.trace("Request: {}", url);
     }
 
+    private static ResponseWrapper recorded(RequestEvent event, String url, ResponseWrapper response) {
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.code = response.getCode() == null ? 0 : response.getCode();
+            event.contentLength = response.contentPresent() ? response.getContent().length() : 0;
+            event.failed = !response.contentPresent();
+            event.commit();
+        }
+        return response;
+    }
+
     public static ResponseWrapper request(Call<ResponseWrapper> call) {
         final String url = call.request().url().toString();
+        if (!JfrEvents.enabled())
+            return execute(call, url);
+
+        final RequestEvent event = new RequestEvent();
+        event.begin();
+        return recorded(event, url, execute(call, url));
+    }
+
+    private static ResponseWrapper execute(Call<ResponseWrapper> call, String url) {
         logRequest(url);
+        final CallGroup.Registration registration = CallGroup.register(call::cancel);
         try {
             final Response<ResponseWrapper> response = call.execute();
 
-            if (response.isSuccessful() && response.body() != null && response.body().contentPresent()) {
-                return response.body();
+            final ResponseWrapper body = response.body();
+            if (response.isSuccessful() && body != null && body.contentPresent()) {
+                return ResponseWrapper.content(response.code(), response.headers(), body.getContent());
             }
 
-            return ResponseWrapper.empty(
+            return ResponseWrapper.empty(response.code(), response.headers(),
                     new TrackSearchException(String.format("No response body (%s) requesting: %s", response.code(), url))
             );
 
         } catch (IOException e) {
             return ResponseWrapper.empty(requestException(url, e));
+        } finally {
+            registration.close();
         }
     }
 
     public static ResponseWrapper request(String url) {
+        if (!JfrEvents.enabled())
+            return execute(url);
+
+        final RequestEvent event = new RequestEvent();
+        event.begin();
+        return recorded(event, url, execute(url));
+    }
+
+    private static ResponseWrapper execute(String url) {
         logRequest(url);
         final Request request = new Request.Builder().url(url).build();
-        try (final okhttp3.Response response = OK_HTTP_CLIENT.newCall(request).execute()) {
-            return ResponseProviderFactory.wrapResponse(response.body());
+        final okhttp3.Call call = OK_HTTP_CLIENT.newCall(request);
+        final CallGroup.Registration registration = CallGroup.register(call::cancel);
+        try (final okhttp3.Response response = call.execute()) {
+            if (!response.isSuccessful())
+                return ResponseWrapper.empty(response.code(), response.headers(),
+                        new TrackSearchException(String.format("No response body (%s) requesting: %s", response.code(), url)));
+
+            return ResponseProviderFactory.wrapResponse(response.code(), response.headers(), response.body());
         } catch (IOException e) {
             return ResponseWrapper.empty(requestException(url, e));
+        } finally {
+            registration.close();
         }
     }
 
@@ -122,4 +216,23 @@ public class SharedClient {
         }
     }
 
+    private record EndpointOverrideInterceptor(HttpUrl endpoint) implements Interceptor {
+
+        @NotNull
+        @Override
+        public okhttp3.Response intercept(Interceptor.Chain chain) throws IOException {
+            final Request request = chain.request();
+            final HttpUrl url = request.url().newBuilder()
+                    .scheme(endpoint.scheme())
+                    .host(endpoint.host())
+                    .port(endpoint.port())
+                    .build();
+
+            return chain.proceed(request.newBuilder()
+                    .url(url)
+                    .header("X-Forwarded-Host", request.url().host())
+                    .build());
+        }
+    }
+
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.metrics.Metrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors shared by all clients for background work like prefetching.
+ * All threads are daemon threads, so they never keep the JVM alive.
+ * The time tasks wait for a worker is recorded as {@link Metrics#EXECUTOR_QUEUE_TIME}.
+ */
+public final class SharedExecutor {
+
+    /**
+     * The maximum amount of worker threads. When all are busy, tasks run on the submitting thread, which slows
+     * down submitting further tasks and cannot deadlock tasks waiting for tasks they submitted.
+     */
+    public static final int MAX_WORKERS = 64;
+
+    public static final ExecutorService WORKER = new QueueTimingExecutorService(
+            new ThreadPoolExecutor(0, MAX_WORKERS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    daemonThreadFactory("tracksearch-worker"), new ThreadPoolExecutor.CallerRunsPolicy()));
+
+    public static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("tracksearch-scheduler"));
+
+    private SharedExecutor() {
+    }
+
+    public static ThreadFactory daemonThreadFactory(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger(0);
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class QueueTimingExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        private QueueTimingExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(@NotNull Runnable command) {
+            final long submitted = System.nanoTime();
+            delegate.execute(() -> {
+                Metrics.timeSince(Metrics.EXECUTOR_QUEUE_TIME, null, submitted);
+                command.run();
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @NotNull
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.config.RateLimit;
+import io.sfrei.tracksearch.config.RetryPolicy;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.jetbrains.annotations.NotNull;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits and retries the requests to a single source as configured in
+ * {@link TrackSearchConfig#rateLimits} and {@link TrackSearchConfig#retryPolicies}.
+ * Records the latency, bytes and failures of the requests as {@link Metrics}.
+ */
+@Slf4j
+final class SourceInterceptor implements Interceptor {
+
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    private final TrackSource source;
+
+    private RateLimiter rateLimiter;
+
+    private RetryPolicy retryPolicy;
+    private RetryBudget retryBudget;
+
+    SourceInterceptor(TrackSource source) {
+        this.source = source;
+    }
+
+    synchronized RateLimiter rateLimiter() {
+        final RateLimit rateLimit = TrackSearchConfig.rateLimits.get(source);
+        if (rateLimit == null)
+            rateLimiter = null;
+        else if (rateLimiter == null || !rateLimiter.getRateLimit().equals(rateLimit))
+            rateLimiter = new RateLimiter(rateLimit);
+
+        return rateLimiter;
+    }
+
+    private synchronized RetryBudget retryBudget(final RetryPolicy policy) {
+        if (retryBudget == null || !policy.equals(retryPolicy)) {
+            retryPolicy = policy;
+            retryBudget = new RetryBudget(policy.budgetRatio());
+        }
+        return retryBudget;
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        final long start = System.nanoTime();
+        final Response response;
+        try {
+            response = proceedWithRetries(chain);
+        } catch (IOException e) {
+            Metrics.timeSince(Metrics.REQUEST_LATENCY, source, start);
+            Metrics.count(Metrics.REQUEST_FAILURES, source, 1);
+            throw e;
+        }
+
+        Metrics.timeSince(Metrics.REQUEST_LATENCY, source, start);
+        if (!response.isSuccessful())
+            Metrics.count(Metrics.REQUEST_FAILURES, source, 1);
+
+        return countingBytes(response);
+    }
+
+    private Response proceedWithRetries(final Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RetryPolicy policy = TrackSearchConfig.retryPolicies.getOrDefault(source, RetryPolicy.none());
+        final RetryBudget budget = retryBudget(policy);
+        budget.onRequest();
+
+        // Retries count against the call timeout, so they never exceed the callers deadline
+        final long timeoutNanos = chain.call().timeout().timeoutNanos();
+        final long deadlineNanos = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : Long.MAX_VALUE;
+
+        for (int retry = 0; ; retry++) {
+            final Response response;
+            try {
+                response = proceedRateLimited(chain, request, deadlineNanos);
+            } catch (IOException e) {
+                if (!isTransient(e) || chain.call().isCanceled())
+                    throw e;
+
+                final Duration backoff = backoff(policy, retry);
+                if (!mayRetry(policy, budget, retry, backoff, deadlineNanos))
+                    throw e;
+
+                log.debug("Retry {} in {}ms after failure requesting: {}", retry + 1, backoff.toMillis(), request.url(), e);
+                Metrics.count(Metrics.REQUEST_RETRIES, source, 1);
+                sleep(backoff);
+                continue;
+            }
+
+            if (!isRetryable(response.code()))
+                return response;
+
+            final Duration retryAfter = retryAfter(response);
+            if (retryAfter != null && retryAfter.compareTo(policy.maxBackoff()) > 0)
+                return response;
+
+            final Duration backoff = retryAfter != null ? retryAfter : backoff(policy, retry);
+            if (!mayRetry(policy, budget, retry, backoff, deadlineNanos))
+                return response;
+
+            log.debug("Retry {} in {}ms after code {} requesting: {}", retry + 1, backoff.toMillis(), response.code(), request.url());
+            Metrics.count(Metrics.REQUEST_RETRIES, source, 1);
+            response.close();
+            sleep(backoff);
+        }
+    }
+
+    /**
+     * Count the bytes of the body while it is read, recording them when it is exhausted or closed.
+     */
+    private Response countingBytes(final Response response) {
+        final ResponseBody body = response.body();
+        if (body == null)
+            return response;
+
+        final ForwardingSource countingSource = new ForwardingSource(body.source()) {
+            private long bytes;
+            private boolean recorded;
+
+            @Override
+            public long read(@NotNull Buffer sink, long byteCount) throws IOException {
+                final long read = super.read(sink, byteCount);
+                if (read == -1)
+                    recordBytes();
+                else
+                    bytes += read;
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                recordBytes();
+                super.close();
+            }
+
+            private void recordBytes() {
+                if (recorded)
+                    return;
+
+                recorded = true;
+                Metrics.record(Metrics.REQUEST_BYTES, source, bytes);
+            }
+        };
+
+        return response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(countingSource), body.contentType(), body.contentLength()))
+                .build();
+    }
+
+    private Response proceedRateLimited(final Chain chain, final Request request, final long deadlineNanos)
+            throws IOException {
+
+        final RateLimiter limiter = rateLimiter();
+        if (limiter == null)
+            return chain.proceed(request);
+
+        try {
+            // Fail right away instead of waiting for a permit after the deadline
+            if (!limiter.tryAcquire(remainingNanos(deadlineNanos), TimeUnit.NANOSECONDS))
+                throw new InterruptedIOException("Rate limit of " + source + " exceeds the call timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for rate limit of " + source);
+        }
+
+        final Response response = chain.proceed(request);
+        if (response.code() == SharedClient.TOO_MANY_REQUESTS || response.code() == SharedClient.SERVICE_UNAVAILABLE)
+            limiter.onThrottled();
+        else
+            limiter.onSuccess();
+
+        return response;
+    }
+
+    private static boolean mayRetry(final RetryPolicy policy, final RetryBudget budget, final int retry,
+                                    final Duration backoff, final long deadlineNanos) {
+
+        if (retry >= policy.maxRetries())
+            return false;
+
+        if (remainingNanos(deadlineNanos) <= backoff.toNanos())
+            return false;
+
+        return budget.tryRetry();
+    }
+
+    private static long remainingNanos(final long deadlineNanos) {
+        // Without deadline the difference could overflow, nano time can be negative
+        return deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadlineNanos - System.nanoTime();
+    }
+
+    private static boolean isRetryable(final int code) {
+        return code == SharedClient.TOO_MANY_REQUESTS || code >= 500;
+    }
+
+    private static boolean isTransient(final IOException e) {
+        if (e instanceof SocketTimeoutException)
+            return true;
+
+        // Failing the same way again, like certificate or protocol errors
+        return !(e instanceof InterruptedIOException) && !(e instanceof UnknownHostException)
+                && !(e instanceof SSLException) && !(e instanceof ProtocolException);
+    }
+
+    private static Duration backoff(final RetryPolicy policy, final int retry) {
+        final long initial = policy.initialBackoff().toMillis();
+        final long max = policy.maxBackoff().toMillis();
+        final long exponential = Math.min(max, initial << Math.min(retry, 20));
+        final long half = exponential / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(exponential - half + 1));
+    }
+
+    static Duration retryAfter(final Response response) {
+        final String retryAfter = response.header(HEADER_RETRY_AFTER);
+        if (retryAfter == null || retryAfter.isBlank())
+            return null;
+
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException ignored) {
+            // Can also be a HTTP date
+        }
+
+        try {
+            final ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            final Duration until = Duration.between(ZonedDateTime.now(date.getZone()), date);
+            return until.isNegative() ? Duration.ZERO : until;
+        } catch (DateTimeParseException e) {
+            log.debug("Cannot parse {} header: {}", HEADER_RETRY_AFTER, retryAfter);
+            return null;
+        }
+    }
+
+    private static void sleep(final Duration duration) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for retry");
+        }
+    }
+
+}
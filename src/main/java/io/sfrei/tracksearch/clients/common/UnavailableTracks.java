@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.cache.NegativeTrackCache;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.exceptions.TrackUnavailableException;
+import io.sfrei.tracksearch.metrics.jfr.TrackSearchCallable;
+import lombok.experimental.UtilityClass;
+
+import java.util.function.Function;
+
+/**
+ * Fails getting tracks known to be unavailable and records the confirmed failures of the sources with
+ * {@link TrackSearchConfig#negativeCache}, each when enabled. Only responses with not found or gone and pages
+ * stating that the track is unavailable, see {@link TrackUnavailableException}, are confirmed. Other failures, e.g.
+ * without a response or of the extraction, are not, the track is requested again. Unavailable tracks fail with the
+ * exception of the source.
+ */
+@UtilityClass
+public class UnavailableTracks {
+
+    private static final int NOT_FOUND = 404;
+    private static final int GONE = 410;
+
+    /**
+     * Throw when a track is known to be unavailable.
+     *
+     * @param trackId              the canonical track ID.
+     * @param exceptionConstructor the exception of the source.
+     * @throws TrackSearchException when the track is known to be unavailable.
+     */
+    public void failFast(final String trackId, final Function<String, TrackSearchException> exceptionConstructor)
+            throws TrackSearchException {
+
+        final NegativeTrackCache cache = TrackSearchConfig.negativeCache;
+        if (cache == null)
+            return;
+
+        final String reason = cache.unavailableReason(trackId);
+        if (reason != null)
+            throw unavailable(trackId, reason, exceptionConstructor);
+    }
+
+    /**
+     * Get the content of the response of a track page, recording the track when not found or gone.
+     *
+     * @param trackId  the canonical track ID.
+     * @param response the response.
+     * @return the content.
+     * @throws TrackSearchException when the response has no content.
+     */
+    public String contentOrThrow(final String trackId, final ResponseWrapper response) throws TrackSearchException {
+        if (!response.contentPresent() && (response.isHttpCode(NOT_FOUND) || response.isHttpCode(GONE)))
+            record(trackId, String.format("Response code %s", response.getCode()));
+
+        return response.contentOrThrow();
+    }
+
+    /**
+     * Extract a track from a received page, recording the track when the page states that it is unavailable.
+     *
+     * @param trackId              the canonical track ID.
+     * @param exceptionConstructor the exception of the source.
+     * @param extraction           the extraction.
+     * @param <R>                  the extracted type.
+     * @return the extracted value.
+     * @throws TrackSearchException when the extraction fails, the exception of the source when the track is unavailable.
+     */
+    public <R> R extract(final String trackId, final Function<String, TrackSearchException> exceptionConstructor,
+                         final TrackSearchCallable<R> extraction) throws TrackSearchException {
+        try {
+            return extraction.call();
+        } catch (TrackUnavailableException e) {
+            record(trackId, e.getMessage());
+            throw unavailable(trackId, e.getMessage(), exceptionConstructor);
+        }
+    }
+
+    private TrackSearchException unavailable(final String trackId, final String reason,
+                                             final Function<String, TrackSearchException> exceptionConstructor) {
+        return exceptionConstructor.apply(String.format("Track %s unavailable: %s", trackId, reason));
+    }
+
+    private void record(final String trackId, final String reason) {
+        final NegativeTrackCache cache = TrackSearchConfig.negativeCache;
+        if (cache != null)
+            cache.recordUnavailable(trackId, reason);
+    }
+
+}
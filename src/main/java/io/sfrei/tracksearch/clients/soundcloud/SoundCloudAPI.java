@@ -39,6 +39,14 @@ public interface SoundCloudAPI {
     })
     Call<ResponseWrapper> getStartPage();
 
+    @GET
+    @Headers({
+            SharedClient.HEADER_LANGUAGE_ENGLISH,
+            HEADER_SOUNDCLOUD_REFERER,
+            HEADER_SOUNDCLOUD_ORIGIN
+    })
+    Call<ResponseWrapper> getForUrl(@Url String url);
+
     @GET
     @Headers({
             SharedClient.HEADER_LANGUAGE_ENGLISH,
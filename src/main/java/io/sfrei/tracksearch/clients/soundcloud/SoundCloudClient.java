@@ -18,16 +18,26 @@ package io.sfrei.tracksearch.clients.soundcloud;
 
 
 import io.sfrei.tracksearch.clients.SearchClient;
+import io.sfrei.tracksearch.clients.TrackSource;
 import io.sfrei.tracksearch.clients.common.QueryType;
 import io.sfrei.tracksearch.clients.common.ResponseProviderFactory;
 import io.sfrei.tracksearch.clients.common.ResponseWrapper;
+import io.sfrei.tracksearch.clients.common.SearchResults;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.clients.common.UnavailableTracks;
 import io.sfrei.tracksearch.config.TrackSearchConfig;
 import io.sfrei.tracksearch.exceptions.SoundCloudException;
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.metrics.Metrics;
+import io.sfrei.tracksearch.metrics.jfr.ClientIdRefreshEvent;
+import io.sfrei.tracksearch.metrics.jfr.JfrEvents;
 import io.sfrei.tracksearch.tracks.GenericTrackList;
 import io.sfrei.tracksearch.tracks.SoundCloudTrack;
 import io.sfrei.tracksearch.tracks.Track;
 import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.dedup.CanonicalTrackId;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
+import io.sfrei.tracksearch.tracks.paging.SoundCloudCursor;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -35,6 +45,9 @@ import retrofit2.Call;
 import retrofit2.Retrofit;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import static io.sfrei.tracksearch.clients.common.SharedClient.*;
 
@@ -42,9 +55,6 @@ import static io.sfrei.tracksearch.clients.common.SharedClient.*;
 public class SoundCloudClient implements SearchClient<SoundCloudTrack> {
 
     public static final String URL = "https://soundcloud.com";
-    private static final String INFORMATION_PREFIX = "sc";
-    public static final String POSITION_KEY = INFORMATION_PREFIX + TrackSearchConfig.POSITION_KEY_SUFFIX;
-    public static final String OFFSET_KEY = INFORMATION_PREFIX + TrackSearchConfig.OFFSET_KEY_SUFFIX;
     private static final String PAGING_OFFSET = "limit";
     private static final String PAGING_POSITION = "position";
 
@@ -52,18 +62,17 @@ public class SoundCloudClient implements SearchClient<SoundCloudTrack> {
 
     private final SoundCloudAPI api;
 
-    private String clientID;
+    private volatile String clientID;
 
     public SoundCloudClient() {
 
         final Retrofit base = new Retrofit.Builder()
                 .baseUrl(URL)
-                .client(OK_HTTP_CLIENT)
+                .client(okHttpClient(TrackSource.Soundcloud))
                 .addConverterFactory(ResponseProviderFactory.create())
                 .build();
 
         api = base.create(SoundCloudAPI.class);
-        refreshClientID();
     }
 
     public static Map<String, String> makeQueryInformation(final String query) {
@@ -80,27 +89,81 @@ public class SoundCloudClient implements SearchClient<SoundCloudTrack> {
         if (!isApplicableForURL(url))
             throw new SoundCloudException(String.format("%s not applicable for URL: %s", this.getClass().getSimpleName(), url));
 
-        final String trackHTML = clientIDRequest(api.getForUrlWithClientID(url, clientID)).contentOrThrow();
-        final String trackURL = SoundCloudUtility.extractTrackURL(trackHTML);
-        final String trackJSON = clientIDRequest(api.getForUrlWithClientID(trackURL, clientID)).contentOrThrow();
-        return SoundCloudUtility.extractSoundCloudTrack(trackJSON);
+        final String trackId = CanonicalTrackId.of(TrackSource.Soundcloud, url);
+        UnavailableTracks.failFast(trackId, SoundCloudException::new);
+
+        return JfrEvents.getTrack(TrackSource.Soundcloud.name(), url, () -> {
+            final String trackHTML = UnavailableTracks.contentOrThrow(trackId,
+                    clientIDRequest(clientID -> api.getForUrlWithClientID(url, clientID)));
+            final String trackURL = UnavailableTracks.extract(trackId, SoundCloudException::new, () -> SoundCloudUtility.extractTrackURL(trackHTML));
+            final String trackJSON = clientIDRequest(clientID -> api.getForUrlWithClientID(trackURL, clientID)).contentOrThrow();
+            return SoundCloudUtility.extractSoundCloudTrack(trackJSON);
+        });
     }
 
     private GenericTrackList<SoundCloudTrack> getTracksForSearch(final String search, int position, int offset, QueryType queryType)
             throws TrackSearchException {
 
-        final Map<String, String> pagingParams = getPagingParams(position, offset);
-        final String tracksJSON = clientIDRequest(api.getSearchForKeywords(search, clientID, pagingParams))
-                .contentOrThrow();
+        final String cacheKey = String.format("soundcloud:search:%s:%s:%s", position, offset, search);
+        return cached(cacheKey, () -> JfrEvents.search(TrackSource.Soundcloud.name(), queryType, search, 1, () -> {
+            final Map<String, String> pagingParams = getPagingParams(position, offset);
+            final String tracksJSON = clientIDRequest(clientID -> api.getSearchForKeywords(search, clientID, pagingParams))
+                    .contentOrThrow();
 
-        return SoundCloudUtility.extractSoundCloudTracks(tracksJSON, queryType, search, this::provideNext);
+            final GenericTrackList<SoundCloudTrack> trackList = SoundCloudUtility.extractSoundCloudTracks(tracksJSON, queryType, search, this::provideNext);
+            return SearchResults.offer(trackList.withCursor(new SoundCloudCursor(search, position, position + trackList.size(), offset)));
+        }));
     }
 
     @Override
     public TrackList<SoundCloudTrack> getTracksForSearch(@NonNull final String search) throws TrackSearchException {
-        GenericTrackList<SoundCloudTrack> trackList = getTracksForSearch(search, 0, TrackSearchConfig.playListOffset, QueryType.SEARCH);
-        trackList.addQueryInformationValue(POSITION_KEY, 0);
-        return trackList;
+        return getTracksForSearch(search, 0, TrackSearchConfig.playListOffset, QueryType.SEARCH);
+    }
+
+    @Override
+    public TrackList<SoundCloudTrack> getTracksForSearch(@NonNull final String search, final int pages) throws TrackSearchException {
+        if (pages < 1)
+            throw new SoundCloudException("Provide at least one page");
+
+        return JfrEvents.search(TrackSource.Soundcloud.name(), QueryType.SEARCH, search, pages, () -> getTracksForPages(search, pages));
+    }
+
+    private GenericTrackList<SoundCloudTrack> getTracksForPages(final String search, final int pages) throws TrackSearchException {
+        final int offset = TrackSearchConfig.playListOffset;
+
+        // Paging is offset based, so all pages can be requested at once
+        final List<CompletableFuture<GenericTrackList<SoundCloudTrack>>> pageRequests = new ArrayList<>(pages);
+        for (int page = 0; page < pages; page++) {
+            final int position = page * offset;
+            final QueryType queryType = page == 0 ? QueryType.SEARCH : QueryType.PAGING;
+            pageRequests.add(CompletableFuture.supplyAsync(() -> getTracksForSearchCatching(search, position, offset, queryType), SharedExecutor.WORKER));
+        }
+
+        final List<SoundCloudTrack> tracks = new ArrayList<>(pages * offset);
+        try {
+            for (final CompletableFuture<GenericTrackList<SoundCloudTrack>> pageRequest : pageRequests) {
+                tracks.addAll(pageRequest.join());
+            }
+        } catch (CompletionException e) {
+            pageRequests.forEach(pageRequest -> pageRequest.cancel(false));
+            if (e.getCause() instanceof TrackSearchException trackSearchException)
+                throw trackSearchException;
+            throw new SoundCloudException(String.format("Failed getting %s pages for: %s", pages, search));
+        }
+
+        final GenericTrackList<SoundCloudTrack> trackList = GenericTrackList.using(QueryType.SEARCH, makeQueryInformation(search), this::provideNext)
+                .withDistinctTracks(tracks);
+
+        log.debug("Found {} SoundCloud tracks on {} pages for: {}", trackList.size(), pages, search);
+        return trackList.withCursor(new SoundCloudCursor(search, 0, pages * offset, offset));
+    }
+
+    private GenericTrackList<SoundCloudTrack> getTracksForSearchCatching(final String search, int position, int offset, QueryType queryType) {
+        try {
+            return getTracksForSearch(search, position, offset, queryType);
+        } catch (TrackSearchException e) {
+            throw new CompletionException(e);
+        }
     }
 
     @Override
@@ -109,49 +172,75 @@ public class SoundCloudClient implements SearchClient<SoundCloudTrack> {
 
         final QueryType trackListQueryType = trackList.getQueryType();
         if (trackListQueryType.equals(QueryType.SEARCH) || trackListQueryType.equals(QueryType.PAGING)) {
-            final int queryPosition = trackList.queryInformationAsInt(OFFSET_KEY);
-            final int queryOffset = TrackSearchConfig.playListOffset;
-
-            final GenericTrackList<SoundCloudTrack> nextTracksForSearch = getTracksForSearch(trackList.getQueryValue(), queryPosition, queryOffset, QueryType.PAGING);
-            return nextTracksForSearch.updatePagingValues(trackList, POSITION_KEY, OFFSET_KEY);
+            final SoundCloudCursor cursor = PagingCursor.of(trackList, SoundCloudCursor.class);
+            return getTracksForSearch(cursor.query(), cursor.offset(), cursor.limit(), QueryType.PAGING);
         }
         throw unsupportedQueryTypeException(SoundCloudException::new, trackListQueryType);
     }
 
-    private ResponseWrapper clientIDRequest(final Call<ResponseWrapper> call) throws SoundCloudException {
+    private ResponseWrapper clientIDRequest(final Function<String, Call<ResponseWrapper>> call) throws SoundCloudException {
         return clientIDRequest(call, true);
     }
 
-    private ResponseWrapper clientIDRequest(final Call<ResponseWrapper> call, final boolean firstRequest) throws SoundCloudException {
+    private ResponseWrapper clientIDRequest(final Function<String, Call<ResponseWrapper>> call, final boolean firstRequest)
+            throws SoundCloudException {
+
+        final String requestClientID = firstRequest ? clientID() : clientID;
+        if (requestClientID == null)
+            throw new SoundCloudException("ClientID is not available and cannot be refreshed");
 
-        final ResponseWrapper response = request(call);
-        if (response.contentPresent() && !response.isHttpCode(UNAUTHORIZED)) {
+        // Only an unauthorized response is caused by the ClientID, others like not found are left to the caller
+        final ResponseWrapper response = request(call.apply(requestClientID));
+        if (!response.isHttpCode(UNAUTHORIZED)) {
             return response;
         }
 
         if (firstRequest) {
             refreshClientID();
-            return clientIDRequest(call, false);
+            return clientIDRequest(call, false); // Create the call again with the refreshed ClientID
         }
 
         throw new SoundCloudException("ClientID is not available and cannot be refreshed");
     }
 
-    public final void refreshClientID() {
+    public final synchronized void refreshClientID() {
         log.trace("Trying to get ClientID...");
+        Metrics.count(Metrics.CLIENT_ID_REFRESHES, TrackSource.Soundcloud, 1);
+        final ClientIdRefreshEvent event = JfrEvents.enabled() ? new ClientIdRefreshEvent() : null;
+        if (event != null)
+            event.begin();
         try {
-            this.clientID = getClientID();
+            this.clientID = getClientID(event);
         } catch (TrackSearchException e) {
+            if (event != null)
+                event.failed = true;
             log.error("Cannot refresh ClientID", e);
         }
+        if (event != null)
+            event.commit();
     }
 
-    private String getClientID() throws TrackSearchException {
+    /**
+     * The ClientID is scraped from the start page on first use, it takes several requests.
+     */
+    private String clientID() {
+        if (clientID == null) {
+            synchronized (this) {
+                if (clientID == null)
+                    refreshClientID();
+            }
+        }
+        return clientID;
+    }
+
+    private String getClientID(final ClientIdRefreshEvent event) throws TrackSearchException {
         final ResponseWrapper response = request(api.getStartPage());
         final String content = response.contentOrThrow();
         final List<String> crossOriginScripts = SoundCloudUtility.getCrossOriginScripts(content);
         for (final String scriptUrl : crossOriginScripts) {
-            final ResponseWrapper scriptResponse = request(scriptUrl);
+            if (event != null)
+                event.scripts++;
+            final ResponseWrapper scriptResponse = request(api.getForUrl(scriptUrl));
             if (scriptResponse.contentPresent()) {
                 final Optional<String> clientID = SoundCloudUtility.getClientID(scriptResponse.getContent());
                 if (clientID.isPresent()) {
@@ -166,9 +255,17 @@ public class SoundCloudClient implements SearchClient<SoundCloudTrack> {
         return Map.of(PAGING_OFFSET, String.valueOf(offset), PAGING_POSITION, String.valueOf(position));
     }
 
+    @Override
+    public CompletableFuture<Void> warmUp() {
+        return CompletableFuture.runAsync(() -> {
+            SoundCloudUtility.warmUp();
+            clientID();
+        }, SharedExecutor.WORKER);
+    }
+
     @Override
     public boolean hasPagingValues(@NonNull final TrackList<? extends Track> trackList) {
-        return trackList.hasQueryInformation(POSITION_KEY, OFFSET_KEY);
+        return PagingCursor.of(trackList, SoundCloudCursor.class) != null;
     }
 
     @Override
@@ -17,9 +17,12 @@
 package io.sfrei.tracksearch.clients.soundcloud;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sfrei.tracksearch.clients.TrackSource;
 import io.sfrei.tracksearch.clients.common.QueryType;
 import io.sfrei.tracksearch.exceptions.SoundCloudException;
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.exceptions.TrackUnavailableException;
+import io.sfrei.tracksearch.metrics.Metrics;
 import io.sfrei.tracksearch.tracks.GenericTrackList;
 import io.sfrei.tracksearch.tracks.SoundCloudTrack;
 import io.sfrei.tracksearch.tracks.TrackListProvider;
@@ -51,14 +54,26 @@ public final class SoundCloudUtility {
     private static final ObjectMapper MAPPER = ObjectMapperBuilder.create()
             .addDeserializer(SoundCloudTrack.SoundCloudTrackBuilder.class, new SoundCloudTrackDeserializer()).get();
 
+    /**
+     * Build the mapper and load the parser classes which is otherwise done by the first extraction.
+     */
+    static void warmUp() {
+        Jsoup.parse("<html><body><script nonce=\"warm-up\">var warmUp = {};</script></body></html>").select("script[nonce]");
+        JsonElement.readTreeCatching(MAPPER, "{\"warmUp\":[]}");
+    }
+
     static List<String> getCrossOriginScripts(final String html) {
+        final long start = System.nanoTime();
         final Document doc = Jsoup.parse(html);
         final Elements scriptsDom = doc.getElementsByTag("script");
-        return scriptsDom.stream()
+        final List<String> crossOriginScripts = scriptsDom.stream()
                 .filter(element -> element.hasAttr("crossorigin"))
                 .map(element -> element.attr("src"))
                 .peek(crossOriginScript -> log.trace("CrossOriginScript: {}", crossOriginScript))
                 .collect(Collectors.toList());
+
+        Metrics.timeSince(Metrics.HTML_EXTRACTION_TIME, TrackSource.Soundcloud, start);
+        return crossOriginScripts;
     }
 
     static Optional<String> getClientID(final String script) {
@@ -74,10 +89,16 @@ public final class SoundCloudUtility {
     }
 
     static String extractTrackURL(final String html) throws TrackSearchException {
+        final long start = System.nanoTime();
         Document document = Jsoup.parse(html);
         Element embedUrlMeta = document.select("meta[itemprop=embedUrl]").first();
+        Metrics.timeSince(Metrics.HTML_EXTRACTION_TIME, TrackSource.Soundcloud, start);
 
-        return Optional.ofNullable(embedUrlMeta)
+        // Only pages of available tracks have the player embedded
+        if (embedUrlMeta == null)
+            throw new TrackUnavailableException("Track page without embed URL");
+
+        return Optional.of(embedUrlMeta)
                 .map(url -> url.attr("content"))
                 .map(HttpUrl::parse)
                 .map(url -> url.queryParameter("url"))
@@ -88,22 +109,30 @@ public final class SoundCloudUtility {
     static SoundCloudTrack extractSoundCloudTrack(final String json)
             throws SoundCloudException {
 
+        final long start = System.nanoTime();
         final JsonElement trackJsonElement = JsonElement.readTreeCatching(MAPPER, json)
                 .orElseThrow(() -> new SoundCloudException("Cannot parse SoundCloud track JSON"));
 
-        return trackJsonElement.mapCatching(MAPPER, SoundCloudTrack.SoundCloudTrackBuilder.class)
+        final SoundCloudTrack track = trackJsonElement.mapCatching(MAPPER, SoundCloudTrack.SoundCloudTrackBuilder.class)
                 .build();
+
+        Metrics.timeSince(Metrics.JSON_EXTRACTION_TIME, TrackSource.Soundcloud, start);
+        Metrics.count(Metrics.TRACKS_PARSED, TrackSource.Soundcloud, 1);
+        return track;
     }
 
     static GenericTrackList<SoundCloudTrack> extractSoundCloudTracks(final String json, final QueryType queryType, final String query,
                                                                      final TrackListProvider<SoundCloudTrack> nextTrackListFunction)
             throws SoundCloudException {
 
-        final JsonElement responseElement = JsonElement.readTreeCatching(MAPPER, json)
+        final long start = System.nanoTime();
+        final List<JsonElement> collection = JsonElement.readTreeCatching(MAPPER, json)
                 .orElseThrow(() -> new SoundCloudException("Cannot parse SoundCloudTracks JSON"))
-                .paths("collection");
+                .paths("collection")
+                .elements()
+                .toList();
 
-        final List<SoundCloudTrack> scTracks = responseElement.elements()
+        final List<SoundCloudTrack> scTracks = collection.stream()
                 .map(element -> element.mapCatching(MAPPER, SoundCloudTrack.SoundCloudTrackBuilder.class))
                 .filter(Objects::nonNull)
                 .map(SoundCloudTrack.SoundCloudTrackBuilder::build)
@@ -113,7 +142,10 @@ public final class SoundCloudUtility {
         final GenericTrackList<SoundCloudTrack> trackList = GenericTrackList.using(queryType, queryInformation, nextTrackListFunction).withTracks(scTracks);
 
         final int tracksSize = scTracks.size();
-        trackList.addQueryInformationValue(SoundCloudClient.OFFSET_KEY, tracksSize);
+
+        Metrics.timeSince(Metrics.JSON_EXTRACTION_TIME, TrackSource.Soundcloud, start);
+        Metrics.count(Metrics.TRACKS_PARSED, TrackSource.Soundcloud, tracksSize);
+        Metrics.count(Metrics.TRACKS_DROPPED, TrackSource.Soundcloud, collection.size() - tracksSize);
         log.debug("Found {} SoundCloud tracks for {}: {}", tracksSize, queryType, query);
         return trackList;
     }
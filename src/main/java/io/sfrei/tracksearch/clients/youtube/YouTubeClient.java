@@ -17,25 +17,37 @@
 package io.sfrei.tracksearch.clients.youtube;
 
 import io.sfrei.tracksearch.clients.SearchClient;
+import io.sfrei.tracksearch.clients.TrackSource;
 import io.sfrei.tracksearch.clients.common.QueryType;
 import io.sfrei.tracksearch.clients.common.ResponseProviderFactory;
-import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.clients.common.ResponseWrapper;
+import io.sfrei.tracksearch.clients.common.SearchResults;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.clients.common.UnavailableTracks;
 import io.sfrei.tracksearch.exceptions.TrackSearchException;
 import io.sfrei.tracksearch.exceptions.YouTubeException;
+import io.sfrei.tracksearch.metrics.jfr.JfrEvents;
 import io.sfrei.tracksearch.tracks.GenericTrackList;
 import io.sfrei.tracksearch.tracks.Track;
 import io.sfrei.tracksearch.tracks.TrackList;
 import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.dedup.CanonicalTrackId;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
+import io.sfrei.tracksearch.tracks.paging.YouTubeCursor;
+import io.sfrei.tracksearch.utils.json.JsonElement;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import retrofit2.Retrofit;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
-import static io.sfrei.tracksearch.clients.common.SharedClient.OK_HTTP_CLIENT;
+import static io.sfrei.tracksearch.clients.common.SharedClient.okHttpClient;
 import static io.sfrei.tracksearch.clients.common.SharedClient.request;
 
 @Slf4j
@@ -43,10 +55,6 @@ public class YouTubeClient implements SearchClient<YouTubeTrack> {
 
     public static final String URL = "https://www.youtube.com";
     public static final String PAGING_KEY = "ctoken";
-    private static final String INFORMATION_PREFIX = "yt";
-    public static final String POSITION_KEY = INFORMATION_PREFIX + TrackSearchConfig.POSITION_KEY_SUFFIX;
-    public static final String OFFSET_KEY = INFORMATION_PREFIX + TrackSearchConfig.OFFSET_KEY_SUFFIX;
-    private static final String PAGING_INFORMATION = INFORMATION_PREFIX + "PagingToken";
     private static final String ADDITIONAL_PAGING_KEY = "continuation";
 
     private static final Set<String> VALID_URL_PREFIXES = Set.of(URL); // TODO: Extend
@@ -57,15 +65,15 @@ public class YouTubeClient implements SearchClient<YouTubeTrack> {
 
         final Retrofit base = new Retrofit.Builder()
                 .baseUrl(URL)
-                .client(OK_HTTP_CLIENT)
+                .client(okHttpClient(TrackSource.Youtube))
                 .addConverterFactory(ResponseProviderFactory.create())
                 .build();
 
         api = base.create(YouTubeAPI.class);
     }
 
-    public static Map<String, String> makeQueryInformation(final String query, final String pagingToken) {
-        return new HashMap<>(Map.of(TrackList.QUERY_KEY, query, PAGING_INFORMATION, pagingToken));
+    public static Map<String, String> makeQueryInformation(final String query) {
+        return new HashMap<>(Map.of(TrackList.QUERY_KEY, query));
     }
 
     @Override
@@ -78,22 +86,69 @@ public class YouTubeClient implements SearchClient<YouTubeTrack> {
         if (!isApplicableForURL(url))
             throw new YouTubeException(String.format("%s not applicable for URL: %s", this.getClass().getSimpleName(), url));
 
-        final String trackJSON = request(api.getForUrlWithParams(url, Map.of())).contentOrThrow();
-        return YouTubeUtility.extractYouTubeTrack(trackJSON);
+        final String trackId = CanonicalTrackId.of(TrackSource.Youtube, url);
+        UnavailableTracks.failFast(trackId, YouTubeException::new);
+
+        return JfrEvents.getTrack(TrackSource.Youtube.name(), url, () -> {
+            final String trackJSON = UnavailableTracks.contentOrThrow(trackId, request(api.getForUrlWithParams(url, Map.of())));
+            return UnavailableTracks.extract(trackId, YouTubeException::new, () -> YouTubeUtility.extractYouTubeTrack(trackJSON));
+        });
     }
 
     private GenericTrackList<YouTubeTrack> getTracksForSearch(@NonNull final String search, @NonNull final Map<String, String> params, QueryType queryType)
             throws TrackSearchException {
 
-        final String tracksJSON = request(api.getSearchForKeywords(search, params)).contentOrThrow();
-        return YouTubeUtility.extractYouTubeTracks(tracksJSON, queryType, search, this::provideNext);
+        return JfrEvents.search(TrackSource.Youtube.name(), queryType, search, 1, () -> {
+            final String tracksJSON = request(api.getSearchForKeywords(search, params)).contentOrThrow();
+            return SearchResults.offer(YouTubeUtility.extractYouTubeTracks(tracksJSON, queryType, search, this::provideNext));
+        });
     }
 
     @Override
     public TrackList<YouTubeTrack> getTracksForSearch(@NonNull final String search) throws TrackSearchException {
-        final TrackList<YouTubeTrack> trackList = getTracksForSearch(search, Map.of(), QueryType.SEARCH);
-        trackList.addQueryInformationValue(POSITION_KEY, 0);
-        return trackList;
+        return cached("youtube:search:" + search, () -> getTracksForSearch(search, Map.of(), QueryType.SEARCH));
+    }
+
+    @Override
+    public TrackList<YouTubeTrack> getTracksForSearch(@NonNull final String search, final int pages) throws TrackSearchException {
+        if (pages < 1)
+            throw new YouTubeException("Provide at least one page");
+
+        return JfrEvents.search(TrackSource.Youtube.name(), QueryType.SEARCH, search, pages, () -> SearchResults.offer(getTracksForPages(search, pages)));
+    }
+
+    private GenericTrackList<YouTubeTrack> getTracksForPages(final String search, final int pages) throws TrackSearchException {
+        final List<YouTubeTrack> tracks = new ArrayList<>();
+        String cToken = null;
+        String tracksHTML = request(api.getSearchForKeywords(search, Map.of())).contentOrThrow();
+
+        for (int page = 0; page < pages; page++) {
+            final JsonElement rootElement = YouTubeUtility.readYouTubeTracksJson(tracksHTML);
+            cToken = YouTubeUtility.extractCToken(rootElement);
+
+            // Continuation is token based, request the next page while this one gets parsed
+            final CompletableFuture<ResponseWrapper> nextPage = page + 1 < pages && cToken != null ?
+                    requestAsync(search, cToken) : null;
+
+            final QueryType queryType = page == 0 ? QueryType.SEARCH : QueryType.PAGING;
+            tracks.addAll(YouTubeUtility.extractYouTubeTracks(rootElement, cToken, queryType, search, this::provideNext));
+
+            if (nextPage == null)
+                break;
+
+            tracksHTML = nextPage.join().contentOrThrow();
+        }
+
+        final GenericTrackList<YouTubeTrack> trackList = GenericTrackList.using(QueryType.SEARCH, makeQueryInformation(search), this::provideNext)
+                .withDistinctTracks(tracks);
+
+        log.debug("Found {} YouTube Tracks on {} pages for: {}", trackList.size(), pages, search);
+        return trackList.withCursor(new YouTubeCursor(search, 0, trackList.size(), cToken));
+    }
+
+    private CompletableFuture<ResponseWrapper> requestAsync(final String search, final String cToken) {
+        final Map<String, String> pagingParams = getPagingParams(cToken);
+        return CompletableFuture.supplyAsync(() -> request(api.getSearchForKeywords(search, pagingParams)), SharedExecutor.WORKER);
     }
 
     @Override
@@ -102,22 +157,30 @@ public class YouTubeClient implements SearchClient<YouTubeTrack> {
 
         final QueryType trackListQueryType = trackList.getQueryType();
         if (trackListQueryType.equals(QueryType.SEARCH) || trackListQueryType.equals(QueryType.PAGING)) {
-            final Map<String, String> paginParams = getPagingParams(trackList.getQueryInformation());
+            final YouTubeCursor cursor = PagingCursor.of(trackList, YouTubeCursor.class);
+            final Map<String, String> paginParams = getPagingParams(cursor.continuationToken());
 
-            final GenericTrackList<YouTubeTrack> nextTracksForSearch = getTracksForSearch(trackList.getQueryValue(), paginParams, QueryType.PAGING);
-            return nextTracksForSearch.updatePagingValues(trackList, POSITION_KEY, OFFSET_KEY);
+            final GenericTrackList<YouTubeTrack> nextTracksForSearch = cached("youtube:next:" + cursor.continuationToken(),
+                    () -> getTracksForSearch(cursor.query(), paginParams, QueryType.PAGING));
+            final YouTubeCursor nextCursor = PagingCursor.of(nextTracksForSearch, YouTubeCursor.class);
+            return nextTracksForSearch.withCursor(nextCursor.startingAt(cursor.offset()));
         }
         throw unsupportedQueryTypeException(YouTubeException::new, trackListQueryType);
     }
 
-    private Map<String, String> getPagingParams(final Map<String, String> queryInformation) {
-        final String pagingToken = queryInformation.get(PAGING_INFORMATION);
+    private Map<String, String> getPagingParams(final String pagingToken) {
         return Map.of(PAGING_KEY, pagingToken, ADDITIONAL_PAGING_KEY, pagingToken);
     }
 
+    @Override
+    public CompletableFuture<Void> warmUp() {
+        return CompletableFuture.runAsync(YouTubeUtility::warmUp, SharedExecutor.WORKER);
+    }
+
     @Override
     public boolean hasPagingValues(@NonNull final TrackList<? extends Track> trackList) {
-        return trackList.hasQueryInformation(POSITION_KEY, OFFSET_KEY, PAGING_INFORMATION);
+        final YouTubeCursor cursor = PagingCursor.of(trackList, YouTubeCursor.class);
+        return cursor != null && cursor.continuationToken() != null && !cursor.continuationToken().isEmpty();
     }
 
     @Override
@@ -17,13 +17,20 @@
 package io.sfrei.tracksearch.clients.youtube;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sfrei.tracksearch.clients.TrackSource;
 import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.exceptions.TrackUnavailableException;
 import io.sfrei.tracksearch.exceptions.YouTubeException;
+import io.sfrei.tracksearch.metrics.Metrics;
+import io.sfrei.tracksearch.metrics.jfr.HtmlExtractionEvent;
+import io.sfrei.tracksearch.metrics.jfr.JfrEvents;
 import io.sfrei.tracksearch.tracks.GenericTrackList;
 import io.sfrei.tracksearch.tracks.TrackListProvider;
 import io.sfrei.tracksearch.tracks.YouTubeTrack;
 import io.sfrei.tracksearch.tracks.deserializer.youtube.YouTubeListTrackDeserializer;
 import io.sfrei.tracksearch.tracks.deserializer.youtube.YouTubeURLTrackDeserializer;
+import io.sfrei.tracksearch.tracks.paging.YouTubeCursor;
 import io.sfrei.tracksearch.utils.ObjectMapperBuilder;
 import io.sfrei.tracksearch.utils.json.JsonElement;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +41,7 @@ import org.jsoup.nodes.Element;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,45 +50,102 @@ public final class YouTubeUtility {
     public static final String VAR_YT_INITIAL_DATA = "var ytInitialData =";
     public static final String VAR_YT_INITIAL_PLAYER_RESPONSE = "var ytInitialPlayerResponse =";
 
+    // Playability of deleted, private, blocked or otherwise gone videos, other states like a sign-in may be temporary
+    private static final Set<String> UNAVAILABLE_STATUSES = Set.of("ERROR", "UNPLAYABLE");
+
     private static final ObjectMapper MAPPER = ObjectMapperBuilder.create()
             .addDeserializer(YouTubeTrack.ListYouTubeTrackBuilder.class, new YouTubeListTrackDeserializer())
             .addDeserializer(YouTubeTrack.URLYouTubeTrackBuilder.class, new YouTubeURLTrackDeserializer())
             .get();
 
+    /**
+     * Build the mapper and load the parser classes which is otherwise done by the first extraction.
+     */
+    static void warmUp() {
+        Jsoup.parse("<html><body><script nonce=\"warm-up\">var warmUp = {};</script></body></html>").select("script[nonce]");
+        JsonElement.readTreeCatching(MAPPER, "{\"warmUp\":[]}");
+    }
+
     private static String extractJsonFromHtml(String html, String varType) throws YouTubeException {
+        final HtmlExtractionEvent event = JfrEvents.enabled() ? new HtmlExtractionEvent() : null;
+        if (event != null)
+            event.begin();
+
         final Document document = Jsoup.parse(html);
-        return document.select("script[nonce]").stream()
+        final String json = document.select("script[nonce]").stream()
                 .map(Element::data)
                 .filter(data -> data.startsWith(varType))
                 .findFirst()
                 .map(scriptContent -> scriptContent.replaceFirst(varType, ""))
                 .map(scriptContent -> scriptContent.substring(0, scriptContent.lastIndexOf("}") + 1))
-                .orElseThrow(() -> new YouTubeException("Could not extract JSON data from HTML"));
+                .orElse(null);
+
+        if (event != null && event.shouldCommit()) {
+            event.source = TrackSource.Youtube.name();
+            event.variable = varType;
+            event.htmlLength = html.length();
+            event.jsonLength = json == null ? 0 : json.length();
+            event.failed = json == null;
+            event.commit();
+        }
+
+        if (json == null)
+            throw new YouTubeException("Could not extract JSON data from HTML");
+
+        return json;
     }
 
     static YouTubeTrack extractYouTubeTrack(final String html)
-            throws YouTubeException {
+            throws TrackSearchException {
 
+        final long start = System.nanoTime();
         final String json = extractJsonFromHtml(html, VAR_YT_INITIAL_PLAYER_RESPONSE);
+        final long jsonStart = System.nanoTime();
+        Metrics.time(Metrics.HTML_EXTRACTION_TIME, TrackSource.Youtube, jsonStart - start);
+
         final JsonElement trackJsonElement = JsonElement.readTreeCatching(MAPPER, json)
                 .orElseThrow(() -> new YouTubeException("Cannot parse YouTubeTrack JSON"));
 
-        return trackJsonElement.mapCatching(MAPPER, YouTubeTrack.URLYouTubeTrackBuilder.class)
+        final String playability = trackJsonElement.asString("playabilityStatus", "status");
+        if (UNAVAILABLE_STATUSES.contains(playability)) {
+            final String reason = trackJsonElement.asString("playabilityStatus", "reason");
+            throw new TrackUnavailableException(reason == null ? playability : reason);
+        }
+
+        final YouTubeTrack track = trackJsonElement.mapCatching(MAPPER, YouTubeTrack.URLYouTubeTrackBuilder.class)
                 .getBuilder()
                 .build();
+
+        Metrics.timeSince(Metrics.JSON_EXTRACTION_TIME, TrackSource.Youtube, jsonStart);
+        Metrics.count(Metrics.TRACKS_PARSED, TrackSource.Youtube, 1);
+        return track;
     }
 
     static GenericTrackList<YouTubeTrack> extractYouTubeTracks(final String html, final QueryType queryType, final String query,
                                                                final TrackListProvider<YouTubeTrack> nextTrackListFunction)
             throws YouTubeException {
 
+        final JsonElement rootElement = readYouTubeTracksJson(html);
+        return extractYouTubeTracks(rootElement, extractCToken(rootElement), queryType, query, nextTrackListFunction);
+    }
+
+    static JsonElement readYouTubeTracksJson(final String html) throws YouTubeException {
+        final long start = System.nanoTime();
         final String json = extractJsonFromHtml(html, VAR_YT_INITIAL_DATA);
 
         final JsonElement rootElement = JsonElement.readTreeCatching(MAPPER, json)
                 .orElseThrow(() -> new YouTubeException("Cannot parse YouTubeTracks JSON"));
 
-        final JsonElement defaultElement = rootElement.asUnresolved()
-                .paths("contents", "twoColumnSearchResultsRenderer", "primaryContents", "sectionListRenderer", "contents");
+        Metrics.timeSince(Metrics.HTML_EXTRACTION_TIME, TrackSource.Youtube, start);
+        return rootElement;
+    }
+
+    static GenericTrackList<YouTubeTrack> extractYouTubeTracks(final JsonElement rootElement, final String cToken,
+                                                               final QueryType queryType, final String query,
+                                                               final TrackListProvider<YouTubeTrack> nextTrackListFunction) {
+
+        final long start = System.nanoTime();
+        final JsonElement defaultElement = defaultElement(rootElement);
 
         final JsonElement contentHolder = defaultElement
                 .lastForPath("itemSectionRenderer") // Avoid sponsored
@@ -103,10 +168,8 @@ public final class YouTubeUtility {
                 .firstElement()
                 .paths("itemSectionRenderer");
 
-        final String cToken = extractCToken(rootElement, defaultElement);
-
-        final JsonElement contents = contentHolder.asUnresolved().paths("contents");
-        final List<YouTubeTrack> ytTracks = contents.elements()
+        final List<JsonElement> contents = contentHolder.asUnresolved().paths("contents").elements().toList();
+        final List<YouTubeTrack> ytTracks = contents.stream()
                 .filter(content -> content.paths("videoRenderer", "upcomingEventData").isNull()) // Avoid premieres
                 .filter(content -> content.paths("promotedSparklesWebRenderer").isNull()) // Avoid ads
                 .map(content -> content.paths("videoRenderer").orElse(content).paths("searchPyvRenderer", "ads").firstElement().paths("promotedVideoRenderer"))
@@ -117,19 +180,28 @@ public final class YouTubeUtility {
                 .map(YouTubeTrack.YouTubeTrackBuilder::build)
                 .collect(Collectors.toList());
 
-        final Map<String, String> queryInformation = YouTubeClient.makeQueryInformation(query, cToken);
+        final int tracksSize = ytTracks.size();
+        final Map<String, String> queryInformation = YouTubeClient.makeQueryInformation(query);
         final GenericTrackList<YouTubeTrack> trackList = GenericTrackList.using(queryType, queryInformation, nextTrackListFunction)
-                .withTracks(ytTracks);
+                .withTracks(ytTracks)
+                .withCursor(new YouTubeCursor(query, 0, tracksSize, cToken));
 
-        int tracksSize = ytTracks.size();
-        trackList.addQueryInformationValue(YouTubeClient.OFFSET_KEY, tracksSize);
+        Metrics.timeSince(Metrics.JSON_EXTRACTION_TIME, TrackSource.Youtube, start);
+        Metrics.count(Metrics.TRACKS_PARSED, TrackSource.Youtube, tracksSize);
+        Metrics.count(Metrics.TRACKS_DROPPED, TrackSource.Youtube, contents.size() - tracksSize);
         log.debug("Found {} YouTube Tracks for {}: {}", tracksSize, queryType, query);
         return trackList;
     }
 
+    private static JsonElement defaultElement(final JsonElement rootElement) {
+        return rootElement.asUnresolved()
+                .paths("contents", "twoColumnSearchResultsRenderer", "primaryContents", "sectionListRenderer", "contents");
+    }
+
     // onResponseReceivedCommands[0].appendContinuationItemsAction.continuationItems[1].continuationItemRenderer.continuationEndpoint.continuationCommand.token
     // contents.twoColumnSearchResultsRenderer.primaryContents.sectionListRenderer.contents[1].continuationItemRenderer.continuationEndpoint.continuationCommand.token
-    private static String extractCToken(JsonElement rootElement, JsonElement defaultElement) {
+    static String extractCToken(final JsonElement rootElement) {
+        final JsonElement defaultElement = defaultElement(rootElement);
         final JsonElement continuationCommand = rootElement.asUnresolved()
                 .paths("onResponseReceivedCommands")
                 .firstElement()
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the result cache.
+ *
+ * @param heapEntries  the amount of track lists kept on the heap, the least recently used are dropped.
+ * @param directory    the directory of the disk tier, or null to cache on the heap only.
+ * @param segmentBytes the size of a segment file of the disk tier.
+ * @param maxSegments  the maximum amount of segment files, the oldest one is dropped with its entries.
+ * @param ttl          the time entries expire after, expired entries are acquired again while the caller waits.
+ * @param staleAfter   the time entries become stale after, stale entries are returned while one refresh per entry
+ *                     updates them in the background. Entries never become stale when null.
+ */
+public record CacheConfig(int heapEntries, Path directory, int segmentBytes, int maxSegments, Duration ttl,
+                          Duration staleAfter) {
+
+    public CacheConfig {
+        if (heapEntries < 1 || maxSegments < 2)
+            throw new IllegalArgumentException("Heap entries have to be at least 1 and max segments at least 2");
+        if (segmentBytes < 4096)
+            throw new IllegalArgumentException("Segments have to be at least 4096 bytes");
+        if (ttl == null || ttl.isNegative() || ttl.isZero())
+            throw new IllegalArgumentException("TTL has to be positive");
+        if (staleAfter != null && (staleAfter.isNegative() || staleAfter.compareTo(ttl) >= 0))
+            throw new IllegalArgumentException("Stale after has to be less than the TTL");
+    }
+
+    public static CacheConfig defaults() {
+        return new CacheConfig(256, null, 16 * 1024 * 1024, 16, Duration.ofMinutes(30), null);
+    }
+
+    /**
+     * Additionally keep the entries in memory mapped segment files, to hit entries dropped from the heap
+     * and to survive restarts.
+     *
+     * @param directory the directory of the segment files.
+     * @return the config with disk tier.
+     */
+    public CacheConfig withDirectory(Path directory) {
+        return new CacheConfig(heapEntries, directory, segmentBytes, maxSegments, ttl, staleAfter);
+    }
+
+    /**
+     * Serve entries older than the soft TTL while refreshing them in the background, until the TTL expires them.
+     *
+     * @param softTtl the time entries become stale after, less than the TTL.
+     * @return the config with stale-while-revalidate.
+     */
+    public CacheConfig withStaleWhileRevalidate(Duration softTtl) {
+        return new CacheConfig(heapEntries, directory, segmentBytes, maxSegments, ttl, softTtl);
+    }
+
+}
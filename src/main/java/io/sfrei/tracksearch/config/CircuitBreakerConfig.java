@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the circuit breaker used per source.
+ *
+ * @param failureRateThreshold  the ratio of failed calls opening the circuit.
+ * @param slowCallRateThreshold the ratio of slow calls opening the circuit.
+ * @param slowCallDuration      the duration a call is considered slow from.
+ * @param windowSize            the amount of last calls the ratios are calculated for.
+ * @param minimumCalls          the amount of calls required before the ratios are calculated.
+ * @param openDuration          the time the circuit stays open before probe calls are permitted.
+ * @param probeCalls            the amount of successful probe calls required to close the circuit again.
+ */
+public record CircuitBreakerConfig(double failureRateThreshold, double slowCallRateThreshold, Duration slowCallDuration,
+                                   int windowSize, int minimumCalls, Duration openDuration, int probeCalls) {
+
+    public CircuitBreakerConfig {
+        if (windowSize < 1 || minimumCalls < 1 || probeCalls < 1)
+            throw new IllegalArgumentException("Window size, minimum calls and probe calls have to be at least 1");
+        if (minimumCalls > windowSize)
+            throw new IllegalArgumentException("Minimum calls cannot exceed the window size");
+    }
+
+    public static CircuitBreakerConfig defaults() {
+        return new CircuitBreakerConfig(0.5, 0.8, Duration.ofSeconds(10), 20, 5, Duration.ofSeconds(30), 2);
+    }
+
+}
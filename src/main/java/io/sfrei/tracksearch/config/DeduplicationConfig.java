@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.config;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the duplicate elimination of track lists.
+ *
+ * @param maxSeen           the maximum amount of tracks remembered across pages, the oldest are forgotten first.
+ * @param nearDuplicates    whether tracks with a similar title and duration are dropped as well, also across sources.
+ * @param maxTitleDistance  the maximum amount of differing bits of the title fingerprints of near duplicates, 0 to 3.
+ * @param durationTolerance the duration rounding, durations in the same or a neighbouring step are similar.
+ */
+public record DeduplicationConfig(int maxSeen, boolean nearDuplicates, int maxTitleDistance, Duration durationTolerance) {
+
+    public DeduplicationConfig {
+        if (maxSeen < 1)
+            throw new IllegalArgumentException("At least one track has to be remembered");
+        if (maxTitleDistance < 0 || maxTitleDistance > 3)
+            throw new IllegalArgumentException("Title distance has to be between 0 and 3");
+        if (durationTolerance.toSeconds() < 1)
+            throw new IllegalArgumentException("Duration tolerance has to be at least one second");
+    }
+
+    public static DeduplicationConfig defaults() {
+        return new DeduplicationConfig(1000, false, 3, Duration.ofSeconds(5));
+    }
+
+    public DeduplicationConfig withNearDuplicates() {
+        return new DeduplicationConfig(maxSeen, true, maxTitleDistance, durationTolerance);
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.config;
+
+import java.time.Duration;
+
+/**
+ * Policy for hedged requests, sending a duplicate request when the first one did not answer
+ * within the observed 95th percentile latency of the source.
+ *
+ * @param maxRatio the maximum ratio of hedged requests to all requests.
+ * @param minDelay the minimum delay before hedging.
+ */
+public record HedgePolicy(double maxRatio, Duration minDelay) {
+
+    public static HedgePolicy defaults() {
+        return new HedgePolicy(0.05, Duration.ofMillis(50));
+    }
+
+}
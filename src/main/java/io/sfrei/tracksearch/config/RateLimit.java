@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.config;
+
+/**
+ * Rate limit for requests to a single source.
+ *
+ * @param permitsPerSecond the maximum amount of requests per second.
+ * @param burst            the amount of requests allowed at once after being idle.
+ * @param adaptive         lower the rate when the source throttles (HTTP 429/503) and slowly raise it again.
+ */
+public record RateLimit(double permitsPerSecond, int burst, boolean adaptive) {
+
+    public RateLimit {
+        if (permitsPerSecond <= 0)
+            throw new IllegalArgumentException("Permits per second have to be greater than 0");
+        if (burst < 1)
+            throw new IllegalArgumentException("Burst has to be at least 1");
+    }
+
+    public static RateLimit of(double permitsPerSecond, int burst) {
+        return new RateLimit(permitsPerSecond, burst, false);
+    }
+
+    public static RateLimit adaptive(double permitsPerSecond, int burst) {
+        return new RateLimit(permitsPerSecond, burst, true);
+    }
+
+}
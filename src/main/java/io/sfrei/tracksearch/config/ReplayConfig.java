@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Configuration of recording HTTP exchanges to files and replaying them instead of making requests.
+ *
+ * @param mode      the replay mode.
+ * @param directory the directory the recordings are stored in.
+ * @param latency   the artificial latency added to every replayed response.
+ * @param jitter    the maximum random latency added on top.
+ */
+public record ReplayConfig(Mode mode, Path directory, Duration latency, Duration jitter) {
+
+    public static final String MODE_PROPERTY = "tracksearch.replay";
+    public static final String DIRECTORY_PROPERTY = "tracksearch.replay.dir";
+    public static final String LATENCY_PROPERTY = "tracksearch.replay.latency";
+    public static final String JITTER_PROPERTY = "tracksearch.replay.jitter";
+
+    public enum Mode {
+        /**
+         * Make requests, nothing is recorded.
+         */
+        OFF,
+        /**
+         * Make requests and record the exchanges.
+         */
+        RECORD,
+        /**
+         * Replay the recorded exchanges, requests without recording fail.
+         */
+        REPLAY
+    }
+
+    public static ReplayConfig off() {
+        return new ReplayConfig(Mode.OFF, Path.of("replay"), Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Read the configuration from the system properties {@value MODE_PROPERTY} (off, record, replay),
+     * {@value DIRECTORY_PROPERTY}, {@value LATENCY_PROPERTY} and {@value JITTER_PROPERTY} (milliseconds).
+     *
+     * @return the configuration, replay is off when no mode is set.
+     */
+    public static ReplayConfig fromSystemProperties() {
+        final String mode = System.getProperty(MODE_PROPERTY);
+        if (mode == null || mode.isBlank())
+            return off();
+
+        return new ReplayConfig(
+                Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)),
+                Path.of(System.getProperty(DIRECTORY_PROPERTY, "replay")),
+                Duration.ofMillis(Long.getLong(LATENCY_PROPERTY, 0L)),
+                Duration.ofMillis(Long.getLong(JITTER_PROPERTY, 0L))
+        );
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.config;
+
+import java.time.Duration;
+
+/**
+ * Retry policy for requests to a single source. Requests are retried on HTTP 429 and 5xx responses and on
+ * transient IO errors with exponential backoff and jitter, honoring the {@code Retry-After} header.
+ *
+ * @param maxRetries     the maximum amount of retries for a single request.
+ * @param initialBackoff the backoff before the first retry, doubled for every further retry.
+ * @param maxBackoff     the maximum backoff, also the maximum accepted {@code Retry-After}.
+ * @param budgetRatio    the ratio of retries to requests allowed, e.g. 0.1 allows 10% additional load by retries.
+ */
+public record RetryPolicy(int maxRetries, Duration initialBackoff, Duration maxBackoff, double budgetRatio) {
+
+    public RetryPolicy {
+        if (maxRetries < 0)
+            throw new IllegalArgumentException("Max retries cannot be negative");
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0)
+            throw new IllegalArgumentException("Backoff has to be positive and max backoff at least the initial backoff");
+        if (budgetRatio < 0)
+            throw new IllegalArgumentException("Budget ratio cannot be negative");
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(2, Duration.ofMillis(200), Duration.ofSeconds(5), 0.1);
+    }
+
+    public static RetryPolicy none() {
+        return new RetryPolicy(0, Duration.ZERO, Duration.ZERO, 0);
+    }
+
+}
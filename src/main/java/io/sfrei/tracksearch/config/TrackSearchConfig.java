@@ -16,11 +16,119 @@
 
 package io.sfrei.tracksearch.config;
 
-public final class TrackSearchConfig {
+import io.sfrei.tracksearch.cache.NegativeTrackCache;
+import io.sfrei.tracksearch.cache.TrackListCache;
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.metrics.CallTiming;
+import io.sfrei.tracksearch.metrics.MetricsRecorder;
+import io.sfrei.tracksearch.suggest.SuggestionIndex;
+import io.sfrei.tracksearch.tracks.index.TrackIndex;
+import io.sfrei.tracksearch.tracks.merge.MergeStrategy;
+import io.sfrei.tracksearch.tracks.merge.RelevanceMergeStrategy;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
 
-    public static final String POSITION_KEY_SUFFIX = "Position";
-    public static final String OFFSET_KEY_SUFFIX = "Offset";
+public final class TrackSearchConfig {
 
     public static Integer playListOffset = 20;
 
+    public static Integer prefetchDepth = 1;
+
+    public static Duration prefetchExpiry = Duration.ofMinutes(2);
+
+    public static Integer batchMaxInFlight = 16;
+
+    public static Integer batchMaxInFlightPerSource = 4;
+
+    /**
+     * Rate limits per source, sources without rate limit are not limited.
+     */
+    public static final Map<TrackSource, RateLimit> rateLimits = new EnumMap<>(TrackSource.class);
+
+    /**
+     * Retry policies per source, sources without retry policy are not retried, e.g.
+     * {@code retryPolicies.put(TrackSource.Youtube, RetryPolicy.defaults())}. Empty by default.
+     */
+    public static final Map<TrackSource, RetryPolicy> retryPolicies = new EnumMap<>(TrackSource.class);
+
+    /**
+     * Overall deadline of a request including all retries and rate limit waits, read once when the shared client
+     * is created. No deadline when zero, the default.
+     */
+    public static Duration callTimeout = Duration.ZERO;
+
+    /**
+     * Circuit breaker used per source by the multi search client, read once when the client is created.
+     */
+    public static CircuitBreakerConfig circuitBreaker = CircuitBreakerConfig.defaults();
+
+    /**
+     * Hedging of track requests and first page searches by the multi search client, disabled when null.
+     * Read once when the client is created.
+     */
+    public static HedgePolicy hedgePolicy = null;
+
+    /**
+     * Recorder the metrics are reported to, by default metrics are not recorded.
+     */
+    public static MetricsRecorder metricsRecorder = MetricsRecorder.NOOP;
+
+    /**
+     * Listener receiving the network timing breakdown of every HTTP call, disabled when null.
+     * Read when a call starts.
+     */
+    public static Consumer<CallTiming> callTimingListener = null;
+
+    /**
+     * Recording and replaying of HTTP exchanges, read from the system properties by default.
+     */
+    public static ReplayConfig replay = ReplayConfig.fromSystemProperties();
+
+    /**
+     * Base URL all requests are sent to instead of the sources, keeping path and query, e.g. a local stand-in server
+     * for load tests. The original host is passed in the {@code X-Forwarded-Host} header, plain HTTP is allowed.
+     * Disabled when null, read once when the shared client is created.
+     */
+    public static String endpointOverride = null;
+
+    /**
+     * Strategy ordering the results of multiple sources on a page of the multi search client, read on every merge.
+     * Available are {@link MergeStrategy#CONCATENATE}, {@link MergeStrategy#ROUND_ROBIN} and {@link RelevanceMergeStrategy}.
+     */
+    public static MergeStrategy mergeStrategy = MergeStrategy.CONCATENATE;
+
+    /**
+     * Duplicate elimination within merged pages and across the next pages of a track list, e.g.
+     * {@code DeduplicationConfig.defaults()}. Disabled when null, read when a merged page or the first next page of a
+     * track list is created.
+     */
+    public static DeduplicationConfig deduplication = null;
+
+    /**
+     * Index of the tracks of all search results, used to search locally without requesting the sources, e.g.
+     * {@code new TrackIndex(1_000_000)}. Disabled when null, read on every search.
+     */
+    public static TrackIndex localIndex = null;
+
+    /**
+     * Suggestions from the queries and the clean titles of all search results, e.g. {@code new SuggestionIndex(100_000)}.
+     * Disabled when null, read on every search.
+     */
+    public static SuggestionIndex suggestions = null;
+
+    /**
+     * Cache of the first and next pages of searches, e.g. {@code TrackListCache.open(CacheConfig.defaults())}.
+     * Disabled when null, read on every search.
+     */
+    public static TrackListCache resultCache = null;
+
+    /**
+     * Tracks confirmed to be unavailable, failing getting them again without requests, e.g.
+     * {@code new NegativeTrackCache(Duration.ofHours(6), 10_000)}. Disabled when null, read on every get of a track.
+     */
+    public static NegativeTrackCache negativeCache = null;
+
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.exceptions;
+
+/**
+ * The source states that a track is unavailable, e.g. deleted or private. Thrown by the extraction of track pages,
+ * clients rethrow it as the exception of the source.
+ */
+public class TrackUnavailableException extends TrackSearchException {
+
+    public TrackUnavailableException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics;
+
+import java.time.Duration;
+
+/**
+ * Network timing breakdown of a single HTTP call. Phases which did not happen, e.g. DNS and connect
+ * for a reused connection, are {@link Duration#ZERO}. When a call is retried, the phases are summed up.
+ *
+ * @param url              the requested URL.
+ * @param dns              the time resolving the host.
+ * @param connect          the time establishing the connection, including TLS.
+ * @param tls              the time of the TLS handshake.
+ * @param timeToFirstByte  the time from sending the request until the response headers arrived.
+ * @param bodyRead         the time reading the response body.
+ * @param total            the time of the whole call.
+ * @param connectionReused whether the call was made on a pooled connection.
+ * @param failed           whether the call failed with an IO error.
+ */
+public record CallTiming(String url, Duration dns, Duration connect, Duration tls, Duration timeToFirstByte,
+                         Duration bodyRead, Duration total, boolean connectionReused, boolean failed) {
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records metrics with the {@link MetricsRecorder} set in {@link TrackSearchConfig#metricsRecorder}.
+ * Failures of the recorder are logged and never affect the caller.
+ */
+@Slf4j
+public final class Metrics {
+
+    /**
+     * Timer of a request including rate limiting and retries.
+     */
+    public static final String REQUEST_LATENCY = "tracksearch.request.latency";
+
+    /**
+     * Histogram of the response body bytes read per request.
+     */
+    public static final String REQUEST_BYTES = "tracksearch.request.bytes";
+
+    /**
+     * Counter of requests failing with an IO error or an unsuccessful HTTP code.
+     */
+    public static final String REQUEST_FAILURES = "tracksearch.request.failures";
+
+    /**
+     * Counter of retried requests.
+     */
+    public static final String REQUEST_RETRIES = "tracksearch.request.retries";
+
+    /**
+     * Timer of extracting the embedded data from HTML.
+     */
+    public static final String HTML_EXTRACTION_TIME = "tracksearch.extraction.html.time";
+
+    /**
+     * Timer of extracting tracks from JSON.
+     */
+    public static final String JSON_EXTRACTION_TIME = "tracksearch.extraction.json.time";
+
+    /**
+     * Counter of tracks parsed from responses.
+     */
+    public static final String TRACKS_PARSED = "tracksearch.tracks.parsed";
+
+    /**
+     * Counter of track candidates dropped by filters or failed parsing.
+     */
+    public static final String TRACKS_DROPPED = "tracksearch.tracks.dropped";
+
+    /**
+     * Counter of duplicate tracks dropped from track lists.
+     */
+    public static final String DUPLICATES_DROPPED = "tracksearch.tracks.duplicates";
+
+    /**
+     * Counter of SoundCloud client_id refreshes.
+     */
+    public static final String CLIENT_ID_REFRESHES = "tracksearch.clientid.refreshes";
+
+    /**
+     * Timer of merging the track lists of multiple sources.
+     */
+    public static final String MERGE_TIME = "tracksearch.merge.time";
+
+    /**
+     * Timer of tasks waiting in the shared executor before running.
+     */
+    public static final String EXECUTOR_QUEUE_TIME = "tracksearch.executor.queue.time";
+
+    private Metrics() {
+    }
+
+    private static MetricsRecorder recorder() {
+        final MetricsRecorder recorder = TrackSearchConfig.metricsRecorder;
+        return recorder == null ? MetricsRecorder.NOOP : recorder;
+    }
+
+    public static void count(final String name, final TrackSource source, final long amount) {
+        try {
+            recorder().count(name, source, amount);
+        } catch (RuntimeException e) {
+            log.warn("Failed recording counter: {}", name, e);
+        }
+    }
+
+    public static void time(final String name, final TrackSource source, final long nanos) {
+        try {
+            recorder().time(name, source, nanos);
+        } catch (RuntimeException e) {
+            log.warn("Failed recording timer: {}", name, e);
+        }
+    }
+
+    /**
+     * Record the time passed since the start.
+     *
+     * @param name       the name of the timer.
+     * @param source     the source or null.
+     * @param startNanos the start from {@link System#nanoTime()}.
+     */
+    public static void timeSince(final String name, final TrackSource source, final long startNanos) {
+        time(name, source, System.nanoTime() - startNanos);
+    }
+
+    public static void record(final String name, final TrackSource source, final long value) {
+        try {
+            recorder().record(name, source, value);
+        } catch (RuntimeException e) {
+            log.warn("Failed recording histogram: {}", name, e);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+
+/**
+ * Service provider interface to bind the metrics of TrackSearch to any metrics system.
+ * Set the implementation with {@link io.sfrei.tracksearch.config.TrackSearchConfig#metricsRecorder}.
+ * All methods are called on the hot path, so implementations should return fast and must be thread safe.
+ * The names are listed in {@link Metrics}, the source is null for metrics not related to a single source.
+ */
+public interface MetricsRecorder {
+
+    MetricsRecorder NOOP = new MetricsRecorder() {
+    };
+
+    /**
+     * Increment a counter.
+     *
+     * @param name   the name of the counter.
+     * @param source the source or null.
+     * @param amount the amount to increment.
+     */
+    default void count(String name, TrackSource source, long amount) {
+    }
+
+    /**
+     * Record a duration.
+     *
+     * @param name   the name of the timer.
+     * @param source the source or null.
+     * @param nanos  the duration in nanoseconds.
+     */
+    default void time(String name, TrackSource source, long nanos) {
+    }
+
+    /**
+     * Record a value of a distribution.
+     *
+     * @param name   the name of the histogram.
+     * @param source the source or null.
+     * @param value  the value.
+     */
+    default void record(String name, TrackSource source, long value) {
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Refresh of the SoundCloud client_id by scanning the scripts of the start page.
+ */
+@Name("io.sfrei.tracksearch.ClientIdRefresh")
+@Label("ClientID Refresh")
+@Category("TrackSearch")
+@Description("Refresh the SoundCloud client_id")
+@StackTrace(false)
+public final class ClientIdRefreshEvent extends Event {
+
+    @Label("Scripts")
+    @Description("Amount of scripts requested to find the client_id")
+    public int scripts;
+
+    @Label("Failed")
+    public boolean failed;
+
+}
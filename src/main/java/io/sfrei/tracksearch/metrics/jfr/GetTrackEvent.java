@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics.jfr;
+
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.Track;
+import jdk.jfr.*;
+
+/**
+ * Getting a single track by URL including requests and parsing.
+ */
+@Name("io.sfrei.tracksearch.GetTrack")
+@Label("Get Track")
+@Category("TrackSearch")
+@Description("Get a track for an URL")
+@StackTrace(false)
+public final class GetTrackEvent extends Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Failed")
+    public boolean failed;
+
+    public static <T extends Track> T record(final String source, final String url, final TrackSearchCallable<T> call)
+            throws TrackSearchException {
+
+        final GetTrackEvent event = new GetTrackEvent();
+        event.begin();
+        T track = null;
+        try {
+            track = call.call();
+            return track;
+        } finally {
+            if (event.shouldCommit()) {
+                event.source = source;
+                event.url = url;
+                event.failed = track == null;
+                event.commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Extraction of the JSON embedded in a HTML page.
+ */
+@Name("io.sfrei.tracksearch.HtmlExtraction")
+@Label("HTML Extraction")
+@Category("TrackSearch")
+@Description("Extract the JSON embedded in HTML")
+@StackTrace(false)
+public final class HtmlExtractionEvent extends Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Variable")
+    public String variable;
+
+    @Label("HTML Length")
+    @Description("Length of the HTML in characters")
+    @DataAmount
+    public long htmlLength;
+
+    @Label("JSON Length")
+    @Description("Length of the extracted JSON in characters")
+    @DataAmount
+    public long jsonLength;
+
+    @Label("Failed")
+    public boolean failed;
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics.jfr;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import jdk.jfr.FlightRecorder;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Entry point to record the events. Loading an event class initializes parts of JFR which takes hundreds of
+ * milliseconds on startup, so events are only created once the flight recorder is initialized.
+ */
+@UtilityClass
+public class JfrEvents {
+
+    /**
+     * Check if events should be created.
+     *
+     * @return true when the flight recorder was initialized, e.g. by starting a recording.
+     */
+    public boolean enabled() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Record a search or paging request with a {@link SearchEvent} when enabled.
+     */
+    public <L extends TrackList<?>> L search(final String source, final QueryType queryType, final String query,
+                                             final int pages, final TrackSearchCallable<L> call)
+            throws TrackSearchException {
+
+        return enabled() ? SearchEvent.record(source, queryType, query, pages, call) : call.call();
+    }
+
+    /**
+     * Record getting a track with a {@link GetTrackEvent} when enabled.
+     */
+    public <T extends Track> T getTrack(final String source, final String url, final TrackSearchCallable<T> call)
+            throws TrackSearchException {
+
+        return enabled() ? GetTrackEvent.record(source, url, call) : call.call();
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * HTTP request made through the shared client including rate limiting and retries.
+ */
+@Name("io.sfrei.tracksearch.Request")
+@Label("Request")
+@Category("TrackSearch")
+@Description("HTTP request to a source")
+@StackTrace(false)
+public final class RequestEvent extends Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("HTTP Code")
+    public int code;
+
+    @Label("Content Length")
+    @Description("Length of the response content in characters")
+    @DataAmount
+    public long contentLength;
+
+    @Label("Failed")
+    public boolean failed;
+
+}
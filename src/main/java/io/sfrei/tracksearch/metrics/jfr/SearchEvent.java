@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics.jfr;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.TrackList;
+import jdk.jfr.*;
+
+/**
+ * Search or paging request of a client including requests and parsing.
+ * Getting the next page of a track list is recorded with query type {@link QueryType#PAGING}.
+ */
+@Name("io.sfrei.tracksearch.Search")
+@Label("Search")
+@Category("TrackSearch")
+@Description("Search for tracks or get the next page of a track list")
+@StackTrace(false)
+public final class SearchEvent extends Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Query Type")
+    public String queryType;
+
+    @Label("Query")
+    public String query;
+
+    @Label("Pages")
+    public int pages;
+
+    @Label("Tracks")
+    public int tracks;
+
+    @Label("Failed")
+    public boolean failed;
+
+    public static <L extends TrackList<?>> L record(final String source, final QueryType queryType, final String query,
+                                                    final int pages, final TrackSearchCallable<L> call)
+            throws TrackSearchException {
+
+        final SearchEvent event = new SearchEvent();
+        event.begin();
+        L trackList = null;
+        try {
+            trackList = call.call();
+            return trackList;
+        } finally {
+            if (event.shouldCommit()) {
+                event.source = source;
+                event.queryType = queryType.name();
+                event.query = query;
+                event.pages = pages;
+                event.tracks = trackList == null ? 0 : trackList.size();
+                event.failed = trackList == null;
+                event.commit();
+            }
+        }
+    }
+
+}
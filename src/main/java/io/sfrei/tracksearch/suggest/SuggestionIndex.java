@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.suggest;
+
+import io.sfrei.tracksearch.utils.BinaryReader;
+import io.sfrei.tracksearch.utils.BinaryWriter;
+import io.sfrei.tracksearch.utils.TitleTokenizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Suggests completions for the prefix typed into a search box, from past queries and the clean titles of seen tracks.
+ * Entries are normalized to their lower case tokens separated by a space and weighted by how often they were seen,
+ * queries weigh more than titles.
+ * <p>
+ * Entries are kept in a radix trie where every node knows the highest weight below it, so the top completions are
+ * found best-first, visiting only the nodes leading to them. When there are more than the configured amount of
+ * entries, the lightest quarter is dropped, of equal ones those seen longest ago, and the weights of the rest are
+ * halved, so old entries fade.
+ * The index is written to a file with front coded entries, reading it rebuilds the trie in one pass.
+ */
+public class SuggestionIndex {
+
+    public static final byte VERSION = 1;
+
+    static final int QUERY_WEIGHT = 3;
+    static final int TITLE_WEIGHT = 1;
+    static final int MAX_LENGTH = 80;
+
+    private static final byte MAGIC_FIRST = 'T';
+    private static final byte MAGIC_SECOND = 'S';
+    private static final byte TYPE_SUGGESTIONS = 3;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    // A node sorts before its entries as its key is their prefix, so the entries come out by weight and then key
+    private static final Comparator<Item> BY_WEIGHT = Comparator.comparingInt(Item::weight).reversed()
+            .thenComparing(Item::key)
+            .thenComparing(Item::entry, Comparator.reverseOrder());
+
+    private final int maxEntries;
+
+    private Node root = new Node("");
+
+    private int size;
+
+    private int sequence; // Orders the entries by when they were seen last
+
+    public SuggestionIndex(final int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Max entries must be at least 1");
+
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Record a query searched for.
+     *
+     * @param query the query.
+     */
+    public synchronized void recordQuery(final String query) {
+        add(normalize(query), QUERY_WEIGHT);
+    }
+
+    /**
+     * Record the clean title of a seen track.
+     *
+     * @param title the clean title.
+     */
+    public synchronized void recordTitle(final String title) {
+        add(normalize(title), TITLE_WEIGHT);
+    }
+
+    /**
+     * Get the heaviest entries starting with the prefix. A prefix ending with a separator, like "artist ",
+     * only completes entries continuing with another token.
+     *
+     * @param prefix the typed prefix.
+     * @param limit  the maximum amount of suggestions.
+     * @return the suggestions, the heaviest first.
+     */
+    public synchronized List<String> suggest(final String prefix, final int limit) {
+        if (prefix == null || limit < 1)
+            return List.of();
+
+        final String key = normalizePrefix(prefix);
+        final StringBuilder path = new StringBuilder(MAX_LENGTH);
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            node = node.child(key.charAt(position));
+            if (node == null)
+                return List.of();
+
+            final int length = Math.min(node.label.length(), key.length() - position);
+            if (!key.regionMatches(position, node.label, 0, length))
+                return List.of();
+
+            path.append(node.label);
+            position += node.label.length();
+        }
+
+        final List<String> suggestions = new ArrayList<>(limit);
+        final PriorityQueue<Item> queue = new PriorityQueue<>(BY_WEIGHT);
+        queue.add(new Item(node, path.toString(), node.maxWeight, false));
+        while (!queue.isEmpty() && suggestions.size() < limit) {
+            final Item item = queue.poll();
+            if (item.entry()) {
+                suggestions.add(item.key());
+                continue;
+            }
+
+            final Node current = item.node();
+            if (current.weight > 0)
+                queue.add(new Item(current, item.key(), current.weight, true));
+            for (final Node child : current.children)
+                queue.add(new Item(child, item.key() + child.label, child.maxWeight, false));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Get the amount of entries.
+     *
+     * @return the amount of entries.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Write the index to a file, replacing it atomically.
+     *
+     * @param file the file.
+     * @throws IOException when the file cannot be written.
+     */
+    public void writeTo(final Path file) throws IOException {
+        final BinaryWriter out;
+        synchronized (this) {
+            out = new BinaryWriter(64 + size * 16);
+            out.writeByte(MAGIC_FIRST).writeByte(MAGIC_SECOND).writeByte(VERSION).writeByte(TYPE_SUGGESTIONS);
+            out.writeVarInt(size);
+
+            // Sorted, so every key is written as the length it shares with the one before and the rest
+            final String[] previous = {""};
+            forEachEntry(root, new StringBuilder(MAX_LENGTH), (key, node) -> {
+                final int shared = sharedLength(previous[0], key);
+                out.writeVarInt(shared);
+                out.writeString(key.substring(shared));
+                out.writeVarInt(node.weight);
+                previous[0] = key;
+            });
+        }
+
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, out.toByteArray());
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read an index written with {@link #writeTo(Path)}.
+     *
+     * @param file       the file.
+     * @param maxEntries the maximum amount of entries of the index.
+     * @return the index.
+     * @throws IOException              when the file cannot be read.
+     * @throws IllegalArgumentException when the file is no suggestion index or of an unknown version.
+     */
+    public static SuggestionIndex readFrom(final Path file, final int maxEntries) throws IOException {
+        final BinaryReader in = new BinaryReader(ByteBuffer.wrap(Files.readAllBytes(file)));
+        if (in.readByte() != MAGIC_FIRST || in.readByte() != MAGIC_SECOND)
+            throw new IllegalArgumentException("No suggestion index");
+
+        final byte version = in.readByte();
+        if (version != VERSION)
+            throw new IllegalArgumentException(String.format("Unsupported suggestion index version %s", version));
+        if (in.readByte() != TYPE_SUGGESTIONS)
+            throw new IllegalArgumentException("No suggestion index");
+
+        final SuggestionIndex index = new SuggestionIndex(maxEntries);
+        index.appendSorted(in, in.readVarInt());
+        index.pruneIfFull();
+        return index;
+    }
+
+    // Entries are sorted, so each one shares a part of the path to the previous one and is appended to its right
+    private void appendSorted(final BinaryReader in, final int count) {
+        final Node[] path = new Node[MAX_LENGTH + 2];
+        final int[] ends = new int[MAX_LENGTH + 2]; // Length of the key up to the end of the node on the path
+        path[0] = root;
+        int depth = 0;
+        for (int i = 0; i < count; i++) {
+            final int shared = in.readVarInt();
+            final String suffix = in.readString();
+            if (suffix == null || shared > ends[depth] || shared + suffix.length() > MAX_LENGTH)
+                throw new IllegalArgumentException("Malformed suggestion index");
+
+            while (ends[depth] > shared)
+                depth--;
+
+            Node parent = path[depth];
+            if (ends[depth] < shared) {
+                parent = parent.split(parent.children[parent.children.length - 1], shared - ends[depth]);
+                path[++depth] = parent;
+                ends[depth] = shared;
+            }
+
+            final int weight = in.readVarInt();
+            if (suffix.isEmpty() || weight <= 0 || parent.children.length > 0
+                    && parent.children[parent.children.length - 1].label.charAt(0) >= suffix.charAt(0))
+                throw new IllegalArgumentException("Malformed suggestion index");
+
+            final Node leaf = new Node(suffix);
+            leaf.weight = weight;
+            parent.addChild(leaf);
+            path[++depth] = leaf;
+            ends[depth] = shared + suffix.length();
+            size++;
+        }
+        updateMaxWeight(root);
+    }
+
+    private static int updateMaxWeight(final Node node) {
+        int maxWeight = node.weight;
+        for (final Node child : node.children)
+            maxWeight = Math.max(maxWeight, updateMaxWeight(child));
+        node.maxWeight = maxWeight;
+        return maxWeight;
+    }
+
+    private void add(final String key, final int weight) {
+        if (key.isEmpty())
+            return;
+
+        final int current = get(key);
+        put(key, (int) Math.min((long) current + weight, Integer.MAX_VALUE), ++sequence);
+        pruneIfFull();
+    }
+
+    private int get(final String key) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            node = node.child(key.charAt(position));
+            if (node == null || !key.startsWith(node.label, position))
+                return 0;
+            position += node.label.length();
+        }
+        return node.weight;
+    }
+
+    // Set the weight of an entry, weights only grow so the maxima along the path are raised
+    private void put(final String key, final int weight, final int seen) {
+        Node node = root;
+        node.maxWeight = Math.max(node.maxWeight, weight);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                final Node leaf = new Node(key.substring(position));
+                leaf.weight = weight;
+                leaf.maxWeight = weight;
+                leaf.seen = seen;
+                node.addChild(leaf);
+                size++;
+                return;
+            }
+
+            final int shared = sharedLength(child.label, key, position);
+            if (shared < child.label.length())
+                child = node.split(child, shared);
+
+            child.maxWeight = Math.max(child.maxWeight, weight);
+            position += shared;
+            node = child;
+        }
+
+        if (node.weight == 0)
+            size++;
+        node.weight = weight;
+        node.seen = seen;
+    }
+
+    // Drop the lightest quarter and halve the remaining weights
+    private void pruneIfFull() {
+        if (size <= maxEntries)
+            return;
+
+        final List<String> keys = new ArrayList<>(size);
+        final List<Node> nodes = new ArrayList<>(size);
+        forEachEntry(root, new StringBuilder(MAX_LENGTH), (key, node) -> {
+            keys.add(key);
+            nodes.add(node);
+        });
+
+        final Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> nodes.get(i).weight)
+                .thenComparingInt(i -> nodes.get(i).seen)
+                .reversed());
+
+        final int keep = Math.max(1, maxEntries - maxEntries / 4);
+        final boolean[] kept = new boolean[order.length];
+        for (int i = 0; i < keep; i++)
+            kept[order[i]] = true;
+
+        // Keys are sorted, so rebuilding appends to the trie
+        root = new Node("");
+        size = 0;
+        for (int i = 0; i < kept.length; i++) {
+            if (kept[i]) {
+                final Node node = nodes.get(i);
+                put(keys.get(i), Math.max(1, node.weight / 2), node.seen);
+            }
+        }
+    }
+
+    private static void forEachEntry(final Node node, final StringBuilder path, final EntryConsumer consumer) {
+        final int length = path.length();
+        path.append(node.label);
+        if (node.weight > 0)
+            consumer.accept(path.toString(), node);
+        for (final Node child : node.children)
+            forEachEntry(child, path, consumer);
+        path.setLength(length);
+    }
+
+    static String normalize(final String text) {
+        final List<String> tokens = TitleTokenizer.tokens(text);
+        final StringBuilder key = new StringBuilder(MAX_LENGTH);
+        for (final String token : tokens) {
+            if (key.length() + token.length() + 1 > MAX_LENGTH)
+                break;
+            if (!key.isEmpty())
+                key.append(' ');
+            key.append(token);
+        }
+        return key.toString();
+    }
+
+    private static String normalizePrefix(final String prefix) {
+        final String key = normalize(prefix);
+        final boolean separated = !key.isEmpty() && !Character.isLetterOrDigit(prefix.charAt(prefix.length() - 1));
+        return separated ? key + ' ' : key;
+    }
+
+    private static int sharedLength(final String first, final String second) {
+        return sharedLength(first, second, 0);
+    }
+
+    // Length the label shares with the key starting at the offset
+    private static int sharedLength(final String label, final String key, final int offset) {
+        final int length = Math.min(label.length(), key.length() - offset);
+        int shared = 0;
+        while (shared < length && label.charAt(shared) == key.charAt(offset + shared))
+            shared++;
+        return shared;
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(String key, Node node);
+    }
+
+    private record Item(Node node, String key, int weight, boolean entry) {
+    }
+
+    private static final class Node {
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private int weight;
+        private int maxWeight;
+        private int seen;
+
+        Node(final String label) {
+            this.label = label;
+        }
+
+        // Children are sorted by their first char and no two start with the same
+        Node child(final char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final char current = children[middle].label.charAt(0);
+                if (current < first)
+                    low = middle + 1;
+                else if (current > first)
+                    high = middle - 1;
+                else
+                    return children[middle];
+            }
+            return null;
+        }
+
+        void addChild(final Node child) {
+            final char first = child.label.charAt(0);
+            int index = 0;
+            while (index < children.length && children[index].label.charAt(0) < first)
+                index++;
+
+            final Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        // Split a child after the shared part of its label, returning the new node in its place
+        Node split(final Node child, final int shared) {
+            final Node middle = new Node(child.label.substring(0, shared));
+            middle.children = new Node[]{child};
+            middle.maxWeight = child.maxWeight;
+            child.label = child.label.substring(shared);
+
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == middle.children[0])
+                    children[i] = middle;
+            }
+            return middle;
+        }
+
+    }
+
+}
@@ -17,7 +17,12 @@
 package io.sfrei.tracksearch.tracks;
 
 import io.sfrei.tracksearch.clients.common.QueryType;
-import lombok.AllArgsConstructor;
+import io.sfrei.tracksearch.config.DeduplicationConfig;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.tracks.dedup.TrackDeduplicator;
+import io.sfrei.tracksearch.tracks.merge.MergeStrategy;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
@@ -25,41 +30,93 @@ import lombok.ToString;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Getter
-@Builder
 @ToString
-@AllArgsConstructor(staticName = "using")
 public class GenericTrackList<T extends Track> extends ArrayList<T> implements TrackList<T> {
 
-    @Builder.Default
-    private final QueryType queryType = QueryType.UNKNOWN;
+    private final QueryType queryType;
 
-    @Builder.Default
-    private final Map<String, String> queryInformation = new HashMap<>();
+    private final Map<String, String> queryInformation;
+
+    private volatile PagingCursor cursor;
 
     @ToString.Exclude
     private final TrackListProvider<T> nextTrackListFunction;
 
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private volatile TrackListPrefetcher prefetcher;
+
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private volatile TrackListPrefetcher.Prefetch<T> prefetch;
+
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private TrackDeduplicator deduplicator;
+
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private int droppedDuplicates;
+
+    @Builder
+    private GenericTrackList(QueryType queryType, Map<String, String> queryInformation, TrackListProvider<T> nextTrackListFunction) {
+        this.queryType = queryType == null ? QueryType.UNKNOWN : queryType;
+        this.queryInformation = queryInformation == null ? new HashMap<>() : queryInformation;
+        this.nextTrackListFunction = nextTrackListFunction;
+    }
+
+    public static <T extends Track> GenericTrackList<T> using(QueryType queryType, Map<String, String> queryInformation,
+                                                              TrackListProvider<T> nextTrackListFunction) {
+        return new GenericTrackList<>(queryType, queryInformation, nextTrackListFunction);
+    }
+
     public GenericTrackList<T> withTracks(Collection<T> tracks) {
         super.addAll(tracks);
         return this;
     }
 
-    public void mergeIn(GenericTrackList<T> from) {
-        super.addAll(from);
-        this.queryInformation.putAll(from.getQueryInformation());
+    public GenericTrackList<T> withCursor(PagingCursor cursor) {
+        this.cursor = cursor;
+        return this;
     }
 
-    public GenericTrackList<T> setPagingValues(String positionKey, int position, String offsetKey, int offset) {
-        queryInformation.putAll(Map.of(positionKey, String.valueOf(position), offsetKey, String.valueOf(offset)));
+    public GenericTrackList<T> withDistinctTracks(Collection<T> tracks) {
+        final Set<T> contained = new HashSet<>(this);
+        for (final T track : tracks) {
+            if (contained.add(track))
+                super.add(track);
+        }
         return this;
     }
 
-    @Override
-    public Integer queryInformationAsInt(String key) {
-        return Integer.parseInt(queryInformation.get(key));
+    public void mergeIn(GenericTrackList<T> from) {
+        super.addAll(from);
+        this.queryInformation.putAll(from.getQueryInformation());
+    }
+
+    public void mergeIn(List<GenericTrackList<T>> from, MergeStrategy mergeStrategy) {
+        from.forEach(trackList -> this.queryInformation.putAll(trackList.getQueryInformation()));
+        final List<T> merged = mergeStrategy.merge(getQueryValue(), from);
+
+        final DeduplicationConfig deduplication = TrackSearchConfig.deduplication;
+        if (deduplication == null) {
+            super.addAll(merged);
+            return;
+        }
+
+        final TrackDeduplicator pageDeduplicator = new TrackDeduplicator(deduplication);
+        final List<T> distinct = pageDeduplicator.distinct(merged);
+        synchronized (this) {
+            super.addAll(distinct);
+            deduplicator = pageDeduplicator;
+            droppedDuplicates = merged.size() - distinct.size();
+        }
     }
 
     @Override
@@ -69,22 +126,91 @@ public class GenericTrackList<T extends Track> extends ArrayList<T> implements T
 
     @Override
     public TrackList<T> next() {
+        final TrackListPrefetcher attachedPrefetcher = prefetcher;
+        final TrackList<T> next = attachedPrefetcher != null ? attachedPrefetcher.next(this) : fetchNext();
+        return deduplicateNext(next);
+    }
+
+    /**
+     * Drop the tracks of the next page already seen on this or previous pages. The deduplicator is created
+     * with the first next page and handed on from page to page.
+     */
+    private TrackList<T> deduplicateNext(final TrackList<T> next) {
+        if (!(next instanceof GenericTrackList<T> nextTrackList))
+            return next;
+
+        final TrackDeduplicator pagesDeduplicator = pagesDeduplicator();
+        if (pagesDeduplicator != null)
+            nextTrackList.retainDistinct(pagesDeduplicator);
+
+        return next;
+    }
+
+    private synchronized TrackDeduplicator pagesDeduplicator() {
+        final DeduplicationConfig deduplication = TrackSearchConfig.deduplication;
+        if (deduplicator == null && deduplication != null) {
+            deduplicator = new TrackDeduplicator(deduplication);
+            deduplicator.distinct(this);
+        }
+        return deduplicator;
+    }
+
+    private synchronized void retainDistinct(final TrackDeduplicator pagesDeduplicator) {
+        if (deduplicator == pagesDeduplicator)
+            return;
+
+        final List<T> distinct = pagesDeduplicator.distinct(this);
+        droppedDuplicates += size() - distinct.size();
+        if (distinct.size() != size()) {
+            super.clear();
+            super.addAll(distinct);
+        }
+        deduplicator = pagesDeduplicator;
+    }
+
+    /**
+     * Check if the page is empty because there were no results, not because all were duplicates.
+     */
+    synchronized boolean isExhausted() {
+        return isEmpty() && droppedDuplicates == 0;
+    }
+
+    TrackList<T> fetchNext() {
         return nextTrackListFunction.apply(this);
     }
 
-    public TrackList<T> updatePagingValues(final TrackList<? extends Track> previousTrackList,
-                                           final String positionKey, String offsetKey) {
+    boolean canFetchNext() {
+        return nextTrackListFunction != null;
+    }
+
+    void attachPrefetcher(TrackListPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    synchronized boolean attachPrefetch(TrackListPrefetcher.Prefetch<T> prefetch) {
+        if (this.prefetch != null)
+            return false;
 
-        final String previousOffsetValue = previousTrackList.getQueryInformation().get(offsetKey);
-        final String newOffsetValue = getQueryInformation().get(offsetKey);
+        this.prefetch = prefetch;
+        return true;
+    }
+
+    synchronized TrackListPrefetcher.Prefetch<T> currentPrefetch() {
+        return prefetch;
+    }
+
+    synchronized TrackListPrefetcher.Prefetch<T> takePrefetch() {
+        final TrackListPrefetcher.Prefetch<T> taken = prefetch;
+        prefetch = null;
+        return taken;
+    }
 
-        if (previousOffsetValue == null || newOffsetValue == null)
-            return setPagingValues(positionKey, 0, offsetKey, 0);
+    synchronized boolean detachPrefetch(TrackListPrefetcher.Prefetch<T> expected) {
+        if (prefetch != expected)
+            return false;
 
-        final int newPosition = Integer.parseInt(previousOffsetValue);
-        final int offset = Integer.parseInt(newOffsetValue);
-        final int newOffset = newPosition + offset;
-        return setPagingValues(positionKey, newPosition, offsetKey, newOffset);
+        prefetch = null;
+        return true;
     }
 
 }
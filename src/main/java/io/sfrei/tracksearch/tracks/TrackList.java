@@ -17,6 +17,7 @@
 package io.sfrei.tracksearch.tracks;
 
 import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
 
 import java.util.List;
 import java.util.Map;
@@ -46,15 +47,6 @@ public interface TrackList<T extends Track> extends List<T> {
      */
     Map<String, String> getQueryInformation();
 
-
-    /**
-     * Get a query information parsed to an int.
-     *
-     * @param key the key of the query information.
-     * @return the int value of the query information.
-     */
-    Integer queryInformationAsInt(String key);
-
     /**
      * Add a query information value.
      *
@@ -72,6 +64,26 @@ public interface TrackList<T extends Track> extends List<T> {
         return getQueryInformation().get(QUERY_KEY);
     }
 
+    /**
+     * Get the paging state used to request the next page.
+     *
+     * @return the paging cursor or null when the track list cannot be paged.
+     */
+    default PagingCursor getCursor() {
+        return null;
+    }
+
+    /**
+     * Get the paging state as token, to resume paging later with {@code TrackSearchClient#resume(String)}
+     * without keeping this track list.
+     *
+     * @return the paging token or null when the track list cannot be paged.
+     */
+    default String getPagingToken() {
+        final PagingCursor cursor = getCursor();
+        return cursor == null ? null : cursor.toToken();
+    }
+
     /**
      * Check if query information contains all provided keys.
      *
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks;
+
+import lombok.NonNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterate over all tracks of a track list and all of its next pages. The next page is only
+ * requested when all tracks of the current page were consumed and only the current page is held,
+ * so memory stays constant no matter how many pages are walked.
+ *
+ * @param <T> the track type.
+ */
+public class TrackListIterator<T extends Track> implements Iterator<T> {
+
+    private static final int MAX_DUPLICATE_PAGES = 3;
+
+    private final Predicate<? super TrackList<T>> hasNextPage;
+
+    private TrackList<T> currentPage;
+
+    private Iterator<T> currentTracks;
+
+    private int duplicatePages;
+
+    /**
+     * Create an iterator starting with the given page.
+     *
+     * @param firstPage   the first page of tracks.
+     * @param hasNextPage check whether a page offers paging values to get the next page.
+     */
+    public TrackListIterator(@NonNull final TrackList<T> firstPage, @NonNull final Predicate<? super TrackList<T>> hasNextPage) {
+        this.hasNextPage = hasNextPage;
+        this.currentPage = firstPage;
+        this.currentTracks = firstPage.iterator();
+    }
+
+    /**
+     * Create a sequential, ordered stream over all tracks of the given page and all of its next pages.
+     * Short-circuiting operations like {@link Stream#limit(long)} do not request further pages.
+     *
+     * @param firstPage   the first page of tracks.
+     * @param hasNextPage check whether a page offers paging values to get the next page.
+     * @param <T>         the track type.
+     * @return the lazy stream of tracks.
+     */
+    public static <T extends Track> Stream<T> stream(final TrackList<T> firstPage, final Predicate<? super TrackList<T>> hasNextPage) {
+        final TrackListIterator<T> iterator = new TrackListIterator<>(firstPage, hasNextPage);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentTracks.hasNext()) {
+            if (currentPage == null || isExhausted(currentPage) || !hasNextPage.test(currentPage)) {
+                finish();
+                return false;
+            }
+
+            final TrackList<T> nextPage = currentPage.next(); // Null when an error occurred acquiring it
+            if (nextPage == null) {
+                finish();
+                return false;
+            }
+
+            currentPage = nextPage;
+            currentTracks = nextPage.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException("No more tracks available");
+
+        return currentTracks.next();
+    }
+
+    // Pages emptied by the duplicate elimination do not end the iteration, unless the source keeps repeating itself
+    private boolean isExhausted(final TrackList<T> page) {
+        if (!page.isEmpty()) {
+            duplicatePages = 0;
+            return false;
+        }
+
+        final boolean onlyDuplicates = page instanceof GenericTrackList<T> genericTrackList && !genericTrackList.isExhausted();
+        return !onlyDuplicates || ++duplicatePages > MAX_DUPLICATE_PAGES;
+    }
+
+    private void finish() {
+        currentPage = null;
+        currentTracks = Collections.emptyIterator();
+    }
+
+}
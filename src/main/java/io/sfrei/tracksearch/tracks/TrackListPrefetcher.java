@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks;
+
+import io.sfrei.tracksearch.clients.common.CallGroup;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in background prefetching of the next pages of a track list. Once a track list is handed to
+ * {@link #prefetch(TrackList)} the next page is fetched in the background (up to the configured depth)
+ * and {@link TrackList#next()} returns it as soon as it is ready. Prefetched pages that are not consumed
+ * within the expiry get discarded.
+ */
+@Slf4j
+public class TrackListPrefetcher {
+
+    private final int depth;
+    private final Duration expiry;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder pendingHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * Create a prefetcher using {@link TrackSearchConfig#prefetchDepth} and {@link TrackSearchConfig#prefetchExpiry}.
+     */
+    public TrackListPrefetcher() {
+        this(TrackSearchConfig.prefetchDepth, TrackSearchConfig.prefetchExpiry);
+    }
+
+    /**
+     * Create a prefetcher.
+     *
+     * @param depth  the amount of pages to keep fetched ahead of the last consumed page.
+     * @param expiry the time after a prefetched page is discarded when not consumed.
+     */
+    public TrackListPrefetcher(int depth, Duration expiry) {
+        if (depth < 1)
+            throw new IllegalArgumentException("Prefetch depth has to be at least 1");
+
+        this.depth = depth;
+        this.expiry = expiry;
+    }
+
+    /**
+     * Start fetching the next pages of the track list in the background. All track lists returned
+     * by {@link TrackList#next()} of this track list are prefetched as well.
+     *
+     * @param trackList the track list to prefetch the next pages for.
+     * @param <T>       the track type.
+     * @return the same track list.
+     */
+    public <T extends Track> TrackList<T> prefetch(final TrackList<T> trackList) {
+        if (trackList instanceof GenericTrackList<T> genericTrackList)
+            prefetch(genericTrackList, depth);
+        else if (trackList != null)
+            log.debug("Prefetching not supported for {}", trackList.getClass().getSimpleName());
+
+        return trackList;
+    }
+
+    /**
+     * Get the statistics about how prefetched pages were used.
+     *
+     * @return the current statistics.
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.sum(), pendingHits.sum(), misses.sum(), expired.sum());
+    }
+
+    <T extends Track> TrackList<T> next(final GenericTrackList<T> trackList) {
+        final Prefetch<T> prefetch = trackList.takePrefetch();
+
+        TrackList<T> next = null;
+        if (prefetch != null) {
+            if (prefetch.isExpired(expiry)) {
+                prefetch.discard();
+                expired.increment();
+            } else {
+                final boolean ready = prefetch.future.isDone();
+                next = prefetch.await();
+                if (next != null)
+                    (ready ? hits : pendingHits).increment();
+            }
+        }
+
+        if (next == null) {
+            misses.increment();
+            next = trackList.fetchNext();
+        }
+
+        return prefetch(next);
+    }
+
+    private <T extends Track> void prefetch(final GenericTrackList<T> trackList, final int remainingDepth) {
+        trackList.attachPrefetcher(this);
+
+        if (remainingDepth < 1 || trackList.isEmpty() || !trackList.canFetchNext())
+            return;
+
+        final Prefetch<T> existing = trackList.currentPrefetch();
+        if (existing != null) {
+            existing.future.thenAccept(next -> prefetchFurther(next, remainingDepth - 1));
+            return;
+        }
+
+        final CallGroup calls = new CallGroup();
+        final Prefetch<T> prefetch = new Prefetch<>(System.nanoTime(), calls,
+                CompletableFuture.supplyAsync(() -> fetchNext(trackList, calls), SharedExecutor.WORKER));
+
+        if (!trackList.attachPrefetch(prefetch)) {
+            prefetch.discard();
+            return;
+        }
+
+        log.trace("Prefetching next for: {}", trackList.getQueryInformation());
+        prefetch.future.thenAccept(next -> prefetchFurther(next, remainingDepth - 1));
+        scheduleExpiry(trackList, prefetch);
+    }
+
+    private static <T extends Track> TrackList<T> fetchNext(final GenericTrackList<T> trackList, final CallGroup calls) {
+        try {
+            return calls.run(trackList::fetchNext);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private <T extends Track> void prefetchFurther(final TrackList<T> next, final int remainingDepth) {
+        if (next instanceof GenericTrackList<T> genericTrackList)
+            prefetch(genericTrackList, remainingDepth);
+    }
+
+    private <T extends Track> void scheduleExpiry(final GenericTrackList<T> trackList, final Prefetch<T> prefetch) {
+        final WeakReference<GenericTrackList<T>> trackListReference = new WeakReference<>(trackList);
+        final WeakReference<Prefetch<T>> prefetchReference = new WeakReference<>(prefetch);
+
+        SharedExecutor.SCHEDULER.schedule(() -> {
+            final GenericTrackList<T> list = trackListReference.get();
+            final Prefetch<T> unused = prefetchReference.get();
+            if (list != null && unused != null && list.detachPrefetch(unused)) {
+                unused.discard();
+                expired.increment();
+                log.trace("Discarded unused prefetch for: {}", list.getQueryInformation());
+            }
+        }, expiry.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    static final class Prefetch<T extends Track> {
+
+        private final long createdNanos;
+        private final CallGroup calls;
+        private final CompletableFuture<TrackList<T>> future;
+
+        private Prefetch(long createdNanos, CallGroup calls, CompletableFuture<TrackList<T>> future) {
+            this.createdNanos = createdNanos;
+            this.calls = calls;
+            this.future = future;
+        }
+
+        private boolean isExpired(final Duration expiry) {
+            return System.nanoTime() - createdNanos > expiry.toNanos();
+        }
+
+        private TrackList<T> await() {
+            try {
+                return future.join();
+            } catch (CompletionException | CancellationException e) {
+                log.debug("Prefetch failed, falling back to fetch", e);
+                return null;
+            }
+        }
+
+        /**
+         * Cancel the requests of the prefetch in flight, cancelling the future alone would not stop them.
+         */
+        private void discard() {
+            calls.cancel();
+            future.cancel(false);
+        }
+
+    }
+
+    /**
+     * Statistics about consumed prefetched pages.
+     *
+     * @param hits        pages that were already fetched when requested.
+     * @param pendingHits pages that were still in flight when requested.
+     * @param misses      pages that had to be fetched when requested.
+     * @param expired     prefetched pages that were discarded because they were not consumed in time.
+     */
+    public record Statistics(long hits, long pendingHits, long misses, long expired) {
+
+        /**
+         * Get the ratio of pages served by a prefetch.
+         *
+         * @return the hit rate between 0 and 1.
+         */
+        public double hitRate() {
+            final long requested = hits + pendingHits + misses;
+            return requested == 0 ? 0 : (double) (hits + pendingHits) / requested;
+        }
+
+    }
+
+}
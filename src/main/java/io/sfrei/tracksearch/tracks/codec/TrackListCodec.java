@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.codec;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.TrackListProvider;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.metadata.SoundCloudTrackMetadata;
+import io.sfrei.tracksearch.tracks.metadata.TrackMetadata;
+import io.sfrei.tracksearch.tracks.metadata.YouTubeTrackMetadata;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
+import io.sfrei.tracksearch.tracks.paging.PagingTokenCodec;
+import io.sfrei.tracksearch.utils.BinaryReader;
+import io.sfrei.tracksearch.utils.BinaryWriter;
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, versioned binary format of track lists and tracks, e.g. to store search results in a cache.
+ * <pre>
+ * snapshot := 'T' 'S' version list | 'T' 'S' version track
+ * list     := varint(queryType) varint(count) (string string)* byte(hasCursor) [cursor] varint(count) track*
+ * track    := varint(source) string(title) varlong(millis + 1) url byte(hasMetadata) [metadata]
+ * metadata := string(channelName) url(channelUrl) varlong(streams + 1) url(thumbNailUrl)
+ * url      := string(scheme and host) string(first path segment) string(rest)
+ * string   := varint(0) null | varint(index &lt;&lt; 1 | 1) reference
+ *           | varint(length &lt;&lt; 2 | 2) utf8 added to the table | varint((length + 1) &lt;&lt; 2) utf8
+ * </pre>
+ * Strings likely to repeat, like channels, hosts and channel paths, are written once per snapshot, repeated ones are
+ * references into the table of strings read before. URLs are split to reference the shared prefixes. Titles and
+ * the rest of track and thumbnail URLs are written as they are, to not pay for looking up unique strings.
+ * Absent numbers are written as 0. The cursor uses the format of the paging tokens. Sources and query types are
+ * written as fixed codes, independent of the declaration order of their enums.
+ */
+@UtilityClass
+public class TrackListCodec {
+
+    public static final byte VERSION = 2;
+
+    private static final byte MAGIC_FIRST = 'T';
+    private static final byte MAGIC_SECOND = 'S';
+
+    private static final byte LIST = 1;
+    private static final byte TRACK = 2;
+
+    private static final int YOUTUBE = 1;
+    private static final int SOUNDCLOUD = 2;
+
+    private static final int UNKNOWN_QUERY = 0;
+    private static final int SEARCH_QUERY = 1;
+    private static final int PAGING_QUERY = 2;
+    private static final int PLAYLIST_QUERY = 3;
+    private static final int USER_QUERY = 4;
+
+    /**
+     * Encode a track list with its tracks, query information and paging cursor.
+     *
+     * @param trackList the track list.
+     * @return the encoded bytes.
+     */
+    public byte[] encode(final TrackList<? extends Track> trackList) {
+        final Encoder encoder = new Encoder(64 + trackList.size() * 192);
+        encoder.header(LIST);
+        encoder.trackList(trackList);
+        return encoder.out.toByteArray();
+    }
+
+    /**
+     * Encode a single track with its metadata.
+     *
+     * @param track the track.
+     * @return the encoded bytes.
+     */
+    public byte[] encode(final Track track) {
+        final Encoder encoder = new Encoder(128);
+        encoder.header(TRACK);
+        encoder.track(track);
+        return encoder.out.toByteArray();
+    }
+
+    /**
+     * Decode a track list, it can be paged with the client of its source using {@code getNext}.
+     *
+     * @param buffer the buffer positioned at the start of the encoded track list.
+     * @return the decoded track list.
+     * @throws IllegalArgumentException when the input is malformed or of an unsupported version.
+     */
+    public GenericTrackList<Track> decodeTrackList(final ByteBuffer buffer) {
+        return decodeTrackList(buffer, null);
+    }
+
+    /**
+     * Decode a track list which gets the next page using the provided function, e.g. {@code client::provideNext}.
+     *
+     * @param buffer                the buffer positioned at the start of the encoded track list.
+     * @param nextTrackListFunction the function to get the next track list.
+     * @return the decoded track list.
+     * @throws IllegalArgumentException when the input is malformed or of an unsupported version.
+     */
+    public GenericTrackList<Track> decodeTrackList(final ByteBuffer buffer, final TrackListProvider<Track> nextTrackListFunction) {
+        final Decoder decoder = new Decoder(buffer);
+        decoder.header(LIST);
+        return decoder.trackList(nextTrackListFunction);
+    }
+
+    /**
+     * Decode a single track.
+     *
+     * @param buffer the buffer positioned at the start of the encoded track.
+     * @return the decoded track.
+     * @throws IllegalArgumentException when the input is malformed or of an unsupported version.
+     */
+    public Track decodeTrack(final ByteBuffer buffer) {
+        final Decoder decoder = new Decoder(buffer);
+        decoder.header(TRACK);
+        return decoder.track();
+    }
+
+    private static final class Encoder {
+
+        private final BinaryWriter out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Encoder(int initialCapacity) {
+            out = new BinaryWriter(initialCapacity);
+        }
+
+        private void header(final byte type) {
+            out.writeByte(MAGIC_FIRST).writeByte(MAGIC_SECOND).writeByte(VERSION).writeByte(type);
+        }
+
+        private void trackList(final TrackList<? extends Track> trackList) {
+            out.writeVarInt(queryTypeCode(trackList.getQueryType()));
+
+            final Map<String, String> queryInformation = trackList.getQueryInformation();
+            out.writeVarInt(queryInformation.size());
+            queryInformation.forEach((key, value) -> {
+                tableString(key);
+                tableString(value);
+            });
+
+            final PagingCursor cursor = trackList.getCursor();
+            out.writeByte(cursor == null ? 0 : 1);
+            if (cursor != null)
+                PagingTokenCodec.write(out, cursor);
+
+            out.writeVarInt(trackList.size());
+            for (final Track track : trackList)
+                track(track);
+        }
+
+        private void track(final Track track) {
+            out.writeVarInt(sourceCode(track.getSource()));
+            literal(track.getTitle(), 0);
+            final Duration duration = track.getDuration();
+            out.writeVarLong(duration == null ? 0 : duration.toMillis() + 1);
+            url(track.getUrl(), false);
+
+            final TrackMetadata metadata = track.getTrackMetadata();
+            out.writeByte(metadata == null ? 0 : 1);
+            if (metadata == null)
+                return;
+
+            tableString(metadata.channelName());
+            url(metadata.channelUrl(), true);
+            out.writeVarLong(metadata.streamAmount() == null ? 0 : metadata.streamAmount() + 1);
+            url(metadata.thumbNailUrl(), false);
+        }
+
+        private void url(final String url, final boolean tableRest) {
+            if (url == null) {
+                out.writeVarInt(0);
+                return;
+            }
+
+            final int host = hostEnd(url);
+            final int segment = segmentEnd(url, host);
+            tableString(url.substring(0, host));
+            tableString(url.substring(host, segment));
+            if (tableRest)
+                tableString(url.substring(segment));
+            else
+                literal(url, segment);
+        }
+
+        private void tableString(final String value) {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+
+            final Integer index = strings.get(value);
+            if (index != null) {
+                out.writeVarInt(index << 1 | 1);
+                return;
+            }
+
+            strings.put(value, strings.size());
+            out.writeVarInt(BinaryWriter.utf8Length(value) << 2 | 2);
+            out.writeUtf8(value);
+        }
+
+        private void literal(final String value, final int from) {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+
+            out.writeVarInt((BinaryWriter.utf8Length(value, from, value.length()) + 1) << 2);
+            out.writeUtf8(value, from, value.length());
+        }
+
+    }
+
+    private static final class Decoder {
+
+        private final BinaryReader in;
+        private final List<String> strings = new ArrayList<>();
+
+        private Decoder(final ByteBuffer buffer) {
+            in = new BinaryReader(buffer);
+        }
+
+        private void header(final byte expectedType) {
+            if (in.readByte() != MAGIC_FIRST || in.readByte() != MAGIC_SECOND)
+                throw new IllegalArgumentException("Not an encoded track list or track");
+
+            final byte version = in.readByte();
+            if (version != VERSION)
+                throw new IllegalArgumentException(String.format("Unsupported codec version %s", version));
+
+            final byte type = in.readByte();
+            if (type != expectedType)
+                throw new IllegalArgumentException(String.format("Expected %s but got %s", typeName(expectedType), typeName(type)));
+        }
+
+        private GenericTrackList<Track> trackList(final TrackListProvider<Track> nextTrackListFunction) {
+            final QueryType queryType = queryType(in.readVarInt());
+
+            final int queryInformationSize = in.readVarInt();
+            final Map<String, String> queryInformation = new HashMap<>();
+            for (int i = 0; i < queryInformationSize; i++)
+                queryInformation.put(string(), string());
+
+            final PagingCursor cursor = in.readByte() == 0 ? null : PagingTokenCodec.read(in);
+
+            final int size = in.readVarInt();
+            final List<Track> tracks = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++)
+                tracks.add(track());
+
+            return GenericTrackList.using(queryType, queryInformation, nextTrackListFunction)
+                    .withTracks(tracks)
+                    .withCursor(cursor);
+        }
+
+        private Track track() {
+            final TrackSource source = source(in.readVarInt());
+            final String title = string();
+            final long millis = in.readVarLong();
+            final Duration duration = millis == 0 ? null : Duration.ofMillis(millis - 1);
+            final String url = url();
+
+            final boolean hasMetadata = in.readByte() != 0;
+            final String channelName = hasMetadata ? string() : null;
+            final String channelUrl = hasMetadata ? url() : null;
+            final long streams = hasMetadata ? in.readVarLong() : 0;
+            final Long streamAmount = streams == 0 ? null : streams - 1;
+            final String thumbNailUrl = hasMetadata ? url() : null;
+
+            return switch (source) {
+                case Youtube -> YouTubeTrack.builder()
+                        .title(title).duration(duration).url(url)
+                        .trackMetadata(hasMetadata ? new YouTubeTrackMetadata(channelName, channelUrl, streamAmount, thumbNailUrl) : null)
+                        .build();
+                case Soundcloud -> SoundCloudTrack.builder()
+                        .title(title).duration(duration).url(url)
+                        .trackMetadata(hasMetadata ? new SoundCloudTrackMetadata(channelName, channelUrl, streamAmount, thumbNailUrl) : null)
+                        .build();
+            };
+        }
+
+        private String url() {
+            final String host = string();
+            if (host == null)
+                return null;
+
+            return host + string() + string();
+        }
+
+        private String string() {
+            final int value = in.readVarInt();
+            if (value == 0)
+                return null;
+
+            if ((value & 1) == 1) {
+                final int index = value >>> 1;
+                if (index >= strings.size())
+                    throw new IllegalArgumentException(String.format("Unknown string reference %s", index));
+                return strings.get(index);
+            }
+
+            if ((value & 2) == 2) {
+                final String string = in.readUtf8(value >>> 2);
+                strings.add(string);
+                return string;
+            }
+
+            return in.readUtf8((value >>> 2) - 1);
+        }
+
+    }
+
+    // End of "scheme://host/", or 0 when the URL has no host
+    private static int hostEnd(final String url) {
+        final int scheme = url.indexOf("://");
+        if (scheme < 0)
+            return 0;
+
+        final int path = url.indexOf('/', scheme + 3);
+        return path < 0 ? url.length() : path + 1;
+    }
+
+    // End of the first path segment including its '/' or '=' delimiter, or the start when it has none
+    private static int segmentEnd(final String url, final int start) {
+        for (int i = start; i < url.length(); i++) {
+            final char c = url.charAt(i);
+            if (c == '/' || c == '=')
+                return i + 1;
+        }
+        return start;
+    }
+
+    private static int sourceCode(final TrackSource source) {
+        return switch (source) {
+            case Youtube -> YOUTUBE;
+            case Soundcloud -> SOUNDCLOUD;
+        };
+    }
+
+    private static TrackSource source(final int code) {
+        return switch (code) {
+            case YOUTUBE -> TrackSource.Youtube;
+            case SOUNDCLOUD -> TrackSource.Soundcloud;
+            default -> throw new IllegalArgumentException(String.format("Unknown TrackSource %s", code));
+        };
+    }
+
+    private static int queryTypeCode(final QueryType queryType) {
+        return switch (queryType) {
+            case UNKNOWN -> UNKNOWN_QUERY;
+            case SEARCH -> SEARCH_QUERY;
+            case PAGING -> PAGING_QUERY;
+            case PLAYLIST -> PLAYLIST_QUERY;
+            case USER -> USER_QUERY;
+        };
+    }
+
+    private static QueryType queryType(final int code) {
+        return switch (code) {
+            case UNKNOWN_QUERY -> QueryType.UNKNOWN;
+            case SEARCH_QUERY -> QueryType.SEARCH;
+            case PAGING_QUERY -> QueryType.PAGING;
+            case PLAYLIST_QUERY -> QueryType.PLAYLIST;
+            case USER_QUERY -> QueryType.USER;
+            default -> throw new IllegalArgumentException(String.format("Unknown QueryType %s", code));
+        };
+    }
+
+    private static String typeName(final byte type) {
+        return type == LIST ? "track list" : type == TRACK ? "track" : "unknown type " + type;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.dedup;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.tracks.Track;
+import lombok.experimental.UtilityClass;
+
+import java.util.Locale;
+
+/**
+ * Identifies a track independent of the URL variant it was received with,
+ * e.g. YouTube URLs with additional parameters or SoundCloud URLs with tracking parameters.
+ */
+@UtilityClass
+public class CanonicalTrackId {
+
+    private static final String YOUTUBE_VIDEO_PARAM = "v=";
+    private static final String YOUTUBE_SHORT_HOST = "youtu.be/";
+
+    /**
+     * Get the canonical ID of a track, e.g. {@code youtube:dQw4w9WgXcQ} or {@code soundcloud:artist/track}.
+     *
+     * @param track the track.
+     * @return the canonical ID.
+     */
+    public String of(final Track track) {
+        final String url = track.getUrl();
+        if (url == null)
+            return track.getSource().name().toLowerCase(Locale.ROOT) + ":" + track.getTitle();
+
+        return of(track.getSource(), url);
+    }
+
+    /**
+     * Get the canonical ID of a track URL of a source.
+     *
+     * @param source the source of the URL.
+     * @param url    the track URL.
+     * @return the canonical ID.
+     */
+    public String of(final TrackSource source, final String url) {
+        return switch (source) {
+            case Youtube -> "youtube:" + youTubeVideoId(url);
+            case Soundcloud -> "soundcloud:" + path(url).toLowerCase(Locale.ROOT);
+        };
+    }
+
+    private String youTubeVideoId(final String url) {
+        final int shortHost = url.indexOf(YOUTUBE_SHORT_HOST);
+        if (shortHost >= 0)
+            return untilDelimiter(url, shortHost + YOUTUBE_SHORT_HOST.length());
+
+        final int query = url.indexOf('?');
+        int param = query < 0 ? -1 : url.indexOf(YOUTUBE_VIDEO_PARAM, query);
+        while (param > 0 && url.charAt(param - 1) != '?' && url.charAt(param - 1) != '&')
+            param = url.indexOf(YOUTUBE_VIDEO_PARAM, param + 1);
+
+        return param < 0 ? path(url) : untilDelimiter(url, param + YOUTUBE_VIDEO_PARAM.length());
+    }
+
+    private String path(final String url) {
+        final int scheme = url.indexOf("://");
+        final int hostStart = scheme < 0 ? 0 : scheme + 3;
+        final int pathStart = url.indexOf('/', hostStart);
+        if (pathStart < 0)
+            return "";
+
+        String path = untilDelimiter(url, pathStart + 1);
+        while (path.endsWith("/"))
+            path = path.substring(0, path.length() - 1);
+        return path;
+    }
+
+    private String untilDelimiter(final String url, final int start) {
+        int end = start;
+        while (end < url.length() && "?&#".indexOf(url.charAt(end)) < 0)
+            end++;
+        return url.substring(start, end);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.dedup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded index of fingerprints finding similar ones in constant time. The title hash is split into four bands of
+ * 16 bits, fingerprints differing in at most three bits share at least one band, so only fingerprints with a common
+ * band and a neighbouring duration step are compared. The oldest fingerprints are evicted first. Not thread safe.
+ */
+final class NearDuplicateIndex {
+
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = Long.SIZE / BANDS;
+    private static final long BAND_MASK = (1L << BAND_BITS) - 1;
+
+    private final int capacity;
+    private final int maxDistance;
+
+    private final Map<Long, List<TitleFingerprint>> buckets = new HashMap<>();
+    private final ArrayDeque<TitleFingerprint> insertionOrder = new ArrayDeque<>();
+
+    NearDuplicateIndex(int capacity, int maxDistance) {
+        this.capacity = capacity;
+        this.maxDistance = maxDistance;
+    }
+
+    boolean containsSimilar(final TitleFingerprint fingerprint) {
+        for (long step = fingerprint.durationStep() - 1; step <= fingerprint.durationStep() + 1; step++) {
+            for (int band = 0; band < BANDS; band++) {
+                final List<TitleFingerprint> candidates = buckets.get(key(step, band, fingerprint.titleHash()));
+                if (candidates == null)
+                    continue;
+
+                for (final TitleFingerprint candidate : candidates) {
+                    if (candidate.distance(fingerprint) <= maxDistance)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void add(final TitleFingerprint fingerprint) {
+        for (int band = 0; band < BANDS; band++)
+            buckets.computeIfAbsent(key(fingerprint.durationStep(), band, fingerprint.titleHash()), key -> new ArrayList<>(1))
+                    .add(fingerprint);
+
+        insertionOrder.addLast(fingerprint);
+        if (insertionOrder.size() > capacity)
+            remove(insertionOrder.removeFirst());
+    }
+
+    int size() {
+        return insertionOrder.size();
+    }
+
+    private void remove(final TitleFingerprint fingerprint) {
+        for (int band = 0; band < BANDS; band++) {
+            final long key = key(fingerprint.durationStep(), band, fingerprint.titleHash());
+            final List<TitleFingerprint> bucket = buckets.get(key);
+            bucket.remove(fingerprint);
+            if (bucket.isEmpty())
+                buckets.remove(key);
+        }
+    }
+
+    private static long key(final long durationStep, final int band, final long titleHash) {
+        final long bandValue = (titleHash >>> (band * BAND_BITS)) & BAND_MASK;
+        return (durationStep << (BAND_BITS + 2)) | ((long) band << BAND_BITS) | bandValue;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.dedup;
+
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.utils.TitleTokenizer;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SimHash fingerprint of the normalized title tokens together with the rounded duration of a track.
+ * Titles differing only in a few tokens have fingerprints differing only in a few bits.
+ *
+ * @param titleHash    the SimHash of the title tokens.
+ * @param durationStep the duration divided by the tolerance, rounded.
+ */
+record TitleFingerprint(long titleHash, long durationStep) {
+
+    private static final Set<String> NOISE_TOKENS = Set.of(
+            "official", "video", "audio", "lyrics", "lyric", "music", "visualizer", "visualiser", "mv",
+            "hd", "hq", "4k", "ft", "feat", "featuring", "full", "version", "topic"
+    );
+
+    /**
+     * Create the fingerprint of a track.
+     *
+     * @param track             the track.
+     * @param durationTolerance the duration rounding.
+     * @return the fingerprint or null when the track has no duration or no title tokens.
+     */
+    static TitleFingerprint of(final Track track, final Duration durationTolerance) {
+        final Duration duration = track.getDuration();
+        if (duration == null || track.getTitle() == null)
+            return null;
+
+        final List<String> tokens = TitleTokenizer.tokens(track.getCleanTitle());
+        final Set<String> distinctTokens = new HashSet<>(tokens.size());
+        for (final String token : tokens) {
+            if (!NOISE_TOKENS.contains(token))
+                distinctTokens.add(token);
+        }
+        if (distinctTokens.isEmpty())
+            return null;
+
+        final long tolerance = durationTolerance.toSeconds();
+        return new TitleFingerprint(simHash(distinctTokens), (duration.toSeconds() + tolerance / 2) / tolerance);
+    }
+
+    static long simHash(final Set<String> tokens) {
+        final int[] weights = new int[Long.SIZE];
+        for (final String token : tokens) {
+            final long hash = hash(token);
+            for (int bit = 0; bit < Long.SIZE; bit++)
+                weights[bit] += ((hash >>> bit) & 1) == 1 ? 1 : -1;
+        }
+
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0)
+                simHash |= 1L << bit;
+        }
+        return simHash;
+    }
+
+    // FNV-1a followed by the MurmurHash3 finalizer to spread the bits
+    private static long hash(final String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    int distance(final TitleFingerprint other) {
+        return Long.bitCount(titleHash ^ other.titleHash);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.dedup;
+
+import io.sfrei.tracksearch.config.DeduplicationConfig;
+import io.sfrei.tracksearch.metrics.Metrics;
+import io.sfrei.tracksearch.tracks.Track;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drops tracks that were already seen, either with the same canonical ID or, when enabled, as near duplicate with
+ * a similar title and duration. Remembers at most the configured amount of tracks, the least recently seen are
+ * forgotten first. Each track is checked in constant time, so filtering scales linearly with the amount of tracks.
+ */
+public class TrackDeduplicator {
+
+    private final Duration durationTolerance;
+
+    private final Map<String, Boolean> seenIds;
+
+    private final NearDuplicateIndex nearDuplicates;
+
+    public TrackDeduplicator(final DeduplicationConfig config) {
+        final int maxSeen = config.maxSeen();
+        this.durationTolerance = config.durationTolerance();
+        this.seenIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSeen;
+            }
+        };
+        this.nearDuplicates = config.nearDuplicates() ? new NearDuplicateIndex(maxSeen, config.maxTitleDistance()) : null;
+    }
+
+    /**
+     * Get the tracks not seen before, keeping their order, and remember them.
+     *
+     * @param tracks the tracks to filter.
+     * @param <T>    the track type.
+     * @return the tracks not seen before.
+     */
+    public synchronized <T extends Track> List<T> distinct(final Collection<T> tracks) {
+        final List<T> distinct = new ArrayList<>(tracks.size());
+        for (final T track : tracks) {
+            if (isNew(track)) {
+                distinct.add(track);
+            } else {
+                Metrics.count(Metrics.DUPLICATES_DROPPED, track.getSource(), 1);
+            }
+        }
+        return distinct;
+    }
+
+    private boolean isNew(final Track track) {
+        if (seenIds.put(CanonicalTrackId.of(track), Boolean.TRUE) != null)
+            return false;
+
+        if (nearDuplicates == null)
+            return true;
+
+        final TitleFingerprint fingerprint = TitleFingerprint.of(track, durationTolerance);
+        if (fingerprint == null)
+            return true;
+
+        if (nearDuplicates.containsSimilar(fingerprint))
+            return false;
+
+        nearDuplicates.add(fingerprint);
+        return true;
+    }
+
+    /**
+     * Get the amount of remembered tracks.
+     *
+     * @return the amount of remembered tracks.
+     */
+    public synchronized int size() {
+        return seenIds.size();
+    }
+
+}
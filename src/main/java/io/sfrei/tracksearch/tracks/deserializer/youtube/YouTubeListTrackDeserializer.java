@@ -66,7 +66,7 @@ public class YouTubeListTrackDeserializer extends JsonDeserializer<YouTubeTrack.
 
         final String channelUrlSuffix = owner.paths("navigationEndpoint", "commandMetadata", "webCommandMetadata")
                 .asString("url");
-        final String channelUrl = YouTubeClient.URL.concat(channelUrlSuffix);
+        final String channelUrl = channelUrlSuffix == null ? null : YouTubeClient.URL.concat(channelUrlSuffix);
 
         final String streamAmountText = rootElement.paths("viewCountText").asString("simpleText");
         final String streamAmountDigits = streamAmountText == null || streamAmountText.isEmpty() ?
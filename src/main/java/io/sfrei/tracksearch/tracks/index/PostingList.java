@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.index;
+
+import java.util.Arrays;
+
+/**
+ * Ascending document IDs of a term, stored as variable length deltas which takes one byte for most postings.
+ */
+final class PostingList {
+
+    private byte[] data = new byte[4];
+    private int length;
+    private int size;
+    private int lastDoc = -1;
+
+    /**
+     * Add a document, IDs must be added in ascending order, adding the last one again is ignored.
+     */
+    void add(final int doc) {
+        if (doc == lastDoc)
+            return;
+        if (doc < lastDoc)
+            throw new IllegalArgumentException(String.format("Document %s added after %s", doc, lastDoc));
+
+        if (length + 5 > data.length)
+            data = Arrays.copyOf(data, Math.max(data.length << 1, length + 5));
+
+        int delta = doc - lastDoc;
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) (delta & 0x7F | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        lastDoc = doc;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the compressed size in bytes.
+     */
+    int bytes() {
+        return length;
+    }
+
+    int[] toArray() {
+        final int[] docs = new int[size];
+        int doc = -1;
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[position++];
+                delta |= (current & 0x7F) << shift;
+                shift += 7;
+            } while (current < 0);
+            doc += delta;
+            docs[i] = doc;
+        }
+        return docs;
+    }
+
+    /**
+     * Keep the ascending documents contained in this list, walking both at once.
+     *
+     * @param docs  ascending documents, the retained ones are moved to the front.
+     * @param count the amount of documents to check.
+     * @return the amount of retained documents.
+     */
+    int retainAll(final int[] docs, final int count) {
+        int retained = 0;
+        int doc = -1;
+        int position = 0;
+        int read = 0;
+        for (int i = 0; i < count; i++) {
+            final int wanted = docs[i];
+            while (doc < wanted && read < size) {
+                int delta = 0;
+                int shift = 0;
+                byte current;
+                do {
+                    current = data[position++];
+                    delta |= (current & 0x7F) << shift;
+                    shift += 7;
+                } while (current < 0);
+                doc += delta;
+                read++;
+            }
+            if (doc == wanted)
+                docs[retained++] = wanted;
+            else if (doc < wanted)
+                break;
+        }
+        return retained;
+    }
+
+}
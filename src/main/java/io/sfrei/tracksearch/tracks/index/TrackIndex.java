@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.index;
+
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.codec.TrackListCodec;
+import io.sfrei.tracksearch.tracks.dedup.CanonicalTrackId;
+import io.sfrei.tracksearch.tracks.merge.RelevanceMergeStrategy;
+import io.sfrei.tracksearch.tracks.metadata.TrackMetadata;
+import io.sfrei.tracksearch.utils.TitleTokenizer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the tracks seen in search results, to look up tracks without requesting a source.
+ * The tokens of the clean title and the channel name point to posting lists of delta compressed document IDs,
+ * the tracks are kept encoded with {@link TrackListCodec}.
+ * <p>
+ * A search returns the tracks containing all query tokens. The most recently added ones are scored like
+ * {@link RelevanceMergeStrategy} does, from features kept per track, so only the returned tracks are decoded.
+ * The index holds at most the configured amount of tracks in two generations: once the current generation is full,
+ * the previous one is dropped. Tracks seen again are added to the current one.
+ */
+@Slf4j
+public class TrackIndex {
+
+    /**
+     * Amount of matching tracks which are scored at most, the most recently added ones.
+     */
+    static final int MAX_CANDIDATES = 10_000;
+
+    private static final RelevanceMergeStrategy RELEVANCE = RelevanceMergeStrategy.defaults();
+
+    private static final Comparator<Candidate> BY_RELEVANCE = Comparator.comparingDouble(Candidate::score)
+            .thenComparingLong(Candidate::recency);
+
+    private final int generationSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int generation;
+
+    private Generation current;
+
+    private Generation previous;
+
+    public TrackIndex(final int maxTracks) {
+        if (maxTracks < 2)
+            throw new IllegalArgumentException("Max tracks must be at least 2");
+
+        this.generationSize = maxTracks / 2;
+        this.previous = new Generation(generation++);
+        this.current = new Generation(generation++);
+    }
+
+    /**
+     * Add a track, tracks already contained in the current generation are skipped.
+     *
+     * @param track the track to add.
+     */
+    public void add(final Track track) {
+        addAll(List.of(track));
+    }
+
+    /**
+     * Add tracks, tracks already contained in the current generation are skipped.
+     *
+     * @param tracks the tracks to add.
+     */
+    public void addAll(final Collection<? extends Track> tracks) {
+        lock.writeLock().lock();
+        try {
+            for (final Track track : tracks) {
+                if (track == null || track.getSource() == null)
+                    continue;
+
+                final String id = CanonicalTrackId.of(track);
+                if (current.contains(id))
+                    continue;
+
+                if (current.size() >= generationSize) {
+                    log.debug("Local index generation full with {} tracks, dropping the previous one", current.size());
+                    previous = current;
+                    current = new Generation(generation++);
+                }
+
+                current.add(id, track, previous.contains(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search for the tracks containing all tokens of the query in their clean title or channel name.
+     *
+     * @param query the query.
+     * @param limit the maximum amount of tracks to return.
+     * @return the best matching tracks, the most relevant first.
+     */
+    public List<Track> search(final String query, final int limit) {
+        final Set<String> tokens = new LinkedHashSet<>(TitleTokenizer.tokens(query));
+        if (tokens.isEmpty() || limit < 1)
+            return List.of();
+
+        final PriorityQueue<Candidate> best = new PriorityQueue<>(Math.min(limit, 64) + 1, BY_RELEVANCE);
+        lock.readLock().lock();
+        try {
+            final int scored = current.collect(tokens, null, MAX_CANDIDATES, limit, best);
+            previous.collect(tokens, current, MAX_CANDIDATES - scored, limit, best);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        final Track[] tracks = new Track[best.size()];
+        for (int i = tracks.length - 1; i >= 0; i--)
+            tracks[i] = TrackListCodec.decodeTrack(ByteBuffer.wrap(best.poll().track()));
+
+        return new ArrayList<>(Arrays.asList(tracks));
+    }
+
+    /**
+     * Get the amount of tracks in the index.
+     *
+     * @return the amount of tracks.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return current.size() + previous.size() - current.refreshed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the amount of bytes used by the posting lists.
+     *
+     * @return the compressed posting size.
+     */
+    public long postingBytes() {
+        lock.readLock().lock();
+        try {
+            return current.postingBytes() + previous.postingBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bit of a token in the title signature of a track
+    private static long signatureBit(final String token) {
+        final int hash = token.hashCode();
+        return 1L << ((hash ^ hash >>> 16) & 63);
+    }
+
+    private record Candidate(byte[] track, double score, long recency) {
+    }
+
+    private static final class Generation {
+
+        private final long number;
+        private final List<String> ids = new ArrayList<>();
+        private final List<byte[]> tracks = new ArrayList<>();
+        private final Map<String, Integer> docs = new HashMap<>();
+        private final Map<String, PostingList> postings = new HashMap<>();
+        private int refreshed; // Tracks also contained in the previous generation
+
+        // Features to score without decoding the tracks
+        private long[] titleSignatures = new long[16];
+        private byte[] titleTokenCounts = new byte[16];
+        private int[] durationSeconds = new int[16];
+        private long[] streamAmounts = new long[16];
+
+        Generation(final long number) {
+            this.number = number;
+        }
+
+        int size() {
+            return tracks.size();
+        }
+
+        boolean contains(final String id) {
+            return docs.containsKey(id);
+        }
+
+        void add(final String id, final Track track, final boolean inPrevious) {
+            final int doc = tracks.size();
+            ids.add(id);
+            tracks.add(TrackListCodec.encode(track));
+            docs.put(id, doc);
+            if (inPrevious)
+                refreshed++;
+
+            if (doc == titleSignatures.length) {
+                final int capacity = doc << 1;
+                titleSignatures = Arrays.copyOf(titleSignatures, capacity);
+                titleTokenCounts = Arrays.copyOf(titleTokenCounts, capacity);
+                durationSeconds = Arrays.copyOf(durationSeconds, capacity);
+                streamAmounts = Arrays.copyOf(streamAmounts, capacity);
+            }
+
+            // Doc IDs ascend, tokens contained twice are added once by the posting list
+            final Set<String> titleTokens = new HashSet<>(TitleTokenizer.tokens(track.getCleanTitle()));
+            long signature = 0;
+            for (final String token : titleTokens) {
+                postings.computeIfAbsent(token, key -> new PostingList()).add(doc);
+                signature |= signatureBit(token);
+            }
+            titleSignatures[doc] = signature;
+            titleTokenCounts[doc] = (byte) Math.min(titleTokens.size(), Byte.MAX_VALUE);
+
+            final Duration duration = track.getDuration();
+            durationSeconds[doc] = duration == null ? 0 : (int) Math.min(duration.toSeconds(), Integer.MAX_VALUE);
+
+            final TrackMetadata metadata = track.getTrackMetadata();
+            if (metadata == null)
+                return;
+
+            streamAmounts[doc] = metadata.streamAmount() == null ? 0 : metadata.streamAmount();
+            for (final String token : TitleTokenizer.tokens(metadata.channelName()))
+                postings.computeIfAbsent(token, key -> new PostingList()).add(doc);
+        }
+
+        /**
+         * Score the newest tracks containing all tokens and keep the best ones.
+         *
+         * @param tokens     the distinct query tokens.
+         * @param newer      the newer generation whose tracks are skipped, or null.
+         * @param maxScored  the maximum amount of tracks to score.
+         * @param limit      the amount of best tracks to keep.
+         * @param best       the best tracks with the least relevant on top.
+         * @return the amount of scored tracks.
+         */
+        int collect(final Set<String> tokens, final Generation newer, final int maxScored, final int limit,
+                    final PriorityQueue<Candidate> best) {
+
+            if (maxScored <= 0)
+                return 0;
+
+            final List<PostingList> lists = new ArrayList<>(tokens.size());
+            for (final String token : tokens) {
+                final PostingList list = postings.get(token);
+                if (list == null)
+                    return 0;
+                lists.add(list);
+            }
+
+            // Intersect starting with the shortest list to walk as few documents as possible
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            final int[] matches = lists.get(0).toArray();
+            int count = matches.length;
+            for (int i = 1; i < lists.size() && count > 0; i++)
+                count = lists.get(i).retainAll(matches, count);
+
+            final long[] tokenBits = new long[tokens.size()];
+            int t = 0;
+            for (final String token : tokens)
+                tokenBits[t++] = signatureBit(token);
+
+            int scored = 0;
+            for (int i = count - 1; i >= 0 && scored < maxScored; i--) {
+                final int doc = matches[i];
+                if (newer != null && newer.contains(ids.get(doc)))
+                    continue;
+
+                int matched = 0;
+                for (final long bit : tokenBits) {
+                    if ((titleSignatures[doc] & bit) != 0)
+                        matched++;
+                }
+                final double titleMatch = RelevanceMergeStrategy.titleMatch(matched, tokenBits.length, titleTokenCounts[doc]);
+                final double score = RELEVANCE.score(titleMatch, Duration.ofSeconds(durationSeconds[doc]), streamAmounts[doc]);
+                scored++;
+
+                final long recency = number << 32 | doc;
+                if (best.size() < limit) {
+                    best.add(new Candidate(tracks.get(doc), score, recency));
+                } else if (score > best.peek().score()) {
+                    best.poll();
+                    best.add(new Candidate(tracks.get(doc), score, recency));
+                }
+            }
+            return scored;
+        }
+
+        long postingBytes() {
+            long bytes = 0;
+            for (final PostingList list : postings.values())
+                bytes += list.bytes();
+            return bytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.merge;
+
+import io.sfrei.tracksearch.tracks.Track;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service provider interface deciding the order in which the results of multiple sources are merged into one page.
+ * Set the implementation with {@link io.sfrei.tracksearch.config.TrackSearchConfig#mergeStrategy}.
+ * Implementations must be thread safe.
+ */
+public interface MergeStrategy {
+
+    /**
+     * Append the results of the sources one after another.
+     */
+    MergeStrategy CONCATENATE = new MergeStrategy() {
+        @Override
+        public <T extends Track> List<T> merge(String query, List<? extends List<T>> sourceResults) {
+            final List<T> merged = new ArrayList<>(MergeStrategy.size(sourceResults));
+            sourceResults.forEach(merged::addAll);
+            return merged;
+        }
+    };
+
+    /**
+     * Take one track of each source in turn until all are exhausted.
+     */
+    MergeStrategy ROUND_ROBIN = new MergeStrategy() {
+        @Override
+        public <T extends Track> List<T> merge(String query, List<? extends List<T>> sourceResults) {
+            final List<T> merged = new ArrayList<>(MergeStrategy.size(sourceResults));
+            final int rounds = sourceResults.stream().mapToInt(List::size).max().orElse(0);
+            for (int i = 0; i < rounds; i++) {
+                for (final List<T> results : sourceResults) {
+                    if (i < results.size())
+                        merged.add(results.get(i));
+                }
+            }
+            return merged;
+        }
+    };
+
+    /**
+     * Merge the results of the sources into one list.
+     *
+     * @param query         the query the results were returned for, might be null.
+     * @param sourceResults the results per source.
+     * @param <T>           the track type.
+     * @return the merged results.
+     */
+    <T extends Track> List<T> merge(String query, List<? extends List<T>> sourceResults);
+
+    private static int size(List<? extends List<?>> sourceResults) {
+        return sourceResults.stream().mapToInt(List::size).sum();
+    }
+
+}
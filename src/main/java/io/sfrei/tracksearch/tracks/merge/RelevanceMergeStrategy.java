@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.merge;
+
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.metadata.TrackMetadata;
+import io.sfrei.tracksearch.utils.TitleTokenizer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Orders the merged results by relevance. The score of a track is the weighted sum of
+ * <ul>
+ *     <li>the title match, the share of query tokens contained in the clean title (80%)
+ *     and the share of title tokens contained in the query (20%)</li>
+ *     <li>the duration, 1 for typical song lengths from 90 seconds to 10 minutes, decreasing outside</li>
+ *     <li>the stream amount, logarithmic up to 1 for a billion streams</li>
+ * </ul>
+ * Every title is tokenized once, the tracks are sorted by their score, so merging takes O(n log n).
+ * Tracks with equal score keep their round-robin order.
+ *
+ * @param titleWeight    the weight of the title match.
+ * @param durationWeight the weight of the duration.
+ * @param streamWeight   the weight of the stream amount.
+ */
+public record RelevanceMergeStrategy(double titleWeight, double durationWeight, double streamWeight) implements MergeStrategy {
+
+    private static final long TYPICAL_MIN_SECONDS = 90;
+    private static final long TYPICAL_MAX_SECONDS = 600;
+    private static final double MAX_STREAMS_LOG = 9;
+
+    public static RelevanceMergeStrategy defaults() {
+        return new RelevanceMergeStrategy(1.0, 0.2, 0.3);
+    }
+
+    @Override
+    public <T extends Track> List<T> merge(String query, List<? extends List<T>> sourceResults) {
+        final List<T> interleaved = ROUND_ROBIN.merge(query, sourceResults);
+        final Set<String> queryTokens = new HashSet<>(TitleTokenizer.tokens(query));
+
+        final List<Scored<T>> scored = new ArrayList<>(interleaved.size());
+        for (final T track : interleaved)
+            scored.add(new Scored<>(track, score(queryTokens, track)));
+
+        scored.sort(Comparator.comparingDouble(Scored<T>::score).reversed());
+
+        final List<T> merged = new ArrayList<>(scored.size());
+        for (final Scored<T> entry : scored)
+            merged.add(entry.track());
+
+        return merged;
+    }
+
+    double score(Set<String> queryTokens, Track track) {
+        final TrackMetadata metadata = track.getTrackMetadata();
+        return score(titleMatch(queryTokens, track.getCleanTitle()), track.getDuration(),
+                metadata == null ? null : metadata.streamAmount());
+    }
+
+    /**
+     * Score a track from its title match, e.g. computed by an index without the title.
+     *
+     * @param titleMatch   the title match, see {@link #titleMatch(int, int, int)}.
+     * @param duration     the duration of the track.
+     * @param streamAmount the stream amount of the track.
+     * @return the score, the higher the more relevant.
+     */
+    public double score(double titleMatch, Duration duration, Long streamAmount) {
+        return titleWeight * titleMatch
+                + durationWeight * durationFit(duration)
+                + streamWeight * streamPopularity(streamAmount);
+    }
+
+    /**
+     * Get the title match from the amount of query tokens contained in the title.
+     *
+     * @param matched     the amount of query tokens contained in the title.
+     * @param queryTokens the amount of distinct query tokens.
+     * @param titleTokens the amount of distinct title tokens.
+     * @return the title match from 0 to 1.
+     */
+    public static double titleMatch(int matched, int queryTokens, int titleTokens) {
+        if (queryTokens == 0 || titleTokens == 0)
+            return 0;
+
+        return 0.8 * matched / queryTokens + 0.2 * matched / titleTokens;
+    }
+
+    static double titleMatch(Set<String> queryTokens, String title) {
+        if (queryTokens.isEmpty())
+            return 0;
+
+        final Set<String> titleTokens = new HashSet<>(TitleTokenizer.tokens(title));
+        if (titleTokens.isEmpty())
+            return 0;
+
+        int matched = 0;
+        for (final String token : queryTokens) {
+            if (titleTokens.contains(token))
+                matched++;
+        }
+        return titleMatch(matched, queryTokens.size(), titleTokens.size());
+    }
+
+    static double durationFit(Duration duration) {
+        if (duration == null)
+            return 0;
+
+        final long seconds = duration.toSeconds();
+        if (seconds <= 0)
+            return 0;
+        if (seconds < TYPICAL_MIN_SECONDS)
+            return (double) seconds / TYPICAL_MIN_SECONDS;
+        if (seconds > TYPICAL_MAX_SECONDS)
+            return (double) TYPICAL_MAX_SECONDS / seconds;
+        return 1;
+    }
+
+    static double streamPopularity(Long streamAmount) {
+        if (streamAmount == null || streamAmount <= 0)
+            return 0;
+
+        return Math.min(1, Math.log10(streamAmount + 1) / MAX_STREAMS_LOG);
+    }
+
+    private record Scored<T>(T track, double score) {
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.paging;
+
+import java.util.List;
+
+/**
+ * Paging state of a multi source track list, made of the cursors of the sources which can be paged further.
+ * Position and offset are the sums of the source cursors.
+ *
+ * @param query    the query.
+ * @param position the position of the first track of the page.
+ * @param offset   the position after the last track of the page.
+ * @param cursors  the cursors of the sources.
+ */
+public record MultiCursor(String query, int position, int offset, List<PagingCursor> cursors) implements PagingCursor {
+
+    public MultiCursor {
+        cursors = List.copyOf(cursors);
+        if (cursors.stream().anyMatch(MultiCursor.class::isInstance))
+            throw new IllegalArgumentException("Multi cursors cannot be nested");
+    }
+
+    /**
+     * Combine the cursors of the sources.
+     *
+     * @param query   the query.
+     * @param cursors the cursors of the sources.
+     * @return the combined cursor.
+     */
+    public static MultiCursor combining(String query, List<PagingCursor> cursors) {
+        int position = 0;
+        int offset = 0;
+        for (final PagingCursor cursor : cursors) {
+            position += cursor.position();
+            offset += cursor.offset();
+        }
+        return new MultiCursor(query, position, offset, cursors);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.paging;
+
+import io.sfrei.tracksearch.tracks.TrackList;
+
+/**
+ * Immutable paging state of a track list, enough to request the next page without the track list itself.
+ * The state can be passed around as compact and URL-safe token, see {@link #toToken()} and {@link #fromToken(String)}.
+ */
+public sealed interface PagingCursor permits YouTubeCursor, SoundCloudCursor, MultiCursor {
+
+    /**
+     * Get the query the tracks were searched for.
+     *
+     * @return the query.
+     */
+    String query();
+
+    /**
+     * Get the position of the first track of the page within all results.
+     *
+     * @return the position.
+     */
+    int position();
+
+    /**
+     * Get the position after the last track of the page, where the next page starts.
+     *
+     * @return the offset.
+     */
+    int offset();
+
+    /**
+     * Serialize the cursor into a compact token only containing URL-safe characters.
+     *
+     * @return the token.
+     */
+    default String toToken() {
+        return PagingTokenCodec.encode(this);
+    }
+
+    /**
+     * Read a cursor from a token created with {@link #toToken()}.
+     *
+     * @param token the token.
+     * @return the cursor.
+     * @throws IllegalArgumentException when the token is malformed.
+     */
+    static PagingCursor fromToken(final String token) {
+        return PagingTokenCodec.decode(token);
+    }
+
+    /**
+     * Get the cursor of a type from a track list, also when contained in the cursor of a multi source track list.
+     *
+     * @param trackList the track list.
+     * @param type      the cursor type.
+     * @param <C>       the cursor type.
+     * @return the cursor or null when the track list has none of the type.
+     */
+    static <C extends PagingCursor> C of(final TrackList<?> trackList, final Class<C> type) {
+        final PagingCursor cursor = trackList.getCursor();
+        if (type.isInstance(cursor))
+            return type.cast(cursor);
+
+        if (cursor instanceof MultiCursor multiCursor) {
+            for (final PagingCursor sourceCursor : multiCursor.cursors()) {
+                if (type.isInstance(sourceCursor))
+                    return type.cast(sourceCursor);
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.paging;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.utils.BinaryReader;
+import io.sfrei.tracksearch.utils.BinaryWriter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Binary format of the paging tokens, Base64 URL encoded without padding:
+ * <pre>
+ * token  := version cursor
+ * cursor := type varint(position) varint(offset) [string(query)] fields
+ * fields := string(continuationToken) | varint(limit) | varint(count) cursor*
+ * string := varint(length + 1) utf8, 0 for null
+ * </pre>
+ * The query is only written for the outermost cursor, cursors of a multi cursor share it.
+ */
+public final class PagingTokenCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final byte YOUTUBE = 1;
+    private static final byte SOUNDCLOUD = 2;
+    private static final byte MULTI = 3;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PagingTokenCodec() {
+    }
+
+    static String encode(final PagingCursor cursor) {
+        final BinaryWriter out = new BinaryWriter(64);
+        out.writeByte(VERSION);
+        write(out, cursor, true);
+        return ENCODER.encodeToString(out.toByteArray());
+    }
+
+    static PagingCursor decode(final String token) {
+        final BinaryReader in;
+        try {
+            in = new BinaryReader(ByteBuffer.wrap(DECODER.decode(token)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Paging token is not Base64 URL encoded", e);
+        }
+
+        final byte version = in.readByte();
+        if (version != VERSION)
+            throw new IllegalArgumentException(String.format("Unsupported paging token version %s", version));
+
+        final PagingCursor cursor = read(in);
+        if (in.hasRemaining())
+            throw new IllegalArgumentException("Paging token has trailing bytes");
+
+        return cursor;
+    }
+
+    /**
+     * Write a cursor without version to embed it in other binary formats.
+     *
+     * @param out    the writer.
+     * @param cursor the cursor.
+     */
+    public static void write(final BinaryWriter out, final PagingCursor cursor) {
+        write(out, cursor, true);
+    }
+
+    /**
+     * Read a cursor written with {@link #write(BinaryWriter, PagingCursor)}.
+     *
+     * @param in the reader.
+     * @return the cursor.
+     * @throws IllegalArgumentException when the input is malformed.
+     */
+    public static PagingCursor read(final BinaryReader in) {
+        return read(in, false, null);
+    }
+
+    private static void write(final BinaryWriter out, final PagingCursor cursor, final boolean withQuery) {
+        if (cursor instanceof YouTubeCursor youTubeCursor) {
+            writeHeader(out, YOUTUBE, cursor, withQuery);
+            out.writeString(youTubeCursor.continuationToken());
+        } else if (cursor instanceof SoundCloudCursor soundCloudCursor) {
+            writeHeader(out, SOUNDCLOUD, cursor, withQuery);
+            out.writeVarInt(soundCloudCursor.limit());
+        } else if (cursor instanceof MultiCursor multiCursor) {
+            writeHeader(out, MULTI, cursor, withQuery);
+            out.writeVarInt(multiCursor.cursors().size());
+            multiCursor.cursors().forEach(sourceCursor -> write(out, sourceCursor, false));
+        }
+    }
+
+    private static void writeHeader(final BinaryWriter out, final byte type, final PagingCursor cursor, final boolean withQuery) {
+        out.writeByte(type);
+        out.writeVarInt(cursor.position());
+        out.writeVarInt(cursor.offset());
+        if (withQuery)
+            out.writeString(cursor.query());
+    }
+
+    private static PagingCursor read(final BinaryReader in, final boolean nested, final String sharedQuery) {
+        final byte type = in.readByte();
+        final int position = in.readVarInt();
+        final int offset = in.readVarInt();
+        final String query = nested ? sharedQuery : in.readString();
+
+        switch (type) {
+            case YOUTUBE:
+                return new YouTubeCursor(query, position, offset, in.readString());
+            case SOUNDCLOUD:
+                return new SoundCloudCursor(query, position, offset, in.readVarInt());
+            case MULTI:
+                if (nested)
+                    throw new IllegalArgumentException("Paging token contains nested multi cursors");
+
+                final int count = in.readVarInt();
+                final List<PagingCursor> cursors = new ArrayList<>(Math.min(count, TrackSource.values().length));
+                for (int i = 0; i < count; i++)
+                    cursors.add(read(in, true, query));
+                return new MultiCursor(query, position, offset, cursors);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown cursor type %s in paging token", type));
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.paging;
+
+/**
+ * Paging state of a YouTube track list, YouTube pages by continuation token.
+ *
+ * @param query             the query.
+ * @param position          the position of the first track of the page.
+ * @param offset            the position after the last track of the page.
+ * @param continuationToken the token to request the next page or null when there is none.
+ */
+public record YouTubeCursor(String query, int position, int offset, String continuationToken) implements PagingCursor {
+
+    /**
+     * Move the cursor to start at another position, keeping the amount of tracks.
+     *
+     * @param position the new position.
+     * @return the moved cursor.
+     */
+    public YouTubeCursor startingAt(int position) {
+        return new YouTubeCursor(query, position, position + offset - this.position, continuationToken);
+    }
+
+}
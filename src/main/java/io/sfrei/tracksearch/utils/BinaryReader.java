@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.utils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what the {@link BinaryWriter} wrote directly from a byte buffer, heap buffers are read without copying.
+ * Malformed input fails with an {@link IllegalArgumentException}. Not thread safe.
+ */
+public final class BinaryReader {
+
+    private final ByteBuffer buffer;
+
+    private byte[] scratch; // Only used for strings of direct buffers
+
+    public BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public byte readByte() {
+        try {
+            return buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Unexpected end of input", e);
+        }
+    }
+
+    public int readVarInt() {
+        final long value = readVarLong();
+        if (value > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Varint exceeds int range");
+
+        return (int) value;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final byte current = readByte();
+            value |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                if (value < 0)
+                    throw new IllegalArgumentException("Varint exceeds long range");
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Read a string written with {@link BinaryWriter#writeString(String)}.
+     *
+     * @return the string or null.
+     */
+    public String readString() {
+        final int length = readVarInt() - 1;
+        return length < 0 ? null : readUtf8(length);
+    }
+
+    /**
+     * Read UTF-8 bytes of a known length.
+     *
+     * @param length the amount of bytes.
+     * @return the decoded string.
+     */
+    public String readUtf8(int length) {
+        if (length > buffer.remaining())
+            throw new IllegalArgumentException("Unexpected end of input");
+
+        final String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            if (scratch == null || scratch.length < length)
+                scratch = new byte[Math.max(64, length)];
+            buffer.get(scratch, 0, length);
+            value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growing byte buffer for compact binary formats, numbers are written as unsigned LEB128 varints.
+ * Not thread safe.
+ */
+public final class BinaryWriter {
+
+    private byte[] buffer;
+    private int size;
+
+    public BinaryWriter(int initialCapacity) {
+        buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public BinaryWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    public BinaryWriter writeVarInt(int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative values are not supported as varint");
+
+        return writeVarLong(value);
+    }
+
+    public BinaryWriter writeVarLong(long value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative values are not supported as varint");
+
+        ensureCapacity(10);
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        buffer[size++] = (byte) remaining;
+        return this;
+    }
+
+    public BinaryWriter writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    /**
+     * Write a string prefixed by its UTF-8 length plus one, 0 stands for null.
+     *
+     * @param value the string or null.
+     * @return this writer.
+     */
+    public BinaryWriter writeString(String value) {
+        if (value == null)
+            return writeVarInt(0);
+
+        writeVarInt(utf8Length(value) + 1);
+        return writeUtf8(value);
+    }
+
+    /**
+     * Write the UTF-8 bytes of a string without length, encoded directly into the buffer.
+     *
+     * @param value the string.
+     * @return this writer.
+     */
+    public BinaryWriter writeUtf8(String value) {
+        return writeUtf8(value, 0, value.length());
+    }
+
+    /**
+     * Write the UTF-8 bytes of a part of a string without length, encoded directly into the buffer.
+     *
+     * @param value the string.
+     * @param from  the index of the first char.
+     * @param to    the index after the last char.
+     * @return this writer.
+     */
+    public BinaryWriter writeUtf8(String value, int from, int to) {
+        final int length = to;
+        ensureCapacity((to - from) * 3);
+        for (int i = from; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | c >> 6);
+                buffer[size++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[size++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                buffer[size++] = '?'; // Unpaired surrogate, like String#getBytes
+            } else {
+                buffer[size++] = (byte) (0xE0 | c >> 12);
+                buffer[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[size++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Get the amount of bytes {@link #writeUtf8(String)} writes for a string.
+     *
+     * @param value the string.
+     * @return the UTF-8 length.
+     */
+    public static int utf8Length(String value) {
+        return utf8Length(value, 0, value.length());
+    }
+
+    /**
+     * Get the amount of bytes {@link #writeUtf8(String, int, int)} writes for a part of a string.
+     *
+     * @param value the string.
+     * @param from  the index of the first char.
+     * @param to    the index after the last char.
+     * @return the UTF-8 length.
+     */
+    public static int utf8Length(String value, int from, int to) {
+        final int length = to;
+        int bytes = to - from;
+        for (int i = from; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+    }
+
+}
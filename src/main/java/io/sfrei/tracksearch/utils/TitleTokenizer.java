@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@UtilityClass
+public class TitleTokenizer {
+
+    /**
+     * Split a text into lower case tokens of letters and digits, everything else separates tokens.
+     *
+     * @param text the text to tokenize.
+     * @return the tokens in order of appearance.
+     */
+    public List<String> tokens(final String text) {
+        final List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+
+        final int length = text.length();
+        int start = -1;
+        for (int i = 0; i < length; i++) {
+            final boolean tokenChar = Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        if (start >= 0)
+            tokens.add(text.substring(start).toLowerCase(Locale.ROOT));
+
+        return tokens;
+    }
+
+}
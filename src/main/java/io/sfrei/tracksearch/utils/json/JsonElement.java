@@ -19,6 +19,8 @@ package io.sfrei.tracksearch.utils.json;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sfrei.tracksearch.metrics.jfr.JfrEvents;
+import io.sfrei.tracksearch.metrics.jfr.JsonReadEvent;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
@@ -44,11 +46,21 @@ public class JsonElement extends JsonNodeResolver {
     }
 
     public static Optional<JsonElement> readTreeCatching(final ObjectMapper mapper, final String json) {
+        final JsonReadEvent event = JfrEvents.enabled() ? new JsonReadEvent() : null;
+        if (event != null)
+            event.begin();
         try {
             return Optional.of(readTree(mapper, json));
         } catch (JsonProcessingException e) {
+            if (event != null)
+                event.failed = true;
             log.error("Error occurred reading JSON: '{}'", json, e);
             return Optional.empty();
+        } finally {
+            if (event != null && event.shouldCommit()) {
+                event.jsonLength = json.length();
+                event.commit();
+            }
         }
     }
 
@@ -69,6 +81,9 @@ public class JsonElement extends JsonNodeResolver {
     }
 
     public Stream<JsonElement> elements() {
+        if (nodeIsNull())
+            return Stream.empty();
+
         return StreamSupport.stream(Spliterators.spliteratorUnknownSize(node().elements(), Spliterator.ORDERED), false)
                 .map(JsonElement::of);
     }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.tracks.dedup.CanonicalTrackId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NegativeTrackCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    public void failuresAreFoundForEveryURLVariant() {
+        final NegativeTrackCache cache = new NegativeTrackCache(Duration.ofHours(1), 10,
+                NegativeTrackCache.DEFAULT_FALSE_POSITIVE_RATE, clock);
+
+        cache.recordUnavailable(CanonicalTrackId.of(TrackSource.Youtube, "https://www.youtube.com/watch?v=deleted"), "Video unavailable");
+
+        assertThat(cache.unavailableReason(CanonicalTrackId.of(TrackSource.Youtube, "https://youtu.be/deleted?t=42")))
+                .isEqualTo("Video unavailable");
+        assertThat(cache.unavailableReason(CanonicalTrackId.of(TrackSource.Youtube, "https://www.youtube.com/watch?v=alive")))
+                .isNull();
+        assertThat(cache.getSnapshot()).extracting("fastFailures", "recorded", "failureEntries", "filterEntries")
+                .containsExactly(1L, 1L, 1, 1L);
+    }
+
+    @Test
+    public void failuresDecay() {
+        final NegativeTrackCache cache = new NegativeTrackCache(Duration.ofHours(1), 10,
+                NegativeTrackCache.DEFAULT_FALSE_POSITIVE_RATE, clock);
+        cache.recordUnavailable("youtube:deleted", "Video unavailable");
+
+        clock.advance(Duration.ofMinutes(59));
+        assertThat(cache.unavailableReason("youtube:deleted")).isEqualTo("Video unavailable");
+
+        // Still matching the previous filter generation but expired in the map
+        clock.advance(Duration.ofMinutes(30));
+        assertThat(cache.unavailableReason("youtube:deleted")).isNull();
+        assertThat(cache.getSnapshot().failureEntries()).isZero();
+
+        clock.advance(Duration.ofMinutes(60));
+        assertThat(cache.unavailableReason("youtube:deleted")).isNull();
+        assertThat(cache.getSnapshot().filterEntries()).isZero();
+    }
+
+    @Test
+    public void filterMatchesAloneAreRequestedAgain() {
+        final NegativeTrackCache cache = new NegativeTrackCache(Duration.ofHours(1), 1,
+                NegativeTrackCache.DEFAULT_FALSE_POSITIVE_RATE, clock);
+        cache.recordUnavailable("youtube:evicted", "Video unavailable");
+        cache.recordUnavailable("youtube:deleted", "Video unavailable");
+
+        assertThat(cache.unavailableReason("youtube:evicted"))
+                .as("A failure evicted from the map should not fail the track")
+                .isNull();
+        assertThat(cache.unavailableReason("youtube:deleted")).isEqualTo("Video unavailable");
+        assertThat(cache.getSnapshot()).extracting("fastFailures", "filterEntries")
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void bloomFilterScalesWithinFalsePositiveRate() {
+        final ScalableBloomFilter filter = new ScalableBloomFilter(1024, 0.001);
+        final int added = 100_000;
+        for (int i = 0; i < added; i++)
+            filter.put(OffHeapIndex.hash(("youtube:dead" + i).getBytes()));
+
+        for (int i = 0; i < added; i++)
+            assertThat(filter.mightContain(OffHeapIndex.hash(("youtube:dead" + i).getBytes()))).isTrue();
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            if (filter.mightContain(OffHeapIndex.hash(("youtube:alive" + i).getBytes())))
+                falsePositives++;
+        }
+        assertThat(falsePositives).isLessThan(1_000);
+        assertThat(filter.stageCount()).isGreaterThan(1);
+        assertThat(filter.count()).isLessThanOrEqualTo(added);
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.cache;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.config.CacheConfig;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.metrics.jfr.TrackSearchCallable;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.paging.YouTubeCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackListCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    private static GenericTrackList<Track> trackList(String query, int tracks) {
+        final List<Track> list = new ArrayList<>();
+        for (int i = 0; i < tracks; i++) {
+            list.add(YouTubeTrack.builder().title(query + " " + i).url("https://www.youtube.com/watch?v=" + query + i)
+                    .duration(Duration.ofSeconds(200 + i)).build());
+        }
+        return GenericTrackList.<Track>using(QueryType.SEARCH, new HashMap<>(Map.of(TrackList.QUERY_KEY, query)), null)
+                .withTracks(list)
+                .withCursor(new YouTubeCursor(query, 0, tracks, "token"));
+    }
+
+    private static CacheConfig diskConfig(Path directory) {
+        return CacheConfig.defaults().withDirectory(directory);
+    }
+
+    @Test
+    public void heapHitsAreCopiesUntilExpired() throws IOException {
+        final TrackListCache cache = new TrackListCache(CacheConfig.defaults(), clock);
+        final GenericTrackList<Track> cached = trackList("bonobo", 3);
+        cache.put("bonobo", cached);
+        cached.clear();
+
+        final GenericTrackList<Track> hit = cache.get("bonobo", trackList -> trackList);
+        assertThat(hit).hasSize(3);
+        assertThat(hit.getQueryValue()).isEqualTo("bonobo");
+        assertThat(hit.getPagingToken()).isEqualTo(new YouTubeCursor("bonobo", 0, 3, "token").toToken());
+        assertThat(hit.next()).isSameAs(hit);
+
+        hit.clear();
+        assertThat(cache.<Track>get("bonobo", null)).hasSize(3);
+
+        clock.advance(CacheConfig.defaults().ttl());
+        assertThat(cache.<Track>get("bonobo", null)).isNull();
+        assertThat(cache.getSnapshot()).extracting("heapHits", "misses").containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void diskEntriesArePromotedAndSurviveReopening(@TempDir Path directory) throws IOException {
+        final CacheConfig config = new CacheConfig(1, directory, 64 * 1024, 4, Duration.ofMinutes(5), null);
+        try (TrackListCache cache = new TrackListCache(config, clock)) {
+            cache.put("first", trackList("first", 20));
+            cache.put("second", trackList("second", 20));
+
+            assertThat(cache.<Track>get("first", null)).isEqualTo(trackList("first", 20));
+            assertThat(cache.getSnapshot()).extracting("heapHits", "diskHits", "heapEntries", "diskEntries")
+                    .containsExactly(0L, 1L, 1, 2);
+            assertThat(cache.<Track>get("first", null)).isNotNull();
+            assertThat(cache.getSnapshot().heapHits()).isEqualTo(1);
+
+            cache.invalidate("second");
+        }
+
+        try (TrackListCache reopened = new TrackListCache(config, clock)) {
+            assertThat(reopened.<Track>get("first", null)).isEqualTo(trackList("first", 20));
+            assertThat(reopened.<Track>get("second", null)).isNull();
+        }
+
+        clock.advance(Duration.ofMinutes(5));
+        try (TrackListCache expired = new TrackListCache(config, clock)) {
+            assertThat(expired.getSnapshot().diskEntries()).isZero();
+        }
+    }
+
+    @Test
+    public void tornRecordsAreDroppedOnReopening(@TempDir Path directory) throws IOException {
+        final CacheConfig config = new CacheConfig(1, directory, 64 * 1024, 4, Duration.ofMinutes(5), null);
+        try (TrackListCache cache = new TrackListCache(config, clock)) {
+            cache.put("first", trackList("first", 5));
+            cache.put("second", trackList("second", 5));
+        }
+
+        // Corrupt the last byte of the second record
+        final Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.toString().endsWith(SegmentStore.SEGMENT_SUFFIX)).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            final int secondEnd = header.getInt(0) + secondLength(channel, header.getInt(0));
+            channel.write(ByteBuffer.wrap(new byte[]{42}), secondEnd - 1);
+        }
+
+        try (TrackListCache reopened = new TrackListCache(config, clock)) {
+            assertThat(reopened.<Track>get("first", null)).hasSize(5);
+            assertThat(reopened.<Track>get("second", null)).isNull();
+            reopened.put("third", trackList("third", 5));
+        }
+
+        try (TrackListCache reopened = new TrackListCache(config, clock)) {
+            assertThat(reopened.getSnapshot().diskEntries()).isEqualTo(2);
+            assertThat(reopened.<Track>get("third", null)).hasSize(5);
+        }
+    }
+
+    private static int secondLength(FileChannel channel, int offset) throws IOException {
+        final ByteBuffer length = ByteBuffer.allocate(4);
+        channel.read(length, offset);
+        return length.getInt(0);
+    }
+
+    @Test
+    public void overwrittenEntriesAreCompacted(@TempDir Path directory) throws IOException {
+        final CacheConfig config = new CacheConfig(1, directory, 8 * 1024, 3, Duration.ofMinutes(5), null);
+        try (TrackListCache cache = new TrackListCache(config, clock, SharedExecutor.WORKER, Runnable::run)) {
+            cache.put("kept", trackList("kept", 3));
+            for (int i = 0; i < 200; i++)
+                cache.put("hot", trackList("hot" + i % 7, 3));
+
+            assertThat(cache.<Track>get("kept", null)).hasSize(3);
+            assertThat(cache.<Track>get("hot", null).getQueryValue()).isEqualTo("hot" + 199 % 7);
+            assertThat(cache.getSnapshot().diskBytes()).isLessThanOrEqualTo(3 * 8 * 1024);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isLessThanOrEqualTo(3);
+        }
+    }
+
+    @Test
+    public void compactionRunsOffThePutPath(@TempDir Path directory) throws IOException {
+        final List<Runnable> compactions = new ArrayList<>();
+        final CacheConfig config = new CacheConfig(1, directory, 8 * 1024, 8, Duration.ofMinutes(5), null);
+        try (TrackListCache cache = new TrackListCache(config, clock, SharedExecutor.WORKER, compactions::add)) {
+            cache.put("kept", trackList("kept", 3));
+            for (int i = 0; i < 60; i++)
+                cache.put("hot", trackList("hot" + i, 3));
+
+            assertThat(compactions)
+                    .as("Filled up segments should schedule a single compaction")
+                    .hasSize(1);
+            compactions.remove(0).run();
+
+            assertThat(cache.<Track>get("kept", null)).hasSize(3);
+            assertThat(cache.<Track>get("hot", null).getQueryValue()).isEqualTo("hot59");
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(Path::toString)).noneMatch(file -> file.endsWith(SegmentStore.COMPACTION_SUFFIX));
+        }
+        try (TrackListCache reopened = new TrackListCache(config, clock, SharedExecutor.WORKER, Runnable::run)) {
+            assertThat(reopened.<Track>get("kept", null)).hasSize(3);
+            assertThat(reopened.<Track>get("hot", null).getQueryValue()).isEqualTo("hot59");
+            assertThat(reopened.getSnapshot().diskEntries()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void writesDuringBackgroundCompactionsAreKept(@TempDir Path directory) throws IOException {
+        final CacheConfig config = new CacheConfig(1, directory, 8 * 1024, 4, Duration.ofMinutes(5), null);
+        try (TrackListCache cache = new TrackListCache(config, clock)) {
+            for (int i = 0; i < 2_000; i++)
+                cache.put("key" + i % 5, trackList("value" + i, 3));
+
+            for (int key = 0; key < 5; key++)
+                assertThat(cache.<Track>get("key" + key, null).getQueryValue()).isEqualTo("value" + (1_995 + key));
+        }
+
+        try (TrackListCache reopened = new TrackListCache(config, clock)) {
+            for (int key = 0; key < 5; key++)
+                assertThat(reopened.<Track>get("key" + key, null).getQueryValue()).isEqualTo("value" + (1_995 + key));
+        }
+    }
+
+    @Test
+    public void staleEntriesAreReturnedWhileRefreshingOnce() throws Exception {
+        final List<Runnable> refreshes = new ArrayList<>();
+        final CacheConfig config = CacheConfig.defaults().withStaleWhileRevalidate(Duration.ofMinutes(10));
+        final TrackListCache cache = new TrackListCache(config, clock, refreshes::add);
+        final AtomicInteger loads = new AtomicInteger();
+        final TrackSearchCallable<GenericTrackList<Track>> loader = () -> trackList("bonobo" + loads.incrementAndGet(), 3);
+
+        assertThat(cache.get("bonobo", null, loader).getQueryValue()).isEqualTo("bonobo1");
+        assertThat(cache.get("bonobo", null, loader).getQueryValue()).isEqualTo("bonobo1");
+        assertThat(refreshes).isEmpty();
+
+        clock.advance(Duration.ofMinutes(10));
+        for (int i = 0; i < 5; i++)
+            assertThat(cache.get("bonobo", null, loader).getQueryValue()).isEqualTo("bonobo1");
+        assertThat(refreshes).hasSize(1);
+        assertThat(loads).hasValue(1);
+
+        refreshes.remove(0).run();
+        assertThat(cache.get("bonobo", null, loader).getQueryValue()).isEqualTo("bonobo2");
+        assertThat(cache.getSnapshot()).extracting("staleHits", "refreshes", "refreshFailures")
+                .containsExactly(5L, 1L, 0L);
+    }
+
+    @Test
+    public void saturatedRefreshesAreSkipped() throws Exception {
+        final AtomicInteger rejected = new AtomicInteger();
+        final CacheConfig config = CacheConfig.defaults().withStaleWhileRevalidate(Duration.ofMinutes(10));
+        final TrackListCache cache = new TrackListCache(config, clock, refresh -> {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Saturated");
+        });
+        cache.put("bonobo", trackList("bonobo", 3));
+
+        clock.advance(Duration.ofMinutes(10));
+        final TrackSearchCallable<GenericTrackList<Track>> loader = () -> trackList("reloaded", 2);
+        assertThat(cache.get("bonobo", null, loader).getQueryValue()).isEqualTo("bonobo");
+        assertThat(cache.get("bonobo", null, loader).getQueryValue()).isEqualTo("bonobo");
+
+        assertThat(rejected)
+                .as("Every stale hit should try again after a skipped refresh")
+                .hasValue(2);
+        assertThat(cache.getSnapshot()).extracting("staleHits", "refreshes")
+                .containsExactly(2L, 0L);
+    }
+
+    @Test
+    public void failedRefreshesKeepStaleEntriesUntilExpired() throws Exception {
+        final List<Runnable> refreshes = new ArrayList<>();
+        final CacheConfig config = CacheConfig.defaults().withStaleWhileRevalidate(Duration.ofMinutes(10));
+        final TrackListCache cache = new TrackListCache(config, clock, refreshes::add);
+        cache.put("bonobo", trackList("bonobo", 3));
+
+        clock.advance(Duration.ofMinutes(10));
+        assertThat(cache.<Track>get("bonobo", null, () -> {
+            throw new TrackSearchException("Unavailable");
+        })).hasSize(3);
+        refreshes.remove(0).run();
+        assertThat(cache.getSnapshot().refreshFailures()).isOne();
+
+        clock.advance(Duration.ofMinutes(20));
+        assertThat(cache.get("bonobo", null, () -> trackList("reloaded", 2)).getQueryValue()).isEqualTo("reloaded");
+        assertThat(refreshes).isEmpty();
+    }
+
+    @Test
+    public void offHeapIndexGrowsAndRemoves() {
+        final OffHeapIndex index = new OffHeapIndex(4);
+        for (int i = 0; i < 10_000; i++)
+            index.put(OffHeapIndex.hash(("key" + i).getBytes()), OffHeapIndex.location(i % 7, i));
+        for (int i = 0; i < 10_000; i += 2)
+            assertThat(index.remove(OffHeapIndex.hash(("key" + i).getBytes()))).isEqualTo(OffHeapIndex.location(i % 7, i));
+
+        assertThat(index.size()).isEqualTo(5_000);
+        assertThat(index.get(OffHeapIndex.hash("key2".getBytes()))).isEqualTo(OffHeapIndex.ABSENT);
+        assertThat(OffHeapIndex.segment(index.get(OffHeapIndex.hash("key9999".getBytes())))).isEqualTo(9999 % 7);
+        assertThat(OffHeapIndex.offset(index.get(OffHeapIndex.hash("key9999".getBytes())))).isEqualTo(9999);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import lombok.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchSearchClientTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    /**
+     * Client taking a millisecond per search and tracking the searches in flight, failing queries starting with fail.
+     */
+    private class CountingClient implements TrackSearchClient<Track> {
+
+        private final AtomicInteger sourceInFlight = new AtomicInteger();
+        private final AtomicInteger maxSourceInFlight = new AtomicInteger();
+
+        @Override
+        public TrackList<Track> getTracksForSearch(@NonNull String search) throws TrackSearchException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            maxSourceInFlight.accumulateAndGet(sourceInFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+                if (search.startsWith("fail"))
+                    throw new TrackSearchException("Failed: " + search);
+                return GenericTrackList.using(QueryType.SEARCH, new HashMap<>(Map.of(TrackList.QUERY_KEY, search)), null);
+            } catch (InterruptedException e) {
+                throw new TrackSearchException(e);
+            } finally {
+                sourceInFlight.decrementAndGet();
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public TrackList<Track> getNext(@NonNull TrackList<? extends Track> trackList) {
+            return null;
+        }
+
+        @Override
+        public Set<String> validURLPrefixes() {
+            return Set.of();
+        }
+
+        @Override
+        public Track getTrack(@NonNull String url) {
+            return null;
+        }
+
+        @Override
+        public boolean hasPagingValues(@NonNull TrackList<? extends Track> trackList) {
+            return false;
+        }
+
+    }
+
+    @Test
+    public void searchesAllQueriesWithinTheLimits() throws TrackSearchException {
+        final CountingClient youTube = new CountingClient();
+        final CountingClient soundCloud = new CountingClient();
+        final Map<TrackSource, TrackSearchClient<Track>> clients = new EnumMap<>(TrackSource.class);
+        clients.put(TrackSource.Youtube, youTube);
+        clients.put(TrackSource.Soundcloud, soundCloud);
+
+        final List<String> queries = IntStream.range(0, 500).mapToObj(i -> (i % 10 == 0 ? "fail " : "query ") + i).toList();
+        final LongAdder results = new LongAdder();
+        final BatchSearchClient batchClient = new BatchSearchClient(clients, 5, 3);
+        final BatchSearchClient.Statistics statistics = batchClient.search(queries, result -> results.increment());
+
+        assertThat(results.sum()).isEqualTo(1000);
+        assertThat(statistics.requests()).isEqualTo(1000);
+        assertThat(statistics.failed()).isEqualTo(100);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(5);
+        assertThat(youTube.maxSourceInFlight.get()).isLessThanOrEqualTo(3);
+        assertThat(soundCloud.maxSourceInFlight.get()).isLessThanOrEqualTo(3);
+        assertThat(inFlight.get()).isZero();
+    }
+
+}
@@ -157,6 +157,28 @@ public abstract class ClientTest<C extends TrackSearchClient<T>, T extends Track
 
     @Order(6)
     @ParameterizedTest
+    @MethodSource("getTracksForSearch")
+    public void checkResumeFromPagingToken(TrackList<T> trackList) throws TrackSearchException {
+        delayWhenGitHubAction();
+        final String pagingToken = trackList.getPagingToken();
+        log.trace("[checkResumeFromPagingToken]: {}", pagingToken);
+
+        assertThat(pagingToken)
+                .as("TrackList should have a URL-safe paging token")
+                .matches("[A-Za-z0-9_-]+");
+
+        TrackList<T> resumedTracks = trackSearchClient.resume(pagingToken);
+
+        assertThat(resumedTracks.isEmpty())
+                .as("Resumed TrackList should contain tracks for: %s", trackList.getQueryValue())
+                .isFalse();
+        assertThat(resumedTracks.getCursor().position())
+                .as("Resumed TrackList should continue after the previous one")
+                .isEqualTo(trackList.getCursor().offset());
+    }
+
+    @Order(7)
+    @ParameterizedTest
     @MethodSource("getAllTracksFromTrackLists")
     public void checkTrack(T track) {
         log.trace("[checkTrack]: {}", track.pretty());
@@ -187,7 +209,7 @@ public abstract class ClientTest<C extends TrackSearchClient<T>, T extends Track
         assertions.assertAll();
     }
 
-    @Order(7)
+    @Order(8)
     @ParameterizedTest
     @MethodSource("getAllTracksFromTrackLists")
     public void checkTrackMetadata(T track) {
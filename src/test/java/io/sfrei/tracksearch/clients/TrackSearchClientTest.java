@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.paging.PagingCursor;
+import io.sfrei.tracksearch.tracks.paging.SoundCloudCursor;
+import lombok.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackSearchClientTest {
+
+    private static final int LAST_PAGE = 4;
+
+    /**
+     * Third-party client implementing only the required methods, each page repeats the last track of the page before.
+     */
+    private static class PagedClient implements TrackSearchClient<YouTubeTrack> {
+
+        private int requestedPages;
+
+        private TrackList<YouTubeTrack> page(String search, int page) {
+            requestedPages++;
+            final List<YouTubeTrack> tracks = List.of(track(page * 2 - 1), track(page * 2), track(page * 2 + 1));
+            return GenericTrackList.<YouTubeTrack>using(QueryType.SEARCH, new HashMap<>(Map.of(TrackList.QUERY_KEY, search)), null)
+                    .withTracks(page == 0 ? tracks.subList(1, 3) : tracks)
+                    .withCursor(page == LAST_PAGE ? null : new SoundCloudCursor(search, page, page + 1, 2));
+        }
+
+        private static YouTubeTrack track(int number) {
+            return YouTubeTrack.builder().title("Track " + number).duration(Duration.ofMinutes(3))
+                    .url("https://www.youtube.com/watch?v=" + number).build();
+        }
+
+        @Override
+        public TrackList<YouTubeTrack> getNext(@NonNull TrackList<? extends Track> trackList) {
+            final SoundCloudCursor cursor = PagingCursor.of(trackList, SoundCloudCursor.class);
+            return page(cursor.query(), cursor.offset());
+        }
+
+        @Override
+        public Set<String> validURLPrefixes() {
+            return Set.of("https://www.youtube.com");
+        }
+
+        @Override
+        public YouTubeTrack getTrack(@NonNull String url) {
+            return null;
+        }
+
+        @Override
+        public TrackList<YouTubeTrack> getTracksForSearch(@NonNull String search) {
+            return page(search, 0);
+        }
+
+        @Override
+        public boolean hasPagingValues(@NonNull TrackList<? extends Track> trackList) {
+            return trackList.getCursor() instanceof SoundCloudCursor;
+        }
+
+    }
+
+    @Test
+    public void defaultPagingGetsDistinctTracksAndContinues() throws TrackSearchException {
+        final PagedClient client = new PagedClient();
+        final TrackList<YouTubeTrack> trackList = client.getTracksForSearch("query", 3);
+
+        assertThat(trackList).extracting(Track::getTitle)
+                .containsExactly("Track 0", "Track 1", "Track 2", "Track 3", "Track 4", "Track 5");
+        assertThat(trackList.next())
+                .as("The next page is returned as received unless deduplication is enabled")
+                .extracting(Track::getTitle)
+                .containsExactly("Track 5", "Track 6", "Track 7");
+        assertThat(client.getTracksForSearch("query", 10)).hasSize(LAST_PAGE * 2 + 2);
+    }
+
+}
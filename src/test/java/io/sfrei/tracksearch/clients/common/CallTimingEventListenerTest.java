@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import com.sun.net.httpserver.HttpServer;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.metrics.CallTiming;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallTimingEventListenerTest {
+
+    private final List<CallTiming> callTimings = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            final byte[] body = "response".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        TrackSearchConfig.callTimingListener = callTimings::add;
+    }
+
+    @AfterEach
+    public void stopServer() {
+        TrackSearchConfig.callTimingListener = null;
+        server.stop(0);
+    }
+
+    @Test
+    public void recordsPhasesAndConnectionReuse() throws IOException {
+        final OkHttpClient client = new OkHttpClient.Builder()
+                .eventListenerFactory(CallTimingEventListener.FACTORY)
+                .build();
+
+        final String url = "http://localhost:" + server.getAddress().getPort() + "/results";
+        for (int call = 0; call < 2; call++) {
+            try (final Response response = client.newCall(new Request.Builder().url(url).build()).execute()) {
+                assertThat(response.body().string()).isEqualTo("response");
+            }
+        }
+
+        assertThat(callTimings).hasSize(2);
+
+        final CallTiming first = callTimings.get(0);
+        assertThat(first.url()).isEqualTo(url);
+        assertThat(first.connectionReused()).isFalse();
+        assertThat(first.connect()).isPositive();
+        assertThat(first.timeToFirstByte()).isPositive();
+        assertThat(first.total()).isGreaterThanOrEqualTo(first.timeToFirstByte());
+        assertThat(first.failed()).isFalse();
+
+        assertThat(callTimings.get(1).connectionReused())
+                .as("Second call should use the pooled connection")
+                .isTrue();
+        assertThat(callTimings.get(1).connect()).isZero();
+    }
+
+}
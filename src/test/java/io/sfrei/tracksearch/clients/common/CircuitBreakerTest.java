@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.config.CircuitBreakerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final Duration FAST = Duration.ofMillis(10);
+    private static final Duration SLOW = Duration.ofSeconds(2);
+
+    private static final CircuitBreakerConfig CONFIG =
+            new CircuitBreakerConfig(0.5, 0.5, Duration.ofSeconds(1), 4, 4, Duration.ofSeconds(10), 2);
+
+    private final AtomicLong nanoTime = new AtomicLong(0);
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", CONFIG, nanoTime::get);
+
+    @Test
+    public void opensOnFailureRate() {
+        final List<CircuitBreaker.State> transitions = new ArrayList<>();
+        circuitBreaker.addListener(transitions::add);
+
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onFailure(FAST);
+        circuitBreaker.onFailure(FAST);
+        assertThat(circuitBreaker.getState())
+                .as("Rates should not be evaluated below the minimum calls")
+                .isEqualTo(CircuitBreaker.State.CLOSED);
+
+        circuitBreaker.onSuccess(FAST);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+        assertThat(transitions).containsExactly(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void opensOnSlowCallRate() {
+        circuitBreaker.onSuccess(SLOW);
+        circuitBreaker.onSuccess(SLOW);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+
+        assertThat(circuitBreaker.getSnapshot().slowCallRate()).isEqualTo(0.5);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void halfOpenProbesClose() {
+        open();
+
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission())
+                .as("Only the configured amount of probes should be permitted")
+                .isFalse();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getSnapshot().bufferedCalls()).isZero();
+    }
+
+    @Test
+    public void halfOpenProbeFailureReopens() {
+        open();
+
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        circuitBreaker.onFailure(FAST);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    private void open() {
+        for (int call = 0; call < CONFIG.windowSize(); call++) {
+            circuitBreaker.onFailure(FAST);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+}
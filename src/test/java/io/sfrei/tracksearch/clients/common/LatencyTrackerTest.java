@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyTrackerTest {
+
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+
+    @Test
+    public void percentileRequiresSamples() {
+        for (int call = 0; call < 19; call++) {
+            latencyTracker.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertThat(latencyTracker.getPercentile(0.95)).isNull();
+
+        latencyTracker.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(latencyTracker.getPercentile(0.95)).isEqualTo(Duration.ofMillis(10));
+    }
+
+    @Test
+    public void percentileOfLatencies() {
+        for (int millis = 1; millis <= 100; millis++) {
+            latencyTracker.onSuccess(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        assertThat(latencyTracker.getPercentile(0.95)).isEqualTo(Duration.ofMillis(95));
+        assertThat(latencyTracker.getPercentile(0.5)).isEqualTo(Duration.ofMillis(50));
+    }
+
+    @Test
+    public void movingAverages() {
+        latencyTracker.onSuccess(TimeUnit.MILLISECONDS.toNanos(100));
+        latencyTracker.onFailure();
+
+        final LatencyTracker.Snapshot snapshot = latencyTracker.getSnapshot();
+        assertThat(snapshot.ewmaLatency()).isEqualTo(Duration.ofMillis(100));
+        assertThat(snapshot.ewmaErrorRate()).isCloseTo(0.2, within(1e-9));
+        assertThat(snapshot.samples()).isEqualTo(1);
+    }
+
+    @Test
+    public void cancelCallGroup() throws Exception {
+        final CallGroup callGroup = new CallGroup();
+        final int[] cancelled = {0};
+
+        callGroup.run(() -> CallGroup.register(() -> cancelled[0]++));
+        callGroup.cancel();
+        assertThat(cancelled[0]).isEqualTo(1);
+
+        callGroup.run(() -> CallGroup.register(() -> cancelled[0]++));
+        assertThat(cancelled[0])
+                .as("Calls registered after cancelling should be cancelled right away")
+                .isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import io.sfrei.tracksearch.config.RateLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong(0);
+
+    private void advanceSeconds(double seconds) {
+        nanoTime.addAndGet((long) (seconds * TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void burstThenRate() {
+        final RateLimiter rateLimiter = new RateLimiter(RateLimit.of(10, 2), nanoTime::get);
+
+        assertThat(rateLimiter.reserve()).isZero();
+        assertThat(rateLimiter.reserve()).isZero();
+        assertThat(rateLimiter.reserve())
+                .as("Exceeding the burst should wait for one permit")
+                .isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        advanceSeconds(1);
+        assertThat(rateLimiter.reserve())
+                .as("Permits should be refilled with the rate")
+                .isZero();
+    }
+
+    @Test
+    public void waitBeyondTimeoutTakesNoPermit() throws InterruptedException {
+        final RateLimiter rateLimiter = new RateLimiter(RateLimit.of(10, 1), nanoTime::get);
+
+        assertThat(rateLimiter.tryAcquire(0, TimeUnit.NANOSECONDS)).isTrue();
+        assertThat(rateLimiter.tryAcquire(50, TimeUnit.MILLISECONDS))
+                .as("The next permit is available in 100ms only")
+                .isFalse();
+        assertThat(rateLimiter.reserve())
+                .as("The failed attempt should not have taken a permit")
+                .isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void adaptiveDecreasesAndRecovers() {
+        final RateLimiter rateLimiter = new RateLimiter(RateLimit.adaptive(10, 1), nanoTime::get);
+
+        rateLimiter.onThrottled();
+        rateLimiter.onThrottled(); // Within the same interval
+        assertThat(rateLimiter.getRate())
+                .as("Rate should be halved once per interval")
+                .isEqualTo(5);
+
+        for (int second = 0; second < 20; second++) {
+            advanceSeconds(1);
+            rateLimiter.onSuccess();
+        }
+        assertThat(rateLimiter.getRate())
+                .as("Rate should recover to the configured rate")
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void fixedIgnoresThrottling() {
+        final RateLimiter rateLimiter = new RateLimiter(RateLimit.of(10, 1), nanoTime::get);
+
+        rateLimiter.onThrottled();
+        assertThat(rateLimiter.getRate())
+                .isEqualTo(10);
+    }
+
+}
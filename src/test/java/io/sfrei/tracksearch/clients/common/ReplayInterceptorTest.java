@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import com.sun.net.httpserver.HttpServer;
+import io.sfrei.tracksearch.config.ReplayConfig;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplayInterceptorTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(new ReplayInterceptor())
+            .build();
+
+    private ReplayConfig replayConfig;
+
+    private HttpServer server;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            final byte[] body = "response".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        replayConfig = TrackSearchConfig.replay;
+    }
+
+    @AfterEach
+    public void stopServer() {
+        TrackSearchConfig.replay = replayConfig;
+        server.stop(0);
+    }
+
+    @Test
+    public void keyIgnoresParameterOrderAndClientID() {
+        final String key = ReplayInterceptor.key("GET", HttpUrl.get("https://api-v2.soundcloud.com/search/tracks?q=Ben%20B%C3%B6hmer&client_id=abc&position=20&limit=20"));
+        final String reordered = ReplayInterceptor.key("GET", HttpUrl.get("https://api-v2.soundcloud.com/search/tracks?limit=20&client_id=xyz&q=Ben+B%C3%B6hmer&position=20"));
+
+        assertThat(key)
+                .isEqualTo("GET https://api-v2.soundcloud.com/search/tracks?limit=20&position=20&q=Ben Böhmer")
+                .isEqualTo(reordered);
+    }
+
+    @Test
+    public void replaysRecordedExchange() throws IOException {
+        final String url = "http://localhost:" + server.getAddress().getPort() + "/results?search_query=key";
+
+        TrackSearchConfig.replay = new ReplayConfig(ReplayConfig.Mode.RECORD, directory, Duration.ZERO, Duration.ZERO);
+        assertThat(get(url)).isEqualTo("response");
+
+        TrackSearchConfig.replay = new ReplayConfig(ReplayConfig.Mode.REPLAY, directory, Duration.ofMillis(5), Duration.ZERO);
+        final Request request = new Request.Builder().url(url).build();
+        try (final Response response = client.newCall(request).execute()) {
+            assertThat(response.code()).isEqualTo(200);
+            assertThat(response.header("Content-Type")).isEqualTo("text/html; charset=utf-8");
+            assertThat(response.body().string()).isEqualTo("response");
+        }
+
+        assertThat(requests).as("Only the recording should reach the server").hasValue(1);
+        assertThatThrownBy(() -> get(url + "&unknown=true"))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("No recording");
+    }
+
+    private String get(final String url) throws IOException {
+        try (final Response response = client.newCall(new Request.Builder().url(url).build()).execute()) {
+            return response.body().string();
+        }
+    }
+
+}
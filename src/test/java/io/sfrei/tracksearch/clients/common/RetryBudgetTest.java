@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    @Test
+    public void reserveAllowsRetriesBeforeRequests() {
+        final RetryBudget budget = new RetryBudget(0.1);
+        for (int retry = 0; retry < RetryBudget.DEFAULT_RESERVE; retry++)
+            assertThat(budget.tryRetry()).isTrue();
+        assertThat(budget.tryRetry()).isFalse();
+    }
+
+    @Test
+    public void withoutReserveRetriesFollowTheRatio() {
+        final RetryBudget budget = new RetryBudget(0.1, 0);
+        assertThat(budget.tryRetry()).isFalse();
+
+        for (int request = 0; request < 10; request++)
+            budget.onRequest();
+        assertThat(budget.tryRetry())
+                .as("Ten requests should allow one retry")
+                .isTrue();
+        assertThat(budget.tryRetry()).isFalse();
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.common;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceInterceptorTest {
+
+    private static Response throttled(String retryAfter) {
+        final Response.Builder builder = new Response.Builder()
+                .request(new Request.Builder().url("https://www.youtube.com").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(SharedClient.TOO_MANY_REQUESTS)
+                .message("Too Many Requests");
+
+        if (retryAfter != null)
+            builder.header("Retry-After", retryAfter);
+
+        return builder.build();
+    }
+
+    @Test
+    public void retryAfterSeconds() {
+        assertThat(SourceInterceptor.retryAfter(throttled("3")))
+                .isEqualTo(Duration.ofSeconds(3));
+    }
+
+    @Test
+    public void retryAfterDate() {
+        final String date = ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+
+        assertThat(SourceInterceptor.retryAfter(throttled(date)))
+                .isBetween(Duration.ofSeconds(25), Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void retryAfterMissingOrInvalid() {
+        assertThat(SourceInterceptor.retryAfter(throttled(null)))
+                .isNull();
+        assertThat(SourceInterceptor.retryAfter(throttled("soon")))
+                .isNull();
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.soundcloud;
+
+import io.sfrei.tracksearch.cache.NegativeTrackCache;
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.config.ReplayConfig;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.exceptions.SoundCloudException;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.metrics.Metrics;
+import io.sfrei.tracksearch.metrics.MetricsRecorder;
+import io.sfrei.tracksearch.tracks.dedup.CanonicalTrackId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UnavailableSoundCloudTrackTest {
+
+    private static final String DELETED_TRACK_URL = "https://soundcloud.com/deleted-artist/deleted-track";
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private ReplayConfig replayConfig;
+
+    @BeforeEach
+    public void replaySynthetic() {
+        replayConfig = TrackSearchConfig.replay;
+        TrackSearchConfig.replay = new ReplayConfig(ReplayConfig.Mode.REPLAY, Path.of("src/test/resources/replay-synthetic"),
+                Duration.ZERO, Duration.ZERO);
+        TrackSearchConfig.negativeCache = new NegativeTrackCache(Duration.ofHours(1), 10);
+        TrackSearchConfig.metricsRecorder = new MetricsRecorder() {
+            @Override
+            public void count(String name, TrackSource source, long amount) {
+                counts.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+            }
+
+            @Override
+            public void time(String name, TrackSource source, long nanos) {
+                count(name, source, 1);
+            }
+        };
+    }
+
+    @AfterEach
+    public void reset() {
+        TrackSearchConfig.replay = replayConfig;
+        TrackSearchConfig.negativeCache = null;
+        TrackSearchConfig.metricsRecorder = MetricsRecorder.NOOP;
+    }
+
+    @Test
+    public void notFoundTracksAreRecordedAndFailFast() {
+        final SoundCloudClient client = new SoundCloudClient();
+
+        assertThatThrownBy(() -> client.getTrack(DELETED_TRACK_URL))
+                .isInstanceOf(TrackSearchException.class)
+                .hasMessageContaining("(404)");
+        assertThat(TrackSearchConfig.negativeCache.unavailableReason(CanonicalTrackId.of(TrackSource.Soundcloud, DELETED_TRACK_URL)))
+                .isEqualTo("Response code 404");
+        assertThat(count(Metrics.CLIENT_ID_REFRESHES)).as("Only the initial ClientID scrape").isOne();
+
+        final long requests = count(Metrics.REQUEST_LATENCY);
+        assertThatThrownBy(() -> client.getTrack(DELETED_TRACK_URL))
+                .isInstanceOf(SoundCloudException.class)
+                .hasMessageContaining("unavailable: Response code 404");
+        assertThat(count(Metrics.REQUEST_LATENCY)).as("Failing fast without a request").isEqualTo(requests);
+        assertThat(count(Metrics.CLIENT_ID_REFRESHES)).isOne();
+    }
+
+    private long count(final String name) {
+        final LongAdder count = counts.get(name);
+        return count == null ? 0 : count.sum();
+    }
+
+}
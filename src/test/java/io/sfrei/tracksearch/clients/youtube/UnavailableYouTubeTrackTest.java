@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.youtube;
+
+import io.sfrei.tracksearch.cache.NegativeTrackCache;
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.config.ReplayConfig;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.exceptions.YouTubeException;
+import io.sfrei.tracksearch.tracks.dedup.CanonicalTrackId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UnavailableYouTubeTrackTest {
+
+    private static final String DELETED_TRACK_URL = "https://www.youtube.com/watch?v=dEleTedVid0";
+
+    private ReplayConfig replayConfig;
+
+    @BeforeEach
+    public void replaySynthetic() {
+        replayConfig = TrackSearchConfig.replay;
+        TrackSearchConfig.replay = new ReplayConfig(ReplayConfig.Mode.REPLAY, Path.of("src/test/resources/replay-synthetic"),
+                Duration.ZERO, Duration.ZERO);
+        TrackSearchConfig.negativeCache = new NegativeTrackCache(Duration.ofHours(1), 10);
+    }
+
+    @AfterEach
+    public void reset() {
+        TrackSearchConfig.replay = replayConfig;
+        TrackSearchConfig.negativeCache = null;
+    }
+
+    @Test
+    public void unavailableTracksFailWithYouTubeException() {
+        final YouTubeClient client = new YouTubeClient();
+
+        assertThatThrownBy(() -> client.getTrack(DELETED_TRACK_URL))
+                .isInstanceOf(YouTubeException.class)
+                .hasMessageEndingWith("unavailable: Video unavailable");
+        assertThat(TrackSearchConfig.negativeCache.unavailableReason(CanonicalTrackId.of(TrackSource.Youtube, DELETED_TRACK_URL)))
+                .isEqualTo("Video unavailable");
+
+        assertThatThrownBy(() -> client.getTrack(DELETED_TRACK_URL))
+                .as("Known unavailable tracks should fail the same way")
+                .isInstanceOf(YouTubeException.class)
+                .hasMessageEndingWith("unavailable: Video unavailable");
+    }
+
+}
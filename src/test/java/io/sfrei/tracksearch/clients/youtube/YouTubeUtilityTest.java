@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.clients.youtube;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.TrackUnavailableException;
+import io.sfrei.tracksearch.exceptions.YouTubeException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class YouTubeUtilityTest {
+
+    private static final String VIDEO = """
+            {"videoRenderer":{"videoId":"%s","title":{"runs":[{"text":"Title"}]},"lengthText":{"simpleText":"3:45"}}}""";
+
+    @Test
+    public void extractsTracksWithMissingMetadata() throws YouTubeException {
+        final String initialData = """
+                {"contents":{"twoColumnSearchResultsRenderer":{"primaryContents":{"sectionListRenderer":{"contents":[
+                {"itemSectionRenderer":{"contents":[%s,%s]}}]}}}}}""".formatted(VIDEO.formatted("first"), VIDEO.formatted("second"));
+        final String html = "<html><body><script nonce=\"n\">var ytInitialData = " + initialData + ";</script></body></html>";
+
+        final GenericTrackList<YouTubeTrack> trackList = YouTubeUtility.extractYouTubeTracks(html, QueryType.SEARCH, "key", next -> null);
+
+        assertThat(trackList)
+                .as("Tracks without thumbnail and channel should be extracted")
+                .hasSize(2);
+        assertThat(trackList.get(0).getTrackMetadata().channelUrl()).isNull();
+    }
+
+    @Test
+    public void unplayableTracksAreUnavailable() {
+        final String playerResponse = """
+                {"playabilityStatus":{"status":"ERROR","reason":"Video unavailable"}}""";
+        final String html = "<html><body><script nonce=\"n\">var ytInitialPlayerResponse = " + playerResponse + ";</script></body></html>";
+
+        assertThatThrownBy(() -> YouTubeUtility.extractYouTubeTrack(html))
+                .isInstanceOf(TrackUnavailableException.class)
+                .hasMessage("Video unavailable");
+    }
+
+    @Test
+    public void pagesWithoutPlayerAreNotUnavailable() {
+        final String html = "<html><body><form action=\"https://consent.youtube.com/save\"></form></body></html>";
+
+        assertThatThrownBy(() -> YouTubeUtility.extractYouTubeTrack(html))
+                .as("A consent page or changed layout should not mark the track unavailable")
+                .isInstanceOf(YouTubeException.class)
+                .isNotInstanceOf(TrackUnavailableException.class);
+    }
+
+}
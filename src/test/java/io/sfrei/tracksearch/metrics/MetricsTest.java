@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics;
+
+import io.sfrei.tracksearch.clients.TrackSource;
+import io.sfrei.tracksearch.clients.common.SharedExecutor;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+class MetricsTest {
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private final MetricsRecorder countingRecorder = new MetricsRecorder() {
+        @Override
+        public void count(String name, TrackSource source, long amount) {
+            counts.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+        }
+
+        @Override
+        public void time(String name, TrackSource source, long nanos) {
+            count(name, source, 1);
+        }
+    };
+
+    @AfterEach
+    public void unbind() {
+        TrackSearchConfig.metricsRecorder = MetricsRecorder.NOOP;
+    }
+
+    @Test
+    public void recordsToBoundRecorder() {
+        TrackSearchConfig.metricsRecorder = countingRecorder;
+
+        Metrics.count(Metrics.TRACKS_PARSED, TrackSource.Youtube, 3);
+        Metrics.count(Metrics.TRACKS_PARSED, TrackSource.Soundcloud, 2);
+
+        assertThat(counts.get(Metrics.TRACKS_PARSED).sum()).isEqualTo(5);
+    }
+
+    @Test
+    public void recordsExecutorQueueTime() throws Exception {
+        TrackSearchConfig.metricsRecorder = countingRecorder;
+
+        SharedExecutor.WORKER.submit(() -> {
+        }).get();
+
+        assertThat(counts.get(Metrics.EXECUTOR_QUEUE_TIME).sum()).isPositive();
+    }
+
+    @Test
+    public void recorderFailuresAreIgnored() {
+        TrackSearchConfig.metricsRecorder = new MetricsRecorder() {
+            @Override
+            public void record(String name, TrackSource source, long value) {
+                throw new IllegalStateException("Broken recorder");
+            }
+        };
+
+        assertThatNoException().isThrownBy(() -> Metrics.record(Metrics.REQUEST_BYTES, TrackSource.Youtube, 1024));
+    }
+
+}
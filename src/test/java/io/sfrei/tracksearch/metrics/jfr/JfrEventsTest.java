@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.metrics.jfr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.exceptions.TrackSearchException;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.utils.json.JsonElement;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JfrEventsTest {
+
+    @Test
+    public void recordsEvents() throws Exception {
+        final List<RecordedEvent> events;
+        try (final Recording recording = new Recording()) {
+            recording.enable(SearchEvent.class).withoutThreshold();
+            recording.enable(JsonReadEvent.class).withoutThreshold();
+            recording.start();
+
+            SearchEvent.record("Test", QueryType.SEARCH, "query", 1,
+                    () -> GenericTrackList.<Track>using(QueryType.SEARCH, Map.of(), null));
+            assertThatThrownBy(() -> SearchEvent.record("Test", QueryType.PAGING, "query", 1, () -> {
+                throw new TrackSearchException("Failed");
+            })).isInstanceOf(TrackSearchException.class);
+
+            JsonElement.readTreeCatching(new ObjectMapper(), "{\"collection\":[]}");
+
+            recording.stop();
+            final Path file = Files.createTempFile("tracksearch", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        final List<RecordedEvent> searches = events.stream()
+                .filter(event -> event.getEventType().getName().equals("io.sfrei.tracksearch.Search"))
+                .toList();
+        assertThat(searches).hasSize(2);
+        assertThat(searches.get(0).getString("queryType")).isEqualTo("SEARCH");
+        assertThat(searches.get(0).getBoolean("failed")).isFalse();
+        assertThat(searches.get(1).getBoolean("failed")).isTrue();
+
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("io.sfrei.tracksearch.JsonRead"))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getLong("jsonLength")).isEqualTo(17));
+    }
+
+}
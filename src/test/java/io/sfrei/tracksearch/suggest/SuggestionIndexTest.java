@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.suggest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SuggestionIndexTest {
+
+    @Test
+    public void suggestsHeaviestCompletions() {
+        final SuggestionIndex index = new SuggestionIndex(100);
+        index.recordTitle("Bonobo - Kerala");
+        index.recordTitle("Bonobo - Kiara");
+        index.recordTitle("Bonobo - Kiara");
+        index.recordQuery("bonobo");
+        index.recordTitle("Boards of Canada - Roygbiv");
+        index.recordTitle("Bon Iver - Holocene");
+
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.suggest("Bo", 10))
+                .containsExactly("bonobo", "bonobo kiara", "boards of canada roygbiv", "bon iver holocene", "bonobo kerala");
+        assertThat(index.suggest("bonobo k", 1)).containsExactly("bonobo kiara");
+        assertThat(index.suggest("bonobo ", 10)).containsExactly("bonobo kiara", "bonobo kerala");
+        assertThat(index.suggest("BONOBO-KE", 10)).containsExactly("bonobo kerala");
+        assertThat(index.suggest("bonobos", 10)).isEmpty();
+        assertThat(index.suggest("", 2)).containsExactly("bonobo", "bonobo kiara");
+    }
+
+    @Test
+    public void lightestEntriesAreDroppedWhenFull() {
+        final SuggestionIndex index = new SuggestionIndex(8);
+        for (int i = 0; i < 100; i++) {
+            index.recordQuery("frequent " + i % 4);
+            index.recordTitle("rare " + i);
+        }
+
+        assertThat(index.size()).isLessThanOrEqualTo(8);
+        assertThat(index.suggest("frequent", 10)).hasSize(4);
+        assertThat(index.suggest("rare", 10)).doesNotContain("rare 0", "rare 1");
+    }
+
+    @Test
+    public void reloadsFromFile(@TempDir Path directory) throws IOException {
+        final SuggestionIndex index = new SuggestionIndex(100);
+        index.recordQuery("Ólafur Arnalds");
+        index.recordTitle("Ólafur Arnalds - Saman");
+        index.recordTitle("Nils Frahm - Says");
+        index.recordTitle("Nils Frahm - Says");
+
+        final Path file = directory.resolve("suggestions");
+        index.writeTo(file);
+        final SuggestionIndex reloaded = SuggestionIndex.readFrom(file, 100);
+
+        assertThat(reloaded.size()).isEqualTo(3);
+        assertThat(reloaded.suggest("", 10)).isEqualTo(index.suggest("", 10));
+        assertThat(reloaded.suggest("óla", 10)).containsExactly("ólafur arnalds", "ólafur arnalds saman");
+
+        Files.write(file, new byte[]{'T', 'S', 9, 3});
+        assertThatThrownBy(() -> SuggestionIndex.readFrom(file, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.config.DeduplicationConfig;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackListDeduplicationTest {
+
+    private static final int LAST_PAGE = 5;
+
+    private static YouTubeTrack track(int id) {
+        return YouTubeTrack.builder()
+                .title("Track " + id)
+                .duration(Duration.ofMinutes(3))
+                .url("https://www.youtube.com/watch?v=" + id)
+                .build();
+    }
+
+    // Every page repeats the last two tracks of the previous one, page 2 repeats page 1 completely
+    private static GenericTrackList<YouTubeTrack> page(int page) {
+        final List<YouTubeTrack> tracks = page > LAST_PAGE ? List.of()
+                : page <= 2 ? IntStream.range(0, 5).mapToObj(TrackListDeduplicationTest::track).toList()
+                : IntStream.range(page * 5 - 7, page * 5).mapToObj(TrackListDeduplicationTest::track).toList();
+
+        final Map<String, String> queryInformation = new HashMap<>(Map.of(TrackList.QUERY_KEY, "query", "page", String.valueOf(page)));
+        return GenericTrackList.using(QueryType.SEARCH, queryInformation, TrackListDeduplicationTest::nextPage).withTracks(tracks);
+    }
+
+    private static TrackList<YouTubeTrack> nextPage(TrackList<YouTubeTrack> trackList) {
+        return page(Integer.parseInt(trackList.getQueryInformation().get("page")) + 1);
+    }
+
+    @BeforeEach
+    public void enable() {
+        TrackSearchConfig.deduplication = DeduplicationConfig.defaults();
+    }
+
+    @AfterEach
+    public void disable() {
+        TrackSearchConfig.deduplication = null;
+    }
+
+    @Test
+    public void nextPagesKeepSeenTracksByDefault() {
+        TrackSearchConfig.deduplication = null;
+
+        assertThat(page(1).next())
+                .as("Without deduplication the repeated page should be kept")
+                .hasSize(5);
+    }
+
+    @Test
+    public void nextPagesDropSeenTracks() {
+        final TrackList<YouTubeTrack> first = page(1);
+        final TrackList<YouTubeTrack> second = first.next();
+        final TrackList<YouTubeTrack> third = second.next();
+
+        assertThat(second)
+                .as("The repeated page should be empty")
+                .isEmpty();
+        assertThat(third)
+                .extracting(Track::getUrl)
+                .containsExactly(IntStream.range(8, 15).mapToObj(id -> "https://www.youtube.com/watch?v=" + id).toArray(String[]::new));
+    }
+
+    @Test
+    public void iterationContinuesAfterDuplicatePage() {
+        final List<String> urls = TrackListIterator.stream(page(1), page -> true)
+                .map(Track::getUrl)
+                .toList();
+
+        assertThat(urls)
+                .doesNotHaveDuplicates()
+                .hasSize(22);
+    }
+
+}
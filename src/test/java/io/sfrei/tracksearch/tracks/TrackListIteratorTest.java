@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackListIteratorTest {
+
+    private static final int PAGES = 3;
+    private static final int TRACKS_PER_PAGE = 2;
+
+    private final AtomicInteger fetchedPages = new AtomicInteger(0);
+
+    private GenericTrackList<YouTubeTrack> page(int page) {
+        final List<YouTubeTrack> tracks = IntStream.range(0, TRACKS_PER_PAGE)
+                .mapToObj(index -> YouTubeTrack.builder()
+                        .title("Track " + page + "-" + index)
+                        .duration(Duration.ofMinutes(3))
+                        .url("https://www.youtube.com/watch?v=" + page + "-" + index)
+                        .build())
+                .collect(Collectors.toList());
+
+        final Map<String, String> queryInformation = new HashMap<>(Map.of(TrackList.QUERY_KEY, "query", "page", String.valueOf(page)));
+        return GenericTrackList.using(QueryType.SEARCH, queryInformation, this::nextPage).withTracks(tracks);
+    }
+
+    private TrackList<YouTubeTrack> nextPage(TrackList<YouTubeTrack> trackList) {
+        fetchedPages.incrementAndGet();
+        return page(Integer.parseInt(trackList.getQueryInformation().get("page")) + 1);
+    }
+
+    private boolean hasNextPage(TrackList<YouTubeTrack> trackList) {
+        return Integer.parseInt(trackList.getQueryInformation().get("page")) < PAGES - 1;
+    }
+
+    @Test
+    public void walksAllPages() {
+        final long tracks = TrackListIterator.stream(page(0), this::hasNextPage).count();
+
+        assertThat(tracks)
+                .as("All tracks of all pages should be streamed")
+                .isEqualTo(PAGES * TRACKS_PER_PAGE);
+        assertThat(fetchedPages.get())
+                .isEqualTo(PAGES - 1);
+    }
+
+    @Test
+    public void limitDoesNotFetchFurtherPages() {
+        final List<YouTubeTrack> tracks = TrackListIterator.stream(page(0), this::hasNextPage)
+                .limit(TRACKS_PER_PAGE + 1)
+                .collect(Collectors.toList());
+
+        assertThat(tracks)
+                .hasSize(TRACKS_PER_PAGE + 1);
+        assertThat(fetchedPages.get())
+                .as("Only the page containing the last requested track should be fetched")
+                .isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackListPrefetcherTest {
+
+    private final AtomicInteger fetchedPages = new AtomicInteger(0);
+
+    private GenericTrackList<YouTubeTrack> page(int page) {
+        final YouTubeTrack track = YouTubeTrack.builder()
+                .title("Track " + page)
+                .duration(Duration.ofMinutes(3))
+                .url("https://www.youtube.com/watch?v=" + page)
+                .build();
+
+        final Map<String, String> queryInformation = new HashMap<>(Map.of(TrackList.QUERY_KEY, "query", "page", String.valueOf(page)));
+        return GenericTrackList.using(QueryType.SEARCH, queryInformation, this::nextPage).withTracks(List.of(track));
+    }
+
+    private TrackList<YouTubeTrack> nextPage(TrackList<YouTubeTrack> trackList) {
+        fetchedPages.incrementAndGet();
+        return page(Integer.parseInt(trackList.getQueryInformation().get("page")) + 1);
+    }
+
+    @Test
+    public void nextReturnsPrefetchedPage() throws InterruptedException {
+        final TrackListPrefetcher prefetcher = new TrackListPrefetcher(2, Duration.ofMinutes(1));
+        final TrackList<YouTubeTrack> first = prefetcher.prefetch(page(0));
+
+        awaitFetchedPages(2);
+
+        final TrackList<YouTubeTrack> second = first.next();
+        final TrackList<YouTubeTrack> third = second.next();
+
+        assertThat(third.getQueryInformation().get("page"))
+                .as("Pages should be returned in order")
+                .isEqualTo("2");
+
+        final TrackListPrefetcher.Statistics statistics = prefetcher.getStatistics();
+        assertThat(statistics.misses())
+                .as("No page should have been fetched on demand")
+                .isZero();
+        assertThat(statistics.hitRate())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    public void unusedPrefetchExpires() throws InterruptedException {
+        final TrackListPrefetcher prefetcher = new TrackListPrefetcher(1, Duration.ofMillis(50));
+        final TrackList<YouTubeTrack> first = prefetcher.prefetch(page(0));
+
+        awaitFetchedPages(1);
+        Thread.sleep(200);
+
+        assertThat(first.next().getQueryInformation().get("page"))
+                .isEqualTo("1");
+
+        final TrackListPrefetcher.Statistics statistics = prefetcher.getStatistics();
+        assertThat(statistics.expired())
+                .as("Unused prefetch should have expired")
+                .isEqualTo(1);
+        assertThat(statistics.misses())
+                .isEqualTo(1);
+    }
+
+    private void awaitFetchedPages(int pages) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (fetchedPages.get() < pages && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+}
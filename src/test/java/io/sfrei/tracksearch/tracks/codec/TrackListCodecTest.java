@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.codec;
+
+import io.sfrei.tracksearch.clients.common.QueryType;
+import io.sfrei.tracksearch.tracks.GenericTrackList;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.TrackList;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.metadata.SoundCloudTrackMetadata;
+import io.sfrei.tracksearch.tracks.metadata.YouTubeTrackMetadata;
+import io.sfrei.tracksearch.tracks.paging.MultiCursor;
+import io.sfrei.tracksearch.tracks.paging.SoundCloudCursor;
+import io.sfrei.tracksearch.tracks.paging.YouTubeCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrackListCodecTest {
+
+    private static GenericTrackList<Track> trackList() {
+        final List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tracks.add(YouTubeTrack.builder()
+                    .title("Bonobo - Kerala " + i)
+                    .duration(Duration.ofSeconds(200 + i))
+                    .url("https://www.youtube.com/watch?v=video" + i)
+                    .trackMetadata(new YouTubeTrackMetadata("Bonobo", "https://www.youtube.com/@bonobo", 1_000_000L * i,
+                            "https://i.ytimg.com/vi/video" + i + "/hqdefault.jpg"))
+                    .build());
+            tracks.add(SoundCloudTrack.builder()
+                    .title("Kerala (Edit) – ünïcödé " + i)
+                    .duration(Duration.ofMillis(245_123 + i))
+                    .url("https://soundcloud.com/bonobo/kerala-" + i)
+                    .trackMetadata(new SoundCloudTrackMetadata("bonobo", "https://soundcloud.com/bonobo", null, null))
+                    .build());
+        }
+        tracks.add(YouTubeTrack.builder().title("Without metadata").url("https://www.youtube.com/watch?v=plain").build());
+
+        final Map<String, String> queryInformation = new HashMap<>(Map.of(TrackList.QUERY_KEY, "bonobo kerala"));
+        final MultiCursor cursor = MultiCursor.combining("bonobo kerala", List.of(
+                new YouTubeCursor("bonobo kerala", 0, 21, "continuation"),
+                new SoundCloudCursor("bonobo kerala", 0, 20, 20)));
+
+        return GenericTrackList.<Track>using(QueryType.SEARCH, queryInformation, null).withTracks(tracks).withCursor(cursor);
+    }
+
+    private static void assertSameTracks(List<Track> actual, List<Track> expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i))
+                    .usingRecursiveComparison()
+                    .isEqualTo(expected.get(i));
+        }
+    }
+
+    @Test
+    public void trackListSurvivesRoundTrip() {
+        final GenericTrackList<Track> trackList = trackList();
+
+        final GenericTrackList<Track> decoded = TrackListCodec.decodeTrackList(ByteBuffer.wrap(TrackListCodec.encode(trackList)));
+
+        assertSameTracks(decoded, trackList);
+        assertThat(decoded.getQueryType()).isEqualTo(QueryType.SEARCH);
+        assertThat(decoded.getQueryInformation()).isEqualTo(trackList.getQueryInformation());
+        assertThat(decoded.getCursor()).isEqualTo(trackList.getCursor());
+    }
+
+    @Test
+    public void decodesFromDirectBufferAtPosition() {
+        final GenericTrackList<Track> trackList = trackList();
+        final byte[] encoded = TrackListCodec.encode(trackList);
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length + 10);
+        buffer.position(10);
+        buffer.put(encoded);
+        buffer.position(10);
+
+        assertSameTracks(TrackListCodec.decodeTrackList(buffer), trackList);
+        assertThat(buffer.hasRemaining())
+                .as("The whole track list should be consumed")
+                .isFalse();
+    }
+
+    @Test
+    public void trackSurvivesRoundTrip() {
+        final Track track = trackList().get(1);
+
+        assertThat(TrackListCodec.decodeTrack(ByteBuffer.wrap(TrackListCodec.encode(track))))
+                .usingRecursiveComparison()
+                .isEqualTo(track);
+    }
+
+    @Test
+    public void enumsAreWrittenAsStableCodes() {
+        final byte[] encodedTrackList = TrackListCodec.encode(trackList());
+        final byte[] encodedYouTubeTrack = TrackListCodec.encode(trackList().get(0));
+        final byte[] encodedSoundCloudTrack = TrackListCodec.encode(trackList().get(1));
+
+        assertThat(encodedTrackList[4])
+                .as("Search query type code")
+                .isEqualTo((byte) 1);
+        assertThat(encodedYouTubeTrack[4])
+                .as("YouTube source code")
+                .isEqualTo((byte) 1);
+        assertThat(encodedSoundCloudTrack[4])
+                .as("SoundCloud source code")
+                .isEqualTo((byte) 2);
+    }
+
+    @Test
+    public void repeatedStringsAreWrittenOnce() {
+        final byte[] encoded = TrackListCodec.encode(trackList());
+
+        final int naiveSize = trackList().stream()
+                .mapToInt(track -> track.getTitle().length() + track.getUrl().length() + 40)
+                .sum();
+        assertThat(encoded.length)
+                .as("Channels and URL prefixes should be referenced")
+                .isLessThan(naiveSize);
+    }
+
+    @Test
+    public void malformedInputIsRejected() {
+        final byte[] encoded = TrackListCodec.encode(trackList());
+
+        final byte[] otherVersion = encoded.clone();
+        otherVersion[2] = TrackListCodec.VERSION + 1;
+        assertThatThrownBy(() -> TrackListCodec.decodeTrackList(ByteBuffer.wrap(otherVersion)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+
+        assertThatThrownBy(() -> TrackListCodec.decodeTrackList(ByteBuffer.wrap(encoded, 0, encoded.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> TrackListCodec.decodeTrack(ByteBuffer.wrap(encoded)))
+                .as("A track list is not a track")
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
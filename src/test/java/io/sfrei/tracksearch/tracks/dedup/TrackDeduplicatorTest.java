@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.dedup;
+
+import io.sfrei.tracksearch.config.DeduplicationConfig;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackDeduplicatorTest {
+
+    private static Track youTube(String title, String url, int seconds) {
+        return YouTubeTrack.builder().title(title).url(url).duration(Duration.ofSeconds(seconds)).build();
+    }
+
+    private static Track soundCloud(String title, String url, int seconds) {
+        return SoundCloudTrack.builder().title(title).url(url).duration(Duration.ofSeconds(seconds)).build();
+    }
+
+    @Test
+    public void canonicalIdIgnoresUrlVariants() {
+        assertThat(CanonicalTrackId.of(youTube("Song", "https://www.youtube.com/watch?v=abc123&list=xyz", 200)))
+                .isEqualTo(CanonicalTrackId.of(youTube("Song", "https://youtu.be/abc123?t=10", 200)))
+                .isEqualTo("youtube:abc123");
+
+        assertThat(CanonicalTrackId.of(soundCloud("Song", "https://soundcloud.com/Artist/Song/?in=playlist", 200)))
+                .isEqualTo("soundcloud:artist/song");
+    }
+
+    @Test
+    public void exactDuplicatesAreDroppedAcrossCalls() {
+        final TrackDeduplicator deduplicator = new TrackDeduplicator(DeduplicationConfig.defaults());
+
+        final Track first = youTube("Song", "https://www.youtube.com/watch?v=1", 200);
+        final Track second = youTube("Other", "https://www.youtube.com/watch?v=2", 200);
+
+        assertThat(deduplicator.distinct(List.of(first, first, second)))
+                .containsExactly(first, second);
+        assertThat(deduplicator.distinct(List.of(youTube("Song", "https://www.youtube.com/watch?v=1&t=5", 200))))
+                .isEmpty();
+    }
+
+    @Test
+    public void nearDuplicatesAreDroppedAcrossSources() {
+        final TrackDeduplicator deduplicator = new TrackDeduplicator(DeduplicationConfig.defaults().withNearDuplicates());
+
+        final Track video = youTube("Artist - Song (Official Video)", "https://www.youtube.com/watch?v=1", 212);
+        final Track upload = soundCloud("ARTIST - SONG", "https://soundcloud.com/artist/song", 214);
+        final Track remix = soundCloud("Artist - Song (Club Remix)", "https://soundcloud.com/artist/song-remix", 212);
+        final Track extended = youTube("Artist - Song", "https://www.youtube.com/watch?v=2", 420);
+
+        assertThat(deduplicator.distinct(List.of(video, upload, remix, extended)))
+                .containsExactly(video, remix, extended);
+    }
+
+    @Test
+    public void seenTracksAreBounded() {
+        final TrackDeduplicator deduplicator = new TrackDeduplicator(new DeduplicationConfig(100, true, 3, Duration.ofSeconds(5)));
+
+        final List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            tracks.add(youTube("Track number " + i, "https://www.youtube.com/watch?v=" + i, 100 + i));
+
+        assertThat(deduplicator.distinct(tracks))
+                .hasSize(1000);
+        assertThat(deduplicator.size())
+                .isEqualTo(100);
+
+        assertThat(deduplicator.distinct(tracks.subList(0, 10)))
+                .as("Forgotten tracks should pass again")
+                .hasSize(10);
+    }
+
+}
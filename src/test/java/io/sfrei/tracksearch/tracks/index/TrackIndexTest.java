@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.index;
+
+import io.sfrei.tracksearch.clients.youtube.YouTubeClient;
+import io.sfrei.tracksearch.config.TrackSearchConfig;
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.metadata.SoundCloudTrackMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackIndexTest {
+
+    private static Track youTube(String title, String id) {
+        return YouTubeTrack.builder().title(title).url("https://www.youtube.com/watch?v=" + id)
+                .duration(Duration.ofSeconds(200)).build();
+    }
+
+    private static Track soundCloud(String title, String channel, String path) {
+        return SoundCloudTrack.builder().title(title).url("https://soundcloud.com/" + path)
+                .duration(Duration.ofSeconds(200))
+                .trackMetadata(new SoundCloudTrackMetadata(channel, "https://soundcloud.com/" + channel, 1000L, null))
+                .build();
+    }
+
+    @Test
+    public void postingListIsDeltaEncoded() {
+        final PostingList postingList = new PostingList();
+        for (final int doc : new int[]{0, 3, 3, 127, 200, 70000})
+            postingList.add(doc);
+
+        assertThat(postingList.size()).isEqualTo(5);
+        assertThat(postingList.bytes()).isEqualTo(7);
+        assertThat(postingList.toArray()).containsExactly(0, 3, 127, 200, 70000);
+
+        final int[] docs = {1, 3, 200, 300, 70000, 80000};
+        final int retained = postingList.retainAll(docs, docs.length);
+        assertThat(retained).isEqualTo(3);
+        assertThat(docs).startsWith(3, 200, 70000);
+    }
+
+    @Test
+    public void searchMatchesAllTokensOfTitleOrChannel() {
+        final TrackIndex index = new TrackIndex(100);
+        final Track song = soundCloud("Song of the Day", "artist", "artist/song");
+        final Track other = soundCloud("Other Song", "someone", "someone/other");
+        final Track video = youTube("Artist - Song (Official Video)", "abc");
+        index.addAll(List.of(song, other, video, video));
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("song", 10)).containsExactlyInAnyOrder(song, other, video);
+        assertThat(index.search("ARTIST song", 10)).containsExactly(video, song);
+        assertThat(index.search("artist song", 1)).hasSize(1);
+        assertThat(index.search("missing song", 10)).isEmpty();
+        assertThat(index.search(" - ", 10)).isEmpty();
+    }
+
+    @Test
+    public void generationsBoundTheIndex() {
+        final TrackIndex index = new TrackIndex(10);
+        final Track kept = youTube("Kept track", "kept");
+        index.add(youTube("First track", "first"));
+        index.add(kept);
+
+        for (int i = 0; i < 8; i++) {
+            index.add(youTube("Track " + i, String.valueOf(i)));
+            index.add(kept);
+        }
+
+        assertThat(index.size()).isLessThanOrEqualTo(10);
+        assertThat(index.search("first", 10)).isEmpty();
+        assertThat(index.search("kept", 10)).containsExactly(kept);
+        assertThat(index.search("track", 20)).contains(kept, youTube("Track 7", "7"));
+    }
+
+    @Test
+    public void searchLocalReturnsTracksOfTheClient() {
+        final TrackIndex index = new TrackIndex(100);
+        final Track video = youTube("Artist - Song", "abc");
+        index.addAll(List.of(video, soundCloud("Artist - Song", "artist", "artist/song")));
+
+        TrackSearchConfig.localIndex = index;
+        try {
+            assertThat(new YouTubeClient().searchLocal("artist song"))
+                    .containsExactly((YouTubeTrack) video);
+        } finally {
+            TrackSearchConfig.localIndex = null;
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.merge;
+
+import io.sfrei.tracksearch.tracks.SoundCloudTrack;
+import io.sfrei.tracksearch.tracks.Track;
+import io.sfrei.tracksearch.tracks.YouTubeTrack;
+import io.sfrei.tracksearch.tracks.metadata.SoundCloudTrackMetadata;
+import io.sfrei.tracksearch.tracks.metadata.YouTubeTrackMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MergeStrategyTest {
+
+    private static Track youTube(String title, Duration duration, long streams) {
+        return YouTubeTrack.builder()
+                .title(title)
+                .duration(duration)
+                .url("https://www.youtube.com/watch?v=" + title.hashCode())
+                .trackMetadata(new YouTubeTrackMetadata("channel", null, streams, null))
+                .build();
+    }
+
+    private static Track soundCloud(String title, Duration duration, long streams) {
+        return SoundCloudTrack.builder()
+                .title(title)
+                .duration(duration)
+                .url("https://soundcloud.com/artist/" + title.hashCode())
+                .trackMetadata(new SoundCloudTrackMetadata("artist", null, streams, null))
+                .build();
+    }
+
+    private final List<Track> youTubeResults = List.of(
+            youTube("Unrelated Podcast Episode", Duration.ofMinutes(90), 1_000),
+            youTube("Artist - Song (Official Video)", Duration.ofMinutes(4), 50_000_000),
+            youTube("Song Remix", Duration.ofMinutes(3), 10_000)
+    );
+
+    private final List<Track> soundCloudResults = List.of(
+            soundCloud("Artist - Song", Duration.ofMinutes(4), 200_000),
+            soundCloud("Something Else", Duration.ofMinutes(3), 100)
+    );
+
+    @Test
+    public void concatenateKeepsSourceOrder() {
+        final List<Track> merged = MergeStrategy.CONCATENATE.merge("artist song", List.of(youTubeResults, soundCloudResults));
+
+        assertThat(merged)
+                .containsExactly(youTubeResults.get(0), youTubeResults.get(1), youTubeResults.get(2),
+                        soundCloudResults.get(0), soundCloudResults.get(1));
+    }
+
+    @Test
+    public void roundRobinInterleavesSources() {
+        final List<Track> merged = MergeStrategy.ROUND_ROBIN.merge("artist song", List.of(youTubeResults, soundCloudResults));
+
+        assertThat(merged)
+                .containsExactly(youTubeResults.get(0), soundCloudResults.get(0), youTubeResults.get(1),
+                        soundCloudResults.get(1), youTubeResults.get(2));
+    }
+
+    @Test
+    public void relevanceRanksMatchingTitlesFirst() {
+        final List<Track> merged = RelevanceMergeStrategy.defaults().merge("Artist Song", List.of(youTubeResults, soundCloudResults));
+
+        assertThat(merged)
+                .hasSize(5)
+                .startsWith(youTubeResults.get(1), soundCloudResults.get(0), youTubeResults.get(2));
+        assertThat(merged.subList(3, 5))
+                .as("Tracks not matching the query should be last")
+                .containsExactlyInAnyOrder(youTubeResults.get(0), soundCloudResults.get(1));
+    }
+
+    @Test
+    public void relevanceWithoutQueryFallsBackToSignals() {
+        final List<Track> merged = new RelevanceMergeStrategy(1.0, 0.0, 1.0).merge(null, List.of(youTubeResults, soundCloudResults));
+
+        assertThat(merged.get(0))
+                .as("Without query the most streamed track should be first")
+                .isEqualTo(youTubeResults.get(1));
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2024 s-frei (sfrei.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.sfrei.tracksearch.tracks.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PagingCursorTest {
+
+    private static final String CONTINUATION = "EpEDEgVib25vYm8aggNTQlNDQVF0Vk1XZFpjVE5hWldGSWE0SUJDMnc1WjBWc2NsVmZPR1pKZ2dF";
+
+    @Test
+    public void cursorsSurviveTokenRoundTrip() {
+        final YouTubeCursor youTube = new YouTubeCursor("bonobo kerala", 20, 40, CONTINUATION);
+        final SoundCloudCursor soundCloud = new SoundCloudCursor("bonobo kerala", 40, 60, 20);
+        final MultiCursor multi = MultiCursor.combining("bonobo kerala", List.of(youTube, soundCloud));
+
+        assertThat(PagingCursor.fromToken(youTube.toToken())).isEqualTo(youTube);
+        assertThat(PagingCursor.fromToken(soundCloud.toToken())).isEqualTo(soundCloud);
+        assertThat(PagingCursor.fromToken(multi.toToken())).isEqualTo(multi);
+        assertThat(multi.position()).isEqualTo(60);
+        assertThat(multi.offset()).isEqualTo(100);
+    }
+
+    @Test
+    public void tokensAreCompactAndUrlSafe() {
+        final SoundCloudCursor soundCloud = new SoundCloudCursor("süße töne", 1_000_000, 1_000_020, 20);
+        final String token = soundCloud.toToken();
+
+        assertThat(token)
+                .matches("[A-Za-z0-9_-]+")
+                .hasSizeLessThan(40);
+        assertThat(PagingCursor.fromToken(token)).isEqualTo(soundCloud);
+
+        final YouTubeCursor withoutContinuation = new YouTubeCursor(null, 0, 0, null);
+        assertThat(PagingCursor.fromToken(withoutContinuation.toToken())).isEqualTo(withoutContinuation);
+    }
+
+    @Test
+    public void malformedTokensAreRejected() {
+        final String token = new YouTubeCursor("query", 0, 20, CONTINUATION).toToken();
+
+        assertThatThrownBy(() -> PagingCursor.fromToken("not a token!"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PagingCursor.fromToken(token.substring(0, token.length() - 10)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PagingCursor.fromToken("Ag" + token.substring(2)))
+                .as("Unknown versions should be rejected")
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void startingAtKeepsPageSize() {
+        final YouTubeCursor cursor = new YouTubeCursor("query", 0, 18, CONTINUATION);
+
+        assertThat(cursor.startingAt(40))
+                .isEqualTo(new YouTubeCursor("query", 40, 58, CONTINUATION));
+    }
+
+}